@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 
@@ -85,6 +86,9 @@ public class WikipediaDumpParser
   
   /** */
   private final Function1<WikiTitle, Boolean> _filter;
+
+  /** namespace codes of pages to read. If null, read pages in all namespaces. */
+  private final Set<Integer> _namespaces;
   
   /** page processor, called for each page */
   private final Function1<WikiPage, ?> _processor;
@@ -98,6 +102,20 @@ public class WikipediaDumpParser
    * @param processor page processor
    */
   public WikipediaDumpParser(Reader stream, Language language, Function1<WikiTitle, Boolean> filter, Function1<WikiPage, ?> processor)
+  {
+    this(stream, language, filter, null, processor);
+  }
+
+  /**
+   * @param stream The character stream. Will be closed after reading.
+   * @param language language used to parse page titles. If null, get language from siteinfo.
+   * @param filter page filter. Only matching pages will be processed.
+   * @param namespaces namespace codes of pages to process. Pages in other namespaces are skipped
+   * right after their ns element is read, without parsing their title or decoding their text.
+   * If null, pages in all namespaces are processed.
+   * @param processor page processor
+   */
+  public WikipediaDumpParser(Reader stream, Language language, Function1<WikiTitle, Boolean> filter, Set<Integer> namespaces, Function1<WikiPage, ?> processor)
   {
     if (stream == null) throw new NullPointerException("file");
     if (processor == null) throw new NullPointerException("processor");
@@ -105,6 +123,7 @@ public class WikipediaDumpParser
     _stream = stream;
     _language = language;
     _filter = filter;
+    _namespaces = namespaces;
     _processor = processor;
   }
   
@@ -216,6 +235,13 @@ public class WikipediaDumpParser
       throw new IllegalArgumentException("cannot parse content of element ["+NS_ELEM+"] as int", e);
     }
 
+    // <ns> comes before <revision>, skip unwanted pages before anything is decoded
+    if (_namespaces != null && ! _namespaces.contains(nsCode))
+    {
+      skipTitle();
+      return;
+    }
+
     //Read page id
     String pageId = readString(ID_ELEM, false);
     // now at </id>
@@ -312,6 +338,9 @@ public class WikipediaDumpParser
     requireEndElement(PAGE_ELEM);
   }
 
+  /**
+   * Move to </page>. Only iterates over the events, element text is never requested as a String.
+   */
   private void skipTitle() throws XMLStreamException {
     while(! isEndElement(PAGE_ELEM)) _reader.next();
   }
@@ -75,6 +75,69 @@ class Config(val configPath: String, val baseDir: String = "") extends
     */
   lazy val parallelProcesses: Int = this.getProperty("parallel-processes", "4").trim.toInt
 
+  /**
+    * Number of parsers reading a single uncompressed dump file concurrently, each on its own byte range of the file.
+    * A single multistream bz2 dump with its index file next to it is decompressed and parsed concurrently as well.
+    * Other compressed files and multiple source files are not affected. 1 disables splitting.
+    */
+  lazy val parserThreads: Int = this.getProperty("parser-threads", "1").trim.toInt
+
+  /**
+    * Number of threads decompressing each .bz2 or .gz input file, see IOUtils.unzipperThreads. 1 means single-threaded.
+    */
+  lazy val decompressionThreads: Int = this.getProperty("decompression-threads", "1").trim.toInt
+
+  /**
+    * Number of threads compressing .bz2 and .gz output files, see IOUtils.zipperThreads. 1 means single-threaded.
+    */
+  lazy val compressionThreads: Int = this.getProperty("compression-threads", "1").trim.toInt
+
+  /**
+    * Level 1 to 9 of .bz2 and .gz output files, see IOUtils.zipperLevel. -1 uses the default of the format.
+    */
+  lazy val compressionLevel: Int = this.getProperty("compression-level", "-1").trim.toInt
+
+  /**
+    * Size in MB of the template cache shared by the Sweble based extractors of a language, see TemplateCache.
+    * 0 disables the cache.
+    */
+  lazy val templateCacheSize: Int = this.getProperty("template-cache-size", "256").trim.toInt
+
+  /**
+    * Number of extraction worker threads per language, either a fixed number like '8' or bounds like '2-16'.
+    * With bounds, a WorkersController adapts the number of threads to the throughput. Default: one per processor.
+    */
+  lazy val extractionThreads: (Int, Int) = this.getProperty("extraction-threads", Workers.defaultThreads.toString).trim.split("\\s*-\\s*") match {
+    case Array(n) => (n.toInt, n.toInt)
+    case Array(min, max) => (min.toInt, max.toInt)
+    case _ => throw new IllegalArgumentException("extraction-threads must be a number or a range like 2-16")
+  }
+
+  /**
+    * Number of pages handed from the source to an extraction worker thread at once. 1 hands over single pages.
+    */
+  lazy val extractionBatchSize: Int = this.getProperty("extraction-batch-size", "16").trim.toInt
+
+  /**
+    * Datasets whose quads are deduplicated across all pages, see GlobalDeduplicatingDestination.
+    */
+  lazy val globalDedupDatasets: Seq[String] = getStrings(this, "global-dedup-datasets", ",")
+
+  /**
+    * Initial number of fingerprints per deduplicated dataset.
+    */
+  lazy val globalDedupCapacity: Int = this.getProperty("global-dedup-capacity", "1048576").trim.toInt
+
+  /**
+    * Directory for fingerprints that don't fit into memory, null to keep all of them in memory.
+    */
+  lazy val globalDedupSpillDir: File = getValue(this, "global-dedup-spill-dir")(new File(_))
+
+  /**
+    * Megabytes of fingerprint tables per deduplicated dataset before they are spilled, if a spill directory is given.
+    */
+  lazy val globalDedupMemory: Long = this.getProperty("global-dedup-memory", "256").trim.toLong << 20
+
   lazy val sparkMaster: String = Option(getString(this, "spark-master")).getOrElse("local[*]")
 
   lazy val sparkLocalDir: String = Option(getString(this, "spark-local-dir")).getOrElse("")
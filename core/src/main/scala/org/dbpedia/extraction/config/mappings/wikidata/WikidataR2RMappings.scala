@@ -0,0 +1,141 @@
+package org.dbpedia.extraction.config.mappings.wikidata
+
+import java.util.logging.Logger
+
+import org.dbpedia.extraction.ontology.datatypes.Datatype
+import org.dbpedia.extraction.ontology.{Ontology, OntologyClass, OntologyProperty}
+import org.dbpedia.extraction.util.{JsonConfig, Language, WikidataUtil}
+import org.dbpedia.extraction.wikiparser.WikiTitle
+import org.wikidata.wdtk.datamodel.interfaces.{GlobeCoordinatesValue, Value}
+
+import scala.collection.mutable
+
+/**
+ * Compiled form of the R2R mappings in wikidatar2r.json, built once per extractor.
+ *
+ * For each Wikidata property id, holds the mappings with the resolved ontology property, its datatype
+ * and a function computing the mapped value, so that a statement needs a single table lookup.
+ *
+ * Properties with mappings in the config are mapped to the keys of these mappings, all other properties
+ * to their equivalent properties in the ontology. Mapped keys that are not properties of the ontology
+ * are logged once and dropped.
+ *
+ * @param config the R2R mappings
+ * @param ontology the ontology the mapped keys refer to
+ * @param equivalentClasses the ontology classes of a Wikidata value, used by $getDBpediaClass
+ */
+class WikidataR2RMappings(config: JsonConfig, ontology: Ontology, equivalentClasses: Value => Set[OntologyClass])
+{
+  private val logger = Logger.getLogger(classOf[WikidataR2RMappings].getName)
+
+  private val unknownKeys = new mutable.LinkedHashSet[String]()
+
+  private val table: Map[String, Array[WikidataR2RMapping]] = {
+    val table = new mutable.HashMap[String, Array[WikidataR2RMapping]]()
+
+    for ((wikidataProperty, equivalents) <- ontology.wikidataPropertiesMap) {
+      val compiled = for (equivalent <- equivalents.toArray; property <- resolve(equivalent.uri.replace("http://dbpedia.org/ontology/", "")))
+        yield new WikidataR2RMapping(property, WikidataUtil.getValue)
+      if (compiled.nonEmpty)
+        table(wikidataProperty.replace("wikidata:", "")) = compiled
+    }
+
+    for (wikidataProperty <- config.keys()) {
+      val map = config.getMap(wikidataProperty)
+      if (map.nonEmpty) {
+        val compiled = for ((key, node) <- map.toArray; property <- resolve(key); transform <- compile(node.asText()))
+          yield new WikidataR2RMapping(property, transform)
+        table(wikidataProperty) = compiled
+      }
+    }
+
+    table.toMap
+  }
+
+  if (unknownKeys.nonEmpty)
+    logger.warning("Wikidata R2R mappings to unknown ontology properties are ignored: " + unknownKeys.mkString(", "))
+
+  private def resolve(key: String): Option[OntologyProperty] = {
+    val property = ontology.properties.get(key)
+    if (property.isEmpty) unknownKeys += key
+    property
+  }
+
+  private def compile(template: String): Option[Value => String] = {
+    if (template.contains("$1")) {
+      val placeholder = if (template.contains("$2")) "$2" else "$1"
+      Some(value => template.replace(placeholder, WikidataUtil.replacePunctuation(value.toString).replace(" ", "_").trim))
+    }
+    else if (template.contains("$2")) {
+      Language.get("commons").map { commons =>
+        (value: Value) => template.replace("$2", WikiTitle.parse(WikidataUtil.replacePunctuation(value.toString), commons).encoded.toString)
+      }
+    }
+    else {
+      val transform: Value => String = template match {
+        case "$getLatitude" => {
+          case value: GlobeCoordinatesValue => value.getLatitude.toString
+          case _ => ""
+        }
+        case "$getLongitude" => {
+          case value: GlobeCoordinatesValue => value.getLongitude.toString
+          case _ => ""
+        }
+        case "$getGeoRss" => {
+          case value: GlobeCoordinatesValue => value.getLatitude + " " + value.getLongitude
+          case _ => ""
+        }
+        case "$getDBpediaClass" => value => {
+          // only one class per key, the last one
+          val classes = equivalentClasses(value)
+          if (classes.isEmpty) null else classes.last.toString
+        }
+        case _ => _ => template
+      }
+      Some(transform)
+    }
+  }
+
+  /**
+   * @param wikidataProperty Wikidata property id, e.g. P31
+   * @return the mappings of the property, empty if there are none
+   */
+  def get(wikidataProperty: String): Array[WikidataR2RMapping] = table.getOrElse(wikidataProperty, WikidataR2RMappings.NoMappings)
+
+  /**
+   * @return number of Wikidata properties with mappings
+   */
+  def size: Int = table.size
+}
+
+object WikidataR2RMappings
+{
+  private val NoMappings = new Array[WikidataR2RMapping](0)
+}
+
+/**
+ * A single compiled mapping of a Wikidata property.
+ *
+ * @param property the ontology property the value is mapped to
+ * @param transform computes the mapped value from the Wikidata value, null if nothing is mapped
+ */
+final class WikidataR2RMapping(val property: OntologyProperty, transform: Value => String)
+{
+  /**
+   * the range of the property if it is a datatype, null otherwise
+   */
+  val datatype: Datatype = property.range match {
+    case datatype: Datatype => datatype
+    case _ => null
+  }
+
+  /**
+   * true if the range of the property is xsd:string, so that IRIs are not valid values
+   */
+  val isStringRange: Boolean = datatype != null && datatype.name == "xsd:string"
+
+  /**
+   * @return the mapped value, null if nothing is mapped
+   */
+  def apply(value: Value): String = transform(value)
+}
@@ -1,5 +1,7 @@
 package org.dbpedia.extraction.config.provenance
 
+import java.util.concurrent.ConcurrentHashMap
+
 import org.dbpedia.extraction.ontology.DBpediaNamespace
 import org.dbpedia.extraction.util
 import org.dbpedia.extraction.util.{JsonConfig, Language, StringUtils, WikiUtil}
@@ -300,6 +302,21 @@ object DBpediaDatasets extends java.io.Serializable
   val TestDataset = new Dataset("test_dataset", "this is just a test", null, null, "test_dataset", Seq(MainDataset), null, Seq(), null, DatasetTrait.ValueSet(DatasetTrait.Ordered, DatasetTrait.Provenance))
 
 
+  // dataset names as used in quads -> ordinal, -1 for unknown names
+  private val ordinalsByName = new ConcurrentHashMap[String, Integer]()
+
+  /**
+   * @return the ordinal of the dataset with the given name (see getDataset), -1 if there is no such dataset
+   */
+  def getOrdinal(name: String): Int = {
+    if (name == null) return -1
+    val cached = ordinalsByName.get(name)
+    if (cached != null) return cached
+    val ordinal = getDataset(name).map(_.ordinal).getOrElse(-1)
+    ordinalsByName.put(name, ordinal)
+    ordinal
+  }
+
   def getDataset(dataset: Dataset, language: Language, version: String): Try[Dataset] = getDataset(dataset.encoded, language, version)
 
   def getDataset(name: String, language: Language = null, version: String = null): Try[Dataset] =
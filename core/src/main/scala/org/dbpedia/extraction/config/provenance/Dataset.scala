@@ -2,6 +2,7 @@ package org.dbpedia.extraction.config.provenance
 
 import java.net.URI
 import java.util.MissingFormatArgumentException
+import java.util.concurrent.ConcurrentHashMap
 
 import org.dbpedia.extraction.config.ConfigUtils
 import org.dbpedia.extraction.ontology.{DBpediaNamespace, RdfNamespace}
@@ -55,6 +56,15 @@ class Dataset private[provenance](
 
   val canonicalUri: String = RdfNamespace.fullUri(DBpediaNamespace.DATASET, encoded)
 
+  /**
+   * Dense number of this dataset, shared by all datasets with the same encoded name (e.g. language versions),
+   * for lookups by array index instead of by name. Only valid within one JVM.
+   */
+  @transient lazy val ordinal: Int = Dataset.register(encoded)
+
+  // register right away, so the datasets defined in DBpediaDatasets get the lowest ordinals
+  Dataset.register(encoded)
+
   val version: Try[String] = ConfigUtils.parseVersionString(versionEntry)
 
   val deprecatedSince: Try[String] = ConfigUtils.parseVersionString(depr)
@@ -177,3 +187,30 @@ class Dataset private[provenance](
       keywords
   )
 }
+
+object Dataset
+{
+  private val ordinals = new ConcurrentHashMap[String, Integer]()
+
+  /**
+   * @return the ordinal of the dataset with the given encoded name, a new one if the name is not yet registered
+   */
+  private[provenance] def register(encoded: String): Int = {
+    val ordinal = ordinals.get(encoded)
+    if (ordinal != null) ordinal
+    else synchronized {
+      val existing = ordinals.get(encoded)
+      if (existing != null) existing
+      else {
+        val next = ordinals.size
+        ordinals.put(encoded, next)
+        next
+      }
+    }
+  }
+
+  /**
+   * @return number of ordinals handed out so far, i.e. all ordinals are less than this
+   */
+  def count: Int = ordinals.size
+}
@@ -11,6 +11,8 @@ import org.dbpedia.extraction.transform.Quad
  */
 class CompositeDestination(val destinations : Destination *) extends Destination
 {
+    private val targets = destinations.toArray
+
     /**
      * Opens all child destinations.
      */
@@ -20,7 +22,13 @@ class CompositeDestination(val destinations : Destination *) extends Destination
     /**
      * Writes quads to all child destinations.
      */
-    override def write(graph : Traversable[Quad]) = destinations.foreach(_.write(graph))
+    override def write(graph : Traversable[Quad]) = {
+        var i = 0
+        while (i < targets.length) {
+            targets(i).write(graph)
+            i += 1
+        }
+    }
 
     /**
      * Closes all child destinations.
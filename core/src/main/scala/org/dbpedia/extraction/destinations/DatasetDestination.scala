@@ -4,6 +4,7 @@ import org.dbpedia.extraction.config.provenance.{DBpediaDatasets, Dataset}
 import org.dbpedia.extraction.transform.Quad
 
 import scala.collection.Map
+import scala.collection.mutable.ArrayBuffer
 
 /**
  * A destination which groups quads by dataset and writes them to different destinations.
@@ -17,6 +18,13 @@ import scala.collection.Map
 class DatasetDestination(val destinations: Map[Dataset, Destination])
 extends Destination
 {
+  // the destinations indexed by Dataset.ordinal
+  private val byOrdinal: Array[Destination] = {
+    val array = new Array[Destination](if (destinations.isEmpty) 0 else destinations.keys.map(_.ordinal).max + 1)
+    for ((dataset, destination) <- destinations) array(dataset.ordinal) = destination
+    array
+  }
+
   override def open() = {
     for(dest <- destinations)
     {
@@ -25,8 +33,21 @@ extends Destination
   }
 
   override def write(graph : Traversable[Quad]) : Unit = {
-    for((dataset, quads) <- graph.groupBy(_.dataset)) {
-      destinations.get(DBpediaDatasets.getDataset(dataset).get).foreach(_.write(quads))
+    val groups = new Array[ArrayBuffer[Quad]](byOrdinal.length)
+    for (quad <- graph) {
+      val ordinal = quad.datasetOrdinal
+      // throws for unknown datasets
+      if (ordinal < 0) DBpediaDatasets.getDataset(quad.dataset).get
+      else if (ordinal < byOrdinal.length && byOrdinal(ordinal) != null) {
+        if (groups(ordinal) == null) groups(ordinal) = new ArrayBuffer[Quad]()
+        groups(ordinal) += quad
+      }
+    }
+
+    var ordinal = 0
+    while (ordinal < groups.length) {
+      if (groups(ordinal) != null) byOrdinal(ordinal).write(groups(ordinal))
+      ordinal += 1
     }
   }
 
@@ -0,0 +1,48 @@
+package org.dbpedia.extraction.destinations
+
+import java.io.File
+
+import org.dbpedia.extraction.config.provenance.{DBpediaDatasets, Dataset}
+import org.dbpedia.extraction.transform.Quad
+
+/**
+ * Removes quads that were already written by an earlier graph, not only duplicates within a graph
+ * like DeduplicatingDestination. Only quads of the given datasets are checked, all others are passed on.
+ * Equality is defined by Quad.equals, so the first context of a quad wins.
+ *
+ * Keeps a QuadFingerprints set per dataset, i.e. about 16 to 32 bytes per unique quad outside of
+ * the Java heap, or less with a spill directory. Should be used in front of the destinations
+ * of the different formats, so that each quad is checked only once.
+ *
+ * @param datasets names of the datasets to deduplicate, as used by DBpediaDatasets.getDataset
+ * @param capacity initial number of fingerprints per dataset
+ * @param spillDir directory for spilled fingerprints, null to keep them all in memory
+ * @param memory bytes of fingerprints per dataset kept in memory before they are spilled
+ */
+class GlobalDeduplicatingDestination(destination: Destination, datasets: Seq[String], capacity: Int = 1 << 20, spillDir: File = null, memory: Long = 256L << 20)
+extends WrapperDestination(destination)
+{
+  private val fingerprints: Map[Dataset, QuadFingerprints] = datasets.map { name =>
+    DBpediaDatasets.getDataset(name).getOrElse(throw new IllegalArgumentException("unknown dataset for global deduplication: " + name))
+  }.distinct.map(dataset => dataset -> new QuadFingerprints(capacity, spillDir, memory)).toMap
+
+  // the fingerprints indexed by Dataset.ordinal
+  private val byOrdinal: Array[QuadFingerprints] = {
+    val array = new Array[QuadFingerprints](if (fingerprints.isEmpty) 0 else fingerprints.keys.map(_.ordinal).max + 1)
+    for ((dataset, set) <- fingerprints) array(dataset.ordinal) = set
+    array
+  }
+
+  override def write(graph : Traversable[Quad]) = {
+    val unique = graph.filter { quad =>
+      val ordinal = quad.datasetOrdinal
+      ordinal < 0 || ordinal >= byOrdinal.length || byOrdinal(ordinal) == null || byOrdinal(ordinal).add(quad)
+    }
+    if (unique.nonEmpty) super.write(unique)
+  }
+
+  override def close() = {
+    try super.close()
+    finally fingerprints.values.foreach(_.close())
+  }
+}
@@ -0,0 +1,384 @@
+package org.dbpedia.extraction.destinations
+
+import java.io.{File, RandomAccessFile}
+import java.nio.channels.FileChannel
+import java.nio.{ByteBuffer, ByteOrder}
+
+import org.dbpedia.extraction.transform.Quad
+
+/**
+ * Set of 128-bit fingerprints of quads, kept outside of the Java heap in open-addressing hash
+ * tables (16 bytes per quad plus free slots). Two quads have the same fingerprint if they are
+ * equal as defined by Quad.equals, i.e. context and dataset are ignored. Different quads have the
+ * same fingerprint with a probability of about n² / 2^129, which is negligible for any dump.
+ *
+ * The set is split into stripes with their own lock. A stripe that fills up doubles its table.
+ * If a spill directory is given, the tables of all stripes together grow up to the memory budget.
+ * A full table is then written to a new sorted file of its stripe and starts over empty. The new
+ * file takes in the newest files of the stripe that are not larger than all that goes into it, like
+ * the carries of a binary counter, so the files of a stripe at least double in size from the newest
+ * to the oldest. Every spilled fingerprint is rewritten O(log n) times, and a stripe has O(log n)
+ * files. Spilled fingerprints are found by binary search in the memory-mapped files, each behind
+ * its own Bloom filter (10 bits per spilled fingerprint, about 1% false positives) that spares most
+ * adds the search.
+ *
+ * @param capacity initial number of fingerprints the tables can hold
+ * @param spillDir directory for spill files, null to keep all fingerprints in memory
+ * @param memory bytes for the tables of all stripes before they spill, ignored without spillDir
+ */
+class QuadFingerprints(capacity: Int, spillDir: File = null, memory: Long = 256L << 20)
+{
+  import QuadFingerprints._
+
+  private val initialSlots = Integer.highestOneBit(math.max(capacity / Stripes, 1024) * 2 - 1)
+
+  private val maxSlots = math.max(initialSlots, java.lang.Long.highestOneBit(math.min(memory / Stripes / 16, 1L << 26)).toInt)
+
+  private val stripes = Array.fill(Stripes)(new Stripe)
+
+  /**
+   * @return true if the quad was not in the set before
+   */
+  def add(quad: Quad): Boolean = {
+    val hash = fingerprint(quad)
+    stripes((hash.hi >>> 58).toInt).add(hash.hi, hash.lo)
+  }
+
+  /**
+   * Deletes the spill files. The set must not be used afterwards.
+   */
+  def close(): Unit = stripes.foreach(_.close())
+
+  /** number of times a table was spilled */
+  private[destinations] def spills: Int = stripes.map(_.spills).sum
+
+  /** number of spill files that currently exist */
+  private[destinations] def spillFiles: Int = stripes.map(_.runCount).sum
+
+  /** number of fingerprints written to spill files so far, including rewrites by merges */
+  private[destinations] def spillWrites: Long = stripes.map(_.written).sum
+
+  /** number of binary searches in spill files, i.e. adds that passed a Bloom filter */
+  private[destinations] def runSearches: Long = stripes.map(_.searches).sum
+
+  private class Stripe
+  {
+    private var slots = initialSlots
+
+    private var table = allocate(slots)
+
+    private var count = 0
+
+    // the spilled fingerprints, newest and smallest run first
+    private var runs: List[Run] = Nil
+
+    var spills = 0
+
+    var searches = 0L
+
+    var written = 0L
+
+    def runCount: Int = synchronized { runs.size }
+
+    def add(hi: Long, lo: Long): Boolean = synchronized {
+      // 0/0 marks an empty slot
+      val h = if (hi == 0 && lo == 0) 1L else hi
+      var rest = runs
+      while (rest.nonEmpty) {
+        val run = rest.head
+        if (run.filter.mightContain(h, lo)) {
+          searches += 1
+          if (contains(run.buffer, h, lo)) return false
+        }
+        rest = rest.tail
+      }
+      if (! insert(table, slots, h, lo)) return false
+      count += 1
+      if (count > slots / 4 * 3) {
+        if (spillDir != null && slots >= maxSlots) spill() else grow()
+      }
+      true
+    }
+
+    private def grow(): Unit = {
+      val newSlots = slots * 2
+      val newTable = allocate(newSlots)
+      forEach(table, slots)((hi, lo) => insert(newTable, newSlots, hi, lo))
+      table = newTable
+      slots = newSlots
+    }
+
+    /**
+     * Writes the sorted table to a new run, merged with the newest runs that are not larger than
+     * the table and the runs before them together. Fingerprints in the table are never in a run,
+     * add checks the runs first, so the runs don't overlap.
+     */
+    private def spill(): Unit = {
+      val entries = new Array[(Long, Long)](count)
+      var i = 0
+      forEach(table, slots) { (hi, lo) =>
+        entries(i) = (hi, lo)
+        i += 1
+      }
+      val sorted = entries.take(i).sortWith(less)
+      val spilled = ByteBuffer.allocate(sorted.length * 16)
+      for ((hi, lo) <- sorted) spilled.putLong(hi).putLong(lo)
+
+      var size = sorted.length.toLong
+      var merged = 0
+      while (merged < runs.size && runs(merged).size <= size) {
+        size += runs(merged).size
+        merged += 1
+      }
+      require(size * 16 <= Int.MaxValue, "too many fingerprints in one spill file")
+      val old = runs.take(merged)
+
+      if (! spillDir.exists && ! spillDir.mkdirs) throw new IllegalStateException("cannot create spill dir " + spillDir)
+      val file = File.createTempFile("quad-fingerprints-", ".bin", spillDir)
+      file.deleteOnExit()
+      val channel = new RandomAccessFile(file, "rw").getChannel
+      val filter = new BloomFilter(size.toInt)
+      try {
+        val buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size * 16).order(ByteOrder.nativeOrder)
+
+        // merge the table and the old runs, there are only a few of them
+        val sources = (spilled :: old.map(_.buffer)).toArray
+        val positions = new Array[Int](sources.length)
+        var n = 0L
+        while (n < size) {
+          var min = -1
+          var k = 0
+          while (k < sources.length) {
+            if (positions(k) * 16 < sources(k).capacity && (min < 0 || lessAt(sources(k), positions(k), sources(min), positions(min)))) min = k
+            k += 1
+          }
+          val hi = sources(min).getLong(positions(min) * 16)
+          val lo = sources(min).getLong(positions(min) * 16 + 8)
+          buffer.putLong(hi)
+          buffer.putLong(lo)
+          filter.add(hi, lo)
+          positions(min) += 1
+          n += 1
+        }
+        runs = new Run(file, buffer, size.toInt, filter) :: runs.drop(merged)
+      }
+      finally channel.close()
+
+      old.foreach(_.file.delete())
+      table = allocate(slots)
+      count = 0
+      spills += 1
+      written += size
+    }
+
+    def close(): Unit = synchronized {
+      runs.foreach(_.file.delete())
+      runs = Nil
+    }
+  }
+}
+
+object QuadFingerprints
+{
+  private val Stripes = 64
+
+  private case class Hash(hi: Long, lo: Long)
+
+  /**
+   * A sorted spill file of a stripe.
+   */
+  private class Run(val file: File, val buffer: ByteBuffer, val size: Int, val filter: BloomFilter)
+
+  /**
+   * Bloom filter outside of the Java heap with 10 bits per fingerprint and 5 bits set per fingerprint.
+   * The fingerprints are hashes already, their two halves give the bit positions.
+   */
+  private class BloomFilter(expected: Int)
+  {
+    private val bits = java.lang.Long.highestOneBit(math.max(expected * 10L, 64) * 2 - 1)
+
+    private val words = ByteBuffer.allocateDirect((bits / 8).toInt).order(ByteOrder.nativeOrder)
+
+    def add(hi: Long, lo: Long): Unit = {
+      var i = 0
+      while (i < 5) {
+        val bit = (lo + i * hi) & (bits - 1)
+        val index = (bit >>> 6).toInt * 8
+        words.putLong(index, words.getLong(index) | (1L << bit))
+        i += 1
+      }
+    }
+
+    def mightContain(hi: Long, lo: Long): Boolean = {
+      var i = 0
+      while (i < 5) {
+        val bit = (lo + i * hi) & (bits - 1)
+        if ((words.getLong((bit >>> 6).toInt * 8) & (1L << bit)) == 0) return false
+        i += 1
+      }
+      true
+    }
+  }
+
+  private def allocate(slots: Int): ByteBuffer = {
+    require(slots.toLong * 16 <= Int.MaxValue, "fingerprint table too large, use a spill directory")
+    ByteBuffer.allocateDirect(slots * 16).order(ByteOrder.nativeOrder)
+  }
+
+  /**
+   * Linear probing.
+   * @return false if the fingerprint was already in the table
+   */
+  private def insert(table: ByteBuffer, slots: Int, hi: Long, lo: Long): Boolean = {
+    var slot = (lo & (slots - 1)).toInt
+    while (true) {
+      val h = table.getLong(slot * 16)
+      val l = table.getLong(slot * 16 + 8)
+      if (h == 0 && l == 0) {
+        table.putLong(slot * 16, hi)
+        table.putLong(slot * 16 + 8, lo)
+        return true
+      }
+      if (h == hi && l == lo) return false
+      slot = (slot + 1) & (slots - 1)
+    }
+    false // not reached
+  }
+
+  private def forEach(table: ByteBuffer, slots: Int)(proc: (Long, Long) => Unit): Unit = {
+    for (slot <- 0 until slots) {
+      val hi = table.getLong(slot * 16)
+      val lo = table.getLong(slot * 16 + 8)
+      if (hi != 0 || lo != 0) proc(hi, lo)
+    }
+  }
+
+  private def less(a: (Long, Long), b: (Long, Long)): Boolean = {
+    val c = java.lang.Long.compareUnsigned(a._1, b._1)
+    c < 0 || (c == 0 && java.lang.Long.compareUnsigned(a._2, b._2) < 0)
+  }
+
+  /**
+   * @return true if the fingerprint at index i of a is less than the one at index j of b
+   */
+  private def lessAt(a: ByteBuffer, i: Int, b: ByteBuffer, j: Int): Boolean = {
+    val c = java.lang.Long.compareUnsigned(a.getLong(i * 16), b.getLong(j * 16))
+    c < 0 || (c == 0 && java.lang.Long.compareUnsigned(a.getLong(i * 16 + 8), b.getLong(j * 16 + 8)) < 0)
+  }
+
+  /**
+   * Binary search in a sorted spill run.
+   */
+  private def contains(run: ByteBuffer, hi: Long, lo: Long): Boolean = {
+    var low = 0
+    var high = run.capacity / 16 - 1
+    while (low <= high) {
+      val mid = (low + high) >>> 1
+      val h = run.getLong(mid * 16)
+      val c = java.lang.Long.compareUnsigned(h, hi) match {
+        case 0 => java.lang.Long.compareUnsigned(run.getLong(mid * 16 + 8), lo)
+        case other => other
+      }
+      if (c < 0) low = mid + 1
+      else if (c > 0) high = mid - 1
+      else return true
+    }
+    false
+  }
+
+  // MurmurHash3 x64 128 constants
+  private val C1 = 0x87c37b91114253d5L
+  private val C2 = 0x4cf5ad432745937fL
+
+  /**
+   * MurmurHash3 x64 128 over the UTF-16 chars of the fields that Quad.equals compares.
+   * Each field is preceded by its length, so fields can't run into each other.
+   */
+  private def fingerprint(quad: Quad): Hash = {
+    val state = new MurmurState
+    state.field(quad.subject)
+    state.field(quad.predicate)
+    state.field(quad.value)
+    state.field(quad.datatype)
+    state.field(quad.language)
+    state.finish()
+  }
+
+  private class MurmurState
+  {
+    private var h1 = 0x9368e53c2f6af274L
+    private var h2 = 0x586dcd208f7cd3fdL
+    // pending chars, up to 8 per 128-bit block
+    private var k1 = 0L
+    private var k2 = 0L
+    private var pending = 0
+    private var length = 0L
+
+    def field(s: String): Unit = {
+      // -1 for null, no string is that long
+      val len = if (s == null) -1 else s.length
+      char(len >>> 16)
+      char(len)
+      var i = 0
+      while (i < len) {
+        char(s.charAt(i))
+        i += 1
+      }
+    }
+
+    private def char(c: Int): Unit = {
+      val shift = (pending & 3) * 16
+      if (pending < 4) k1 |= (c & 0xFFFFL) << shift
+      else k2 |= (c & 0xFFFFL) << shift
+      pending += 1
+      length += 2
+      if (pending == 8) {
+        block()
+        k1 = 0
+        k2 = 0
+        pending = 0
+      }
+    }
+
+    private def block(): Unit = {
+      h1 ^= mixK1(k1)
+      h1 = java.lang.Long.rotateLeft(h1, 27)
+      h1 += h2
+      h1 = h1 * 5 + 0x52dce729
+      h2 ^= mixK2(k2)
+      h2 = java.lang.Long.rotateLeft(h2, 31)
+      h2 += h1
+      h2 = h2 * 5 + 0x38495ab5
+    }
+
+    def finish(): Hash = {
+      if (pending > 0) {
+        h1 ^= mixK1(k1)
+        h2 ^= mixK2(k2)
+      }
+      h1 ^= length
+      h2 ^= length
+      h1 += h2
+      h2 += h1
+      h1 = fmix(h1)
+      h2 = fmix(h2)
+      h1 += h2
+      h2 += h1
+      Hash(h1, h2)
+    }
+
+    private def mixK1(k: Long): Long = java.lang.Long.rotateLeft(k * C1, 31) * C2
+
+    private def mixK2(k: Long): Long = java.lang.Long.rotateLeft(k * C2, 33) * C1
+
+    private def fmix(value: Long): Long = {
+      var k = value
+      k ^= k >>> 33
+      k *= 0xff51afd7ed558ccdL
+      k ^= k >>> 33
+      k *= 0xc4ceb93fe53a87ceL
+      k ^= k >>> 33
+      k
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package org.dbpedia.extraction.destinations
 
 import java.io.Writer
+import java.util.concurrent.{ArrayBlockingQueue, TimeUnit}
 
 import org.dbpedia.extraction.config.provenance.Dataset
 import org.dbpedia.extraction.destinations.formatters.Formatter
@@ -12,45 +13,147 @@ import org.dbpedia.extraction.wikiparser.WikiPage
 
 /**
  * Writes quads to a writer.
+ *
+ * The calling threads format the quads of a graph directly into a buffer and hand the buffer to a thread
+ * that writes (and usually compresses) the output, so the callers only wait for each other if
+ * all buffers are in use. The quads of a graph are never interleaved with other quads.
+ *
+ * @param buffers number of buffers. Limits the memory used for output that is not yet written.
  */
-class WriterDestination(factory: () => Writer, formatter : Formatter, extractionRecorder: ExtractionRecorder[WikiPage] = null, dataset : Dataset = null)
+class WriterDestination(factory: () => Writer, formatter : Formatter, extractionRecorder: ExtractionRecorder[WikiPage] = null, dataset : Dataset = null, buffers: Int = 32)
 extends Destination
 {
+  import WriterDestination._
+
   private var writer: Writer = null
-  
+
+  private var thread: Thread = null
+
+  // buffers the callers can fill
+  private val free = new ArrayBlockingQueue[java.lang.StringBuilder](buffers)
+
+  // filled buffers, in the order they will be written, and the final Closed marker
+  private val full = new ArrayBlockingQueue[java.lang.StringBuilder](buffers + 1)
+
+  @volatile private var failure: Throwable = null
+
   override def open() = {
     if(writer == null) //to prevent errors when called twice
     {
       writer = factory()
       writer.write(formatter.header)
+
+      for (i <- 0 until buffers)
+        free.add(new java.lang.StringBuilder(InitialCapacity))
+
+      thread = new Thread("writer-" + (if (dataset != null) dataset.encoded else formatter.getClass.getSimpleName)) {
+        override def run(): Unit = drain()
+      }
+      thread.setDaemon(true)
+      thread.start()
     }
   }
-  
-  /**
-   * Note: using synchronization here is not strictly necessary (writers should be thread-safe),
-   * but without it, different sequences of quads will be interleaved, which is harder to read
-   * and makes certain parsing optimizations impossible.
-   */
-  override def write(graph : Traversable[Quad]) = synchronized {
-    for(quad <- graph) {
-      val formatted = formatter.render(quad)
-      if(extractionRecorder != null) {
-        if(formatted.trim.startsWith("#")){
-          if(formatted.contains("BAD URI:"))
-            //TODO create trait 'Recordable'
-            extractionRecorder.failedRecord(quad.toString(), null, new BadQuadException(formatted))
+
+  override def write(graph : Traversable[Quad]) = {
+    if (thread == null) throw new IllegalStateException("destination is not open")
+
+    val buffer = takeBuffer()
+    try {
+      for(quad <- graph) {
+        val start = buffer.length
+        formatter.renderTo(quad, buffer)
+        if(extractionRecorder != null) {
+          if(isComment(buffer, start)){
+            if(buffer.indexOf("BAD URI:", start) >= 0)
+              //TODO create trait 'Recordable'
+              extractionRecorder.failedRecord(quad.toString(), null, new BadQuadException(buffer.substring(start)))
+          }
+          else if(dataset != null)
+            extractionRecorder.increaseSuccessfulTriples(dataset)
         }
-        else if(dataset != null)
-          extractionRecorder.increaseAndGetSuccessfulTriples(dataset)
       }
-      writer.write(formatted)
+    }
+    finally {
+      // never blocks, there are only as many buffers as the queue can hold
+      if (buffer.length == 0) free.put(buffer) else full.put(buffer)
     }
   }
 
   override def close() = {
     if(writer != null) {
-      writer.write(formatter.footer)
-      writer.close()
+      try {
+        full.put(Closed)
+        thread.join()
+        checkFailure()
+        writer.write(formatter.footer)
+      }
+      finally writer.close()
+    }
+  }
+
+  /**
+   * Waits for a free buffer, but not forever if the writer thread failed.
+   */
+  private def takeBuffer(): java.lang.StringBuilder = {
+    while (true) {
+      checkFailure()
+      val buffer = free.poll(100, TimeUnit.MILLISECONDS)
+      if (buffer != null) return buffer
+    }
+    throw new IllegalStateException // not reached
+  }
+
+  private def checkFailure(): Unit = {
+    if (failure != null) throw new RuntimeException("writing output failed", failure)
+  }
+
+  /**
+   * Runs in the writer thread: writes the filled buffers and hands them back.
+   */
+  private def drain(): Unit = {
+    val chars = new Array[Char](1 << 16)
+    try {
+      while (true) {
+        val buffer = full.take()
+        if (buffer eq Closed) return
+
+        var pos = 0
+        while (pos < buffer.length) {
+          val count = math.min(chars.length, buffer.length - pos)
+          buffer.getChars(pos, pos + count, chars, 0)
+          writer.write(chars, 0, count)
+          pos += count
+        }
+
+        // don't keep the memory of a buffer that grew for an unusually large graph
+        if (buffer.capacity > MaxRetainedCapacity) {
+          free.put(new java.lang.StringBuilder(InitialCapacity))
+        } else {
+          buffer.setLength(0)
+          free.put(buffer)
+        }
+      }
     }
+    catch {
+      case ex: Throwable => failure = ex
+    }
+  }
+}
+
+object WriterDestination
+{
+  private val InitialCapacity = 1 << 12
+
+  private val MaxRetainedCapacity = 1 << 20
+
+  private val Closed = new java.lang.StringBuilder(0)
+
+  /**
+   * @return true if the first non-whitespace character after start is '#', without copying the text like trim
+   */
+  private def isComment(formatted: CharSequence, start: Int): Boolean = {
+    var i = start
+    while (i < formatted.length && formatted.charAt(i) <= ' ') i += 1
+    i < formatted.length && formatted.charAt(i) == '#'
   }
 }
@@ -12,4 +12,10 @@ trait Formatter extends java.io.Serializable
   def footer: String
   
   def render(quad: Quad): String
+
+  /**
+   * Appends the serialized statement to the given buffer. Formatters that override this
+   * write directly into the buffer without creating intermediate strings.
+   */
+  def renderTo(quad: Quad, sink: java.lang.StringBuilder): Unit = sink.append(render(quad))
 }
@@ -10,7 +10,12 @@ class RDFJSONBuilder(policies: Array[Policy] = null)
   extends UriTripleBuilder(policies) {
 
   // Scala's StringBuilder doesn't have appendCodePoint
-  private val sb = new java.lang.StringBuilder
+  private var sb = new java.lang.StringBuilder
+
+  override def appendTo(sink: java.lang.StringBuilder): Unit = {
+    super.appendTo(sink)
+    sb = sink
+  }
 
   override def start(context: String): Unit = {
     /* nothing to do */
@@ -69,36 +74,38 @@ class RDFJSONBuilder(policies: Array[Policy] = null)
   }
 
   /**
-   * Escapes a Unicode string according to JSON Format
+   * Escapes a Unicode string according to JSON Format, directly into the buffer.
+   * Escapes as in scala-library-2.9.1/scala/util/parsing/json/Parser.scala.
    */
   private def escape(input: String): RDFJSONBuilder = {
-    
-    /*
-     * Below code is from scala-library-2.9.1/scala/util/parsing/json/Parser.scala.html
-     * 
-     */
-      def quoteString (s : String) : String =
-    s.map {
-      case '"'  => "\\\""
-      case '\\' => "\\\\"
-      case '/'  => "\\/" 
-      case '\b' => "\\b"
-      case '\f' => "\\f"
-      case '\n' => "\\n"
-      case '\r' => "\\r"
-      case '\t' => "\\t"
-      /* We'll unicode escape any control characters. These include:
-       * 0x0 -> 0x1f  : ASCII Control (C0 Control Codes)
-       * 0x7f         : ASCII DELETE
-       * 0x80 -> 0x9f : C1 Control Codes
-       *
-       * Per RFC4627, section 2.5, we're not technically required to
-       * encode the C1 codes, but we do to be safe.
-       */
-      case c if ((c >= '\u0000' && c <= '\u001f') || (c >= '\u007f' && c <= '\u009f')) => "\\u%04x".format(c: Int)
-      case c => c
-    }.mkString
-    sb append quoteString(input)
+    var i = 0
+    while (i < input.length) {
+      input.charAt(i) match {
+        case '"'  => sb append "\\\""
+        case '\\' => sb append "\\\\"
+        case '/'  => sb append "\\/"
+        case '\b' => sb append "\\b"
+        case '\f' => sb append "\\f"
+        case '\n' => sb append "\\n"
+        case '\r' => sb append "\\r"
+        case '\t' => sb append "\\t"
+        /* We'll unicode escape any control characters. These include:
+         * 0x0 -> 0x1f  : ASCII Control (C0 Control Codes)
+         * 0x7f         : ASCII DELETE
+         * 0x80 -> 0x9f : C1 Control Codes
+         *
+         * Per RFC4627, section 2.5, we're not technically required to
+         * encode the C1 codes, but we do to be safe.
+         */
+        case c if (c >= '\u0000' && c <= '\u001f') || (c >= '\u007f' && c <= '\u009f') =>
+          sb append "\\u"
+          val hex = Integer.toHexString(c)
+          for (_ <- hex.length until 4) sb append '0'
+          sb append hex
+        case c => sb append c
+      }
+      i += 1
+    }
     this
   }
 
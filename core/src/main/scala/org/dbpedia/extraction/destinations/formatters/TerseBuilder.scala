@@ -14,15 +14,30 @@ extends UriTripleBuilder(policies) {
   
   // Scala's StringBuilder doesn't have appendCodePoint
   private var sb = new java.lang.StringBuilder()
+
+  // start of the current line in sb
+  private var lineStart = 0
+
+  // current line is already commented out
+  private var bad = false
+
+  override def appendTo(sink: java.lang.StringBuilder): Unit = {
+    super.appendTo(sink)
+    sb = sink
+  }
   
   override def start(context: String): Unit = {
-    sb = new java.lang.StringBuilder()
+    lineStart = sb.length
+    bad = false
   }
   
   override def uri(str: String, pos: Int): Unit = {
     val uri = parseUri(str, pos)
-    // If URI is bad, comment out whole triple (may happen multiple times)
-    if (uri.startsWith(BadUri)) sb.insert(0, "# ")
+    // If URI is bad, comment out whole triple (only once). Only shifts the current line, bad URIs are rare.
+    if (! bad && uri.startsWith(BadUri)) {
+      sb.insert(lineStart, "# ")
+      bad = true
+    }
     this add '<' escape uri add ">"
     this add ' '
   }
@@ -12,7 +12,8 @@ object TriXBuilder {
  * Formats statements according to the TriX format.
  * See: http://www.hpl.hp.com/techreports/2004/HPL-2004-56.html
  * 
- * Objects of this class are not re-usable - create a new object for each triple.
+ * Objects of this class are not re-usable - create a new object for each triple,
+ * unless the triple is written to an external buffer, see appendTo().
  * 
  * @param policies Mapping from URI positions (as defined in UriPolicy) to URI policy functions.
  * Must have five (UriPolicy.POSITIONS) elements. If null, URIs will not be modified.
@@ -22,9 +23,15 @@ extends UriTripleBuilder(policies) {
   
   private var depth = 0
   
-  private val sb = new java.lang.StringBuilder
+  private var sb = new java.lang.StringBuilder
   
   // public methods implementing TripleBuilder
+
+  override def appendTo(sink: java.lang.StringBuilder): Unit = {
+    super.appendTo(sink)
+    sb = sink
+    depth = 0
+  }
   
   override def start(context: String): Unit = { 
     this startTag "graph"
@@ -5,9 +5,16 @@ import org.dbpedia.extraction.transform.Quad
 /**
  * Helps to render one triple/quad.
  * 
- * Objects of this class are not re-usable - create a new object for each triple.
+ * Objects of this class are not re-usable - create a new object for each triple,
+ * unless the triple is written to an external buffer, see appendTo().
  */
 trait TripleBuilder {
+
+  /**
+   * Append the next triple to the given buffer instead of an own buffer. The builder can be
+   * used for another triple after the next call of end(). result() is not needed then.
+   */
+  def appendTo(sink: java.lang.StringBuilder): Unit
   
   def start(context: String): Unit
   
@@ -24,4 +31,4 @@ trait TripleBuilder {
   def end(context: String): Unit
   
   def result(): String
-}
\ No newline at end of file
+}
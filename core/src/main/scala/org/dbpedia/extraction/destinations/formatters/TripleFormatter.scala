@@ -5,10 +5,31 @@ import org.dbpedia.extraction.transform.Quad
 abstract class TripleFormatter(factory: () => TripleBuilder)
 extends Formatter
 {
+  // one re-usable builder per thread for renderTo()
+  @transient private lazy val builders = new ThreadLocal[TripleBuilder] {
+    override def initialValue(): TripleBuilder = factory()
+  }
+
   def render(quad: Quad): String = {
     
     val builder = factory()
     
+    build(builder, quad)
+    
+    builder.result()
+  }
+
+  override def renderTo(quad: Quad, sink: java.lang.StringBuilder): Unit = {
+
+    val builder = builders.get
+
+    builder.appendTo(sink)
+
+    build(builder, quad)
+  }
+
+  private def build(builder: TripleBuilder, quad: Quad): Unit = {
+    
     builder.start(quad.context)
     
     builder.subjectUri(quad.subject)
@@ -20,7 +41,5 @@ extends Formatter
     else builder.typedLiteral(quad.value, quad.datatype)
     
     builder.end(quad.context)
-    
-    builder.result()
   }
-}
\ No newline at end of file
+}
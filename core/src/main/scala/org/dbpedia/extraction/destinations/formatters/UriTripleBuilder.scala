@@ -11,6 +11,16 @@ import org.dbpedia.iri.{IRI, IRISyntaxException}
 abstract class UriTripleBuilder(policies: Array[Policy] = null) extends TripleBuilder {
   
   protected val BadUri = "BAD URI: "
+
+  // results of parseUri for each position. Only used by builders that are re-used, see appendTo.
+  private var memos: Array[UriMemo] = null
+
+  /**
+   * Subclasses must call this.
+   */
+  override def appendTo(sink: java.lang.StringBuilder): Unit = {
+    if (memos == null) memos = Array.fill(POSITIONS)(new UriMemo(UriTripleBuilder.MemoSize))
+  }
   
   def subjectUri(subj: String): Unit = uri(subj, SUBJECT)
   
@@ -21,6 +31,16 @@ abstract class UriTripleBuilder(policies: Array[Policy] = null) extends TripleBu
   def uri(uri: String, pos: Int): Unit
   
   protected def parseUri(str: String, pos: Int): String = {
+    if (str == null || memos == null) return applyPolicy(str, pos)
+    val memo = memos(pos)
+    val known = memo.get(str)
+    if (known != null) return known
+    val uri = applyPolicy(str, pos)
+    memo.put(str, uri)
+    uri
+  }
+
+  private def applyPolicy(str: String, pos: Int): String = {
     if (str == null) return BadUri+str
     try {
       var uri = IRI.create(str).get
@@ -34,4 +54,41 @@ abstract class UriTripleBuilder(policies: Array[Policy] = null) extends TripleBu
         BadUri+usex.getMessage
     }
   }
-}
\ No newline at end of file
+}
+
+object UriTripleBuilder {
+  // a page produces dozens of quads with the same subject and context and a few predicates
+  private val MemoSize = 1024
+}
+
+/**
+ * Bounded memo of URI policy results, not thread-safe. Direct-mapped: a new entry replaces the
+ * entry with the same hash slot, so lookups and updates are constant-time and allocation-free.
+ *
+ * Strings that the policies don't change are canonical. For them, the memo stores and returns the
+ * string itself. The same String object of a quad, such as the subject or the context shared by
+ * the quads of a page, is found by reference comparison without comparing characters.
+ *
+ * @param size number of slots, must be a power of two
+ */
+private[formatters] class UriMemo(size: Int) {
+
+  private val keys = new Array[String](size)
+
+  private val values = new Array[String](size)
+
+  /**
+   * @return the memoized result, or null
+   */
+  def get(key: String): String = {
+    val slot = key.hashCode & (size - 1)
+    val known = keys(slot)
+    if ((known eq key) || (known != null && known == key)) values(slot) else null
+  }
+
+  def put(key: String, value: String): Unit = {
+    val slot = key.hashCode & (size - 1)
+    keys(slot) = key
+    values(slot) = if (value == key) key else value
+  }
+}
@@ -2,8 +2,6 @@ package org.dbpedia.extraction.mappings
 
 import org.dbpedia.extraction.config.provenance.{DBpediaDatasets, Dataset}
 import org.dbpedia.extraction.transform.Quad
-
-import collection.mutable.HashSet
 import org.dbpedia.extraction.wikiparser._
 import org.dbpedia.extraction.ontology.{DBpediaNamespace, Ontology}
 import org.dbpedia.extraction.util.Language
@@ -21,7 +19,7 @@ class ArticleTemplatesExtractor(
      def language: Language
      def redirects: Redirects
     }
-  ) extends PageNodeExtractor {
+  ) extends PageNodeVisitor {
 
   // FIXME: this uses the http://xx.dbpedia.org/property/ namespace, but the
   // http://dbpedia.org/ontology/ namespace would probably make more sense.
@@ -29,21 +27,29 @@ class ArticleTemplatesExtractor(
 
   override val datasets = Set(DBpediaDatasets.ArticleTemplates, DBpediaDatasets.ArticleTemplatesNested)
 
-  override def extract(node: PageNode, subjectUri: String): Seq[Quad] = {
-    var quads = new ArrayBuffer[Quad]()
+  override val nodeTypes = Seq(classOf[TemplateNode])
 
-    val seenTemplates = new HashSet[String]()
+  override def visitPage(node: PageNode, subjectUri: String): Option[PageNodeVisit] = Some(new PageNodeVisit {
 
-    val topLevelTemplates = collectTemplatesTopLevel(node)
-    val nestedTemplates = collectTemplatesTransitive(node).filter( !topLevelTemplates.contains(_))
+    private val topLevelTemplates = new ArrayBuffer[TemplateNode]()
+    private val nestedTemplates = new ArrayBuffer[TemplateNode]()
 
-    val topLevelQuads = templatesToQuads(topLevelTemplates, subjectUri, DBpediaDatasets.ArticleTemplates)
-    val nestedQuads = templatesToQuads(nestedTemplates, subjectUri, DBpediaDatasets.ArticleTemplatesNested)
+    // the walk stops at top level templates, the templates nested in them are collected here
+    override def visit(template: Node): Boolean = {
+      topLevelTemplates += template.asInstanceOf[TemplateNode]
+      nestedTemplates ++= template.children.flatMap(collectTemplatesTransitive)
+      false
+    }
 
-    topLevelQuads ++ nestedQuads
-  }
+    override def finish(): Seq[Quad] = {
+      val topLevelQuads = templatesToQuads(topLevelTemplates, subjectUri, DBpediaDatasets.ArticleTemplates)
+      val nestedQuads = templatesToQuads(nestedTemplates.filter( !topLevelTemplates.contains(_)), subjectUri, DBpediaDatasets.ArticleTemplatesNested)
+
+      topLevelQuads ++ nestedQuads
+    }
+  })
 
-  private def templatesToQuads(templates: List[TemplateNode], subjectUri: String, dataset: Dataset) : Seq[Quad] = {
+  private def templatesToQuads(templates: Seq[TemplateNode], subjectUri: String, dataset: Dataset) : Seq[Quad] = {
     templates.map( t => {
       val templateUri = context.language.resourceUri.append(t.title.decodedWithNamespace)
       new Quad(context.language, dataset, subjectUri, usesTemplateProperty,
@@ -51,13 +57,6 @@ class ArticleTemplatesExtractor(
     })
   }
 
-  private def collectTemplatesTopLevel(node: Node): List[TemplateNode] = {
-    node match {
-      case templateNode: TemplateNode => List(templateNode)
-      case _ => node.children.flatMap(collectTemplatesTopLevel)
-    }
-  }
-
   private def collectTemplatesTransitive(node: Node): List[TemplateNode] = {
     node match {
       case templateNode: TemplateNode => List(templateNode) ++ node.children.flatMap(collectTemplatesTransitive)
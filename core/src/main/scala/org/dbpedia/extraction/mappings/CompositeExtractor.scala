@@ -13,4 +13,8 @@ class CompositeExtractor[N](mappings: Extractor[N]*) extends Extractor[N]
   override def extract(input: N, subjectUri: String): Seq[Quad] = {
     mappings.flatMap(_.extract(input, subjectUri))
   }
+
+  override def initializeWorker(): Unit = mappings.foreach(_.initializeWorker())
+
+  override def finalizeWorker(): Unit = mappings.foreach(_.finalizeWorker())
 }
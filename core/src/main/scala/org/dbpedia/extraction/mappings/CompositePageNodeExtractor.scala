@@ -3,9 +3,35 @@ package org.dbpedia.extraction.mappings
 import org.dbpedia.extraction.transform.Quad
 import org.dbpedia.extraction.wikiparser.PageNode
 
+/**
+ * Walks the AST of a page once for all extractors that are PageNodeVisitors. The other extractors
+ * walk the AST themselves. The quads are returned in the order of the extractors.
+ */
 class CompositePageNodeExtractor(extractors: Extractor[PageNode]*)
 extends CompositeExtractor[PageNode](extractors: _*)
 with PageNodeExtractor
+{
+  private val visitors = extractors.collect { case visitor: PageNodeVisitor => visitor }.toArray
+
+  private val walker = new PageNodeWalker(visitors)
+
+  override def extract(input: PageNode, subjectUri: String): Seq[Quad] =
+  {
+    if (visitors.isEmpty) return super.extract(input, subjectUri)
+
+    val visits = visitors.map(_.visitPage(input, subjectUri).orNull)
+    if (visits.exists(_ != null)) walker.walk(input, visits)
+
+    var next = 0
+    extractors.flatMap {
+      case _: PageNodeVisitor =>
+        val visit = visits(next)
+        next += 1
+        if (visit == null) Seq.empty else visit.finish()
+      case extractor => extractor.extract(input, subjectUri)
+    }
+  }
+}
 
 /**
  * Creates new extractors.
@@ -51,6 +51,10 @@ extends WikiPageExtractor
     else
       new CompositeExtractor[WikiPage](immutableExtractors :_*).extract(input, subjectUri)
   }
+
+  override def initializeWorker(): Unit = immutableExtractors.foreach(_.initializeWorker())
+
+  override def finalizeWorker(): Unit = immutableExtractors.foreach(_.finalizeWorker())
 }
 
 /**
@@ -0,0 +1,184 @@
+package org.dbpedia.extraction.mappings
+
+import java.io._
+import java.util.concurrent.ConcurrentHashMap
+import java.util.logging.{Level, Logger}
+import java.util.regex.Pattern
+
+import org.dbpedia.extraction.sources.Source
+import org.dbpedia.extraction.util.RichFile.wrapFile
+import org.dbpedia.extraction.util.{IOUtils, Language}
+import org.dbpedia.extraction.wikiparser.impl.wikipedia.WikiPatterns
+import org.dbpedia.extraction.wikiparser.{Namespace, WikiPage}
+
+import scala.collection.convert.decorateAsScala._
+
+/**
+ * Everything the extraction needs to know about a dump before the main extraction starts:
+ * the sources of all templates, the redirects between templates, the ids of disambiguation pages
+ * and the titles of all pages by id.
+ *
+ * All of it is collected in a single pass over the dump and cached in files next to the dump,
+ * so later runs on the same dump don't have to read it again. The template sources and the
+ * page titles are kept in memory-mapped stores, not on the heap.
+ *
+ * @param templates Template pages by encoded title, see TemplateStore.
+ * @param templateRedirects Redirects between templates, see Redirects.
+ * @param disambiguations Ids of pages in the main namespace that use a disambiguation template.
+ * @param titles Encoded titles with namespace by page id, see TitleStore.
+ * @param pageCount Number of pages with an id.
+ */
+class DumpIndex(
+  val templates: TemplateStore,
+  val templateRedirects: Map[String, String],
+  val disambiguations: Set[Long],
+  val titles: TitleStore,
+  val pageCount: Int
+) extends java.io.Serializable
+{
+  /**
+   * @param cacheChars see Template.fromStore
+   */
+  def template(cacheChars: Long = 0): Template = Template.fromStore(templates, cacheChars)
+
+  def redirects: Redirects = new Redirects(templateRedirects)
+
+  /**
+   * @return the encoded title with namespace of the page with the given id
+   */
+  def title(id: Long): Option[String] = titles.get(id)
+}
+
+object DumpIndex
+{
+  private val logger = Logger.getLogger(classOf[DumpIndex].getName)
+
+  /**
+   * Suffix of the cache file in the dump directory. The file name contains the dump date.
+   */
+  val CacheSuffix = "dump-index.obj.gz"
+
+  /**
+   * The template store that belongs to a cache file, in the same directory.
+   */
+  def templateStore(cache: File): TemplateStore =
+  {
+    val prefix = cache.getName.stripSuffix(CacheSuffix)
+    new TemplateStore(new File(cache.getParentFile, prefix + TemplateStore.IndexSuffix), new File(cache.getParentFile, prefix + TemplateStore.DataSuffix))
+  }
+
+  /**
+   * The title store that belongs to a cache file, in the same directory.
+   */
+  def titleStore(cache: File): TitleStore =
+  {
+    val prefix = cache.getName.stripSuffix(CacheSuffix)
+    new TitleStore(new File(cache.getParentFile, prefix + TitleStore.IndexSuffix), new File(cache.getParentFile, prefix + TitleStore.DataSuffix))
+  }
+
+  /**
+   * Tries to load the index from a cache file.
+   * If not successful, builds the index from a source and updates the cache.
+   */
+  def load(source: Source, cache: File, lang: Language): DumpIndex =
+  {
+    try
+    {
+      return loadFromCache(cache)
+    }
+    catch
+    {
+      case ex: Exception => logger.log(Level.INFO, "Will scan dump for " + lang.wikiCode + " wiki, could not load cache file '" + cache + "': " + ex)
+    }
+
+    val dir = cache.getParentFile
+    if (! dir.exists && ! dir.mkdirs) throw new IOException("cache dir [" + dir + "] does not exist and cannot be created")
+
+    val index = loadFromSource(source, templateStore(cache), titleStore(cache), lang)
+
+    val outputStream = new ObjectOutputStream(new BufferedOutputStream(IOUtils.outputStream(cache)))
+    try
+    {
+      outputStream.writeObject(index)
+    }
+    finally
+    {
+      outputStream.close()
+    }
+    logger.info("dump index with " + index.pageCount + " pages written to cache file " + cache)
+
+    index
+  }
+
+  private def loadFromCache(cache: File): DumpIndex =
+  {
+    logger.info("Loading dump index from cache file " + cache)
+    val inputStream = new ObjectInputStream(new BufferedInputStream(IOUtils.inputStream(cache)))
+    try
+    {
+      val index = inputStream.readObject().asInstanceOf[DumpIndex]
+      if (! index.templates.exists) throw new IOException("missing template store " + index.templates)
+      if (! index.titles.exists) throw new IOException("missing title store " + index.titles)
+      logger.info("dump index with " + index.pageCount + " pages loaded from cache file " + cache)
+      index
+    }
+    finally
+    {
+      inputStream.close()
+    }
+  }
+
+  /**
+   * Reads the source once and collects everything at the same time.
+   * The source may call us from several threads.
+   *
+   * @param store template sources are written to this store
+   * @param titleStore page titles are written to this store
+   */
+  def loadFromSource(source: Source, store: TemplateStore, titleStore: TitleStore, lang: Language): DumpIndex =
+  {
+    logger.info("Scanning dump (" + lang.wikiCode + ")")
+
+    val templates = new TemplateStore.Writer(store)
+    val redirects = new ConcurrentHashMap[String, String]().asScala
+    val disambiguations = new ConcurrentHashMap[Long, java.lang.Boolean]().asScala
+    val titles = new TitleStore.Writer(titleStore)
+
+    val redirectFinder = new Redirects.RedirectFinder(lang)
+    val disambiguationFinder = WikiPatterns.disambiguationTemplate(lang)
+
+    try for (page <- source)
+    {
+      if (page.id >= 0) titles.add(page.id, page.title.encodedWithNamespace)
+
+      if (page.title.namespace == Namespace.Template)
+      {
+        templates.add(page.title.encoded, page.title.decodedWithNamespace, page.id, page.source)
+        for ((from, to) <- redirectFinder(page)) redirects(from) = to
+      }
+      else if (page.title.namespace == Namespace.Main && page.redirect == null && isDisambiguation(page, disambiguationFinder))
+      {
+        disambiguations(page.id) = true
+      }
+    }
+    finally
+    {
+      try templates.close()
+      finally titles.close()
+    }
+
+    logger.info("Dump scanned (" + lang.wikiCode + "): " + titles.size + " pages, " + templates.size + " templates, " +
+      redirects.size + " template redirects, " + disambiguations.size + " disambiguations")
+
+    new DumpIndex(store, redirects.toMap, disambiguations.keySet.toSet, titleStore, titles.size)
+  }
+
+  /**
+   * Finds a disambiguation template call like {{Disambig}} or {{disambig|...}} in the page source,
+   * without parsing the page.
+   */
+  private def isDisambiguation(page: WikiPage, pattern: Pattern): Boolean =
+  {
+    page.source != null && pattern.matcher(page.source).find()
+  }
+}
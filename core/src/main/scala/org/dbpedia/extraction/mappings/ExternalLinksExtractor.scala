@@ -7,7 +7,6 @@ import org.dbpedia.extraction.ontology.Ontology
 import org.dbpedia.extraction.util.{ExtractorUtils, Language}
 import org.dbpedia.iri.UriUtils
 
-import scala.collection.mutable.ArrayBuffer
 import scala.language.reflectiveCalls
 
 /**
@@ -19,33 +18,30 @@ class ExternalLinksExtractor (
     def language : Language
   }
 )
-extends PageNodeExtractor
+extends PageNodeVisitor
 {
   val wikiPageExternalLinkProperty = context.ontology.properties("wikiPageExternalLink")
 
   override val datasets = Set(DBpediaDatasets.ExternalLinks)
 
-  override def extract(node : PageNode, subjectUri : String) : Seq[Quad] =
+  override val nodeTypes = Seq(classOf[ExternalLinkNode])
+
+  override def visitPage(node : PageNode, subjectUri : String) : Option[PageNodeVisit] =
   {
     if(node.title.namespace != Namespace.Main && !ExtractorUtils.titleContainsCommonsMetadata(node.title)) 
-        return Seq.empty
+        return None
 
-    var quads = new ArrayBuffer[Quad]()
-    for(link <- collectExternalLinks(node);
-        uri <- UriUtils.cleanLink(link.destination))
-    {
-      quads += new Quad(context.language, DBpediaDatasets.ExternalLinks, subjectUri, wikiPageExternalLinkProperty, uri, link.sourceIri, null)
-    }
-    
-    quads
-  }
-
-  private def collectExternalLinks(node : Node) : List[ExternalLinkNode] =
-  {
-    node match
+    Some(new PageNodeVisit
     {
-      case linkNode : ExternalLinkNode => List(linkNode)
-      case _ => node.children.flatMap(collectExternalLinks)
-    }
+      override def visit(link : Node) : Boolean =
+      {
+        val linkNode = link.asInstanceOf[ExternalLinkNode]
+        for(uri <- UriUtils.cleanLink(linkNode.destination))
+        {
+          quads += new Quad(context.language, DBpediaDatasets.ExternalLinks, subjectUri, wikiPageExternalLinkProperty, uri, linkNode.sourceIri, null)
+        }
+        false
+      }
+    })
   }
 }
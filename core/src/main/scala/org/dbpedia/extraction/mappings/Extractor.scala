@@ -25,6 +25,16 @@ trait Extractor[-N] extends java.io.Serializable {
       */
     def finalizeExtractor(): Unit = {state = ExtractorState.Finalized}
 
+    /**
+      * called in each worker thread before it extracts its first page, e.g. to create thread-confined resources
+      */
+    def initializeWorker(): Unit = {}
+
+    /**
+      * called in each worker thread after it extracted its last page
+      */
+    def finalizeWorker(): Unit = {}
+
     /**
      * Datasets generated by this extractor. Used for serialization. If a mapping implementation
      * does not return all datasets it produces, serialization may fail.
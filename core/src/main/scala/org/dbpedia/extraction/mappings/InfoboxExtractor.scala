@@ -1,5 +1,7 @@
 package org.dbpedia.extraction.mappings
 
+import java.util.regex.Pattern
+
 import org.dbpedia.extraction.config.provenance.DBpediaDatasets
 import org.dbpedia.extraction.transform.Quad
 
@@ -35,7 +37,7 @@ class InfoboxExtractor(
     def redirects : Redirects 
   } 
 ) 
-extends PageNodeExtractor
+extends PageNodeVisitor
 {
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // Configuration
@@ -53,9 +55,10 @@ extends PageNodeExtractor
 
     private val ignoreTemplates = InfoboxExtractorConfig.ignoreTemplates
 
-    private val ignoreTemplatesRegex = InfoboxExtractorConfig.ignoreTemplatesRegex
+    // one pattern for all regexes, matches a title if one of them does
+    private val ignoreTemplatesPattern = Pattern.compile(InfoboxExtractorConfig.ignoreTemplatesRegex.map(_.regex).mkString("(?:", ")|(?:", ")"))
 
-    private val ignoreProperties = InfoboxExtractorConfig.ignoreProperties
+    private val ignoreProperties = InfoboxExtractorConfig.ignoreProperties.getOrElse(wikiCode, InfoboxExtractorConfig.ignoreProperties("en"))
 
     private val labelProperty = ontology.properties("rdfs:label")
     private val typeProperty = ontology.properties("rdf:type")
@@ -107,20 +110,30 @@ extends PageNodeExtractor
     
     override val datasets = Set(DBpediaDatasets.InfoboxProperties, DBpediaDatasets.InfoboxTest, DBpediaDatasets.InfoboxPropertyDefinitions)
 
-    override def extract(node : PageNode, subjectUri : String) : Seq[Quad] =
+    override val nodeTypes = Seq(classOf[TemplateNode])
+
+    override def visitPage(node : PageNode, subjectUri : String) : Option[PageNodeVisit] =
     {
-        if(node.title.namespace != Namespace.Main && !ExtractorUtils.titleContainsCommonsMetadata(node.title)) return Seq.empty
-        
-        val quads = new ArrayBuffer[Quad]()
+        if(node.title.namespace != Namespace.Main && !ExtractorUtils.titleContainsCommonsMetadata(node.title)) return None
 
-        /** Retrieve all templates on the page which are not ignored */
-        for { template <- InfoboxExtractor.collectTemplates(node)
-          resolvedTitle = context.redirects.resolve(template.title).decoded.toLowerCase
-          if !ignoreTemplates.contains(resolvedTitle)
-          if !ignoreTemplatesRegex.exists(regex => regex.unapplySeq(resolvedTitle).isDefined) 
-        }
+        Some(new PageNodeVisit
         {
-            val propertyList = template.children.filterNot(property => ignoreProperties.get(wikiCode).getOrElse(ignoreProperties("en")).contains(property.key.toLowerCase))
+            // like InfoboxExtractor.collectTemplates, only the templates that are not nested in other templates
+            override def visit(template : Node) : Boolean =
+            {
+                extractTemplate(node, template.asInstanceOf[TemplateNode], subjectUri, quads)
+                false
+            }
+        })
+    }
+
+    /** Extracts a template on the page if it is not ignored */
+    private def extractTemplate(node : PageNode, template : TemplateNode, subjectUri : String, quads : ArrayBuffer[Quad]) : Unit =
+    {
+        val resolvedTitle = context.redirects.resolve(template.title).decoded.toLowerCase
+        if(!ignoreTemplates.contains(resolvedTitle) && !ignoreTemplatesPattern.matcher(resolvedTitle).matches())
+        {
+            val propertyList = template.children.filterNot(property => ignoreProperties.contains(property.key.toLowerCase))
 
             var propertiesFound = false
 
@@ -169,8 +182,6 @@ extends PageNodeExtractor
                 }
             }
         }
-        
-        quads
     }
 
     private def extractValue(node : PropertyNode) : List[ParseResult[String]] =
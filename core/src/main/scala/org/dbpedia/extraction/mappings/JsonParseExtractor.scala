@@ -30,4 +30,8 @@ import org.dbpedia.extraction.wikiparser.impl.json.JsonWikiParser
       case None => Seq.empty
     }
   }
+
+  override def initializeWorker(): Unit = extractors.initializeWorker()
+
+  override def finalizeWorker(): Unit = extractors.finalizeWorker()
 }
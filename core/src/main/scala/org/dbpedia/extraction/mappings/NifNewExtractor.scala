@@ -53,8 +53,16 @@ class NifNewExtractor(
     DBpediaDatasets.HearstPatterns
   )
 
-  var config: WikiConfig = getSwebleConfig()
-  var engine = new WtEngineImpl(config)
+  // the engines are thread-confined, the extractor is shared by all worker threads
+  @transient private lazy val engines = new SwebleEngines(() => getSwebleConfig())
+
+  def config: WikiConfig = engines.config
+
+  def engine: WtEngineImpl = engines.engine
+
+  override def initializeWorker(): Unit = engines.init()
+
+  override def finalizeWorker(): Unit = engines.destroy()
 
   def getSwebleConfig(): WikiConfig = {
     import collection.JavaConverters._
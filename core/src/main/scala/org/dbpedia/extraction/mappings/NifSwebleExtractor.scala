@@ -52,9 +52,16 @@ class NifSwebleExtractor(
 {
   override val datasets = Set(DBpediaDatasets.NifContext,DBpediaDatasets.NifPageStructure,DBpediaDatasets.NifTextLinks,DBpediaDatasets.LongAbstracts, DBpediaDatasets.ShortAbstracts, DBpediaDatasets.RawTables, DBpediaDatasets.Equations, DBpediaDatasets.InterWikiLinks, DBpediaDatasets.ExternalLinks, DBpediaDatasets.InfoboxTest)
 
-  var config: WikiConfig = getSwebleConfig()
-  var engine = new WtEngineImpl(config)
-  //var textConverter =
+  // the engines are thread-confined, the extractor is shared by all worker threads
+  @transient private lazy val engines = new SwebleEngines(() => getSwebleConfig())
+
+  def config: WikiConfig = engines.config
+
+  def engine: WtEngineImpl = engines.engine
+
+  override def initializeWorker(): Unit = engines.init()
+
+  override def finalizeWorker(): Unit = engines.destroy()
 
   protected val removeThumbLinks: Regex = "(\\[\\[.*)\\|thumb([\\|]?.*\\]\\])".r
 
@@ -18,22 +18,31 @@ class PageLinksExtractor (
     def language : Language
   }
 )
-extends PageNodeExtractor
+extends PageNodeVisitor
 {
   val wikiPageWikiLinkProperty = context.ontology.properties("wikiPageWikiLink")
 
   override val datasets = Set(DBpediaDatasets.PageLinks)
 
-  override def extract(node : PageNode, subjectUri : String) : Seq[Quad] =
+  override val nodeTypes = Seq(classOf[InternalLinkNode])
+
+  override def visitPage(node : PageNode, subjectUri : String) : Option[PageNodeVisit] =
   {
     if(node.title.namespace != Namespace.Main && !ExtractorUtils.titleContainsCommonsMetadata(node.title)) 
-        return Seq.empty
-
-    if(node.isRedirect) return Seq.empty
-    
-    val list = ExtractorUtils.collectInternalLinksFromNode(node)
-
-    list.map(link => new Quad(context.language, DBpediaDatasets.PageLinks, subjectUri, wikiPageWikiLinkProperty, getUri(link.destination), link.sourceIri, null))
+        return None
+
+    if(node.isRedirect) return None
+
+    Some(new PageNodeVisit
+    {
+      // like ExtractorUtils.collectInternalLinksFromNode, links inside links are skipped
+      override def visit(link : Node) : Boolean =
+      {
+        val linkNode = link.asInstanceOf[InternalLinkNode]
+        quads += new Quad(context.language, DBpediaDatasets.PageLinks, subjectUri, wikiPageWikiLinkProperty, getUri(linkNode.destination), linkNode.sourceIri, null)
+        false
+      }
+    })
   }
 
   private def getUri(destination : WikiTitle) : String =
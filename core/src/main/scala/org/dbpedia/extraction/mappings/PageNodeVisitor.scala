@@ -0,0 +1,114 @@
+package org.dbpedia.extraction.mappings
+
+import java.util.concurrent.ConcurrentHashMap
+
+import org.dbpedia.extraction.transform.Quad
+import org.dbpedia.extraction.wikiparser.{Node, PageNode}
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * A PageNodeExtractor that does not walk the AST of a page itself, but is shown the nodes it is
+ * interested in. CompositePageNodeExtractor walks the AST once for all its visitors and passes each
+ * node to the visitors of its type. Used alone, the extractor walks the AST on its own.
+ */
+trait PageNodeVisitor extends PageNodeExtractor
+{
+  /**
+   * The node classes this visitor wants to see. Nodes of subclasses are visited too.
+   */
+  def nodeTypes: Seq[Class[_ <: Node]]
+
+  /**
+   * Starts the visit of a page. Called once per page, possibly by several threads at the same time,
+   * so the state of the visit belongs in the returned object, not in the extractor.
+   *
+   * @return None if this extractor extracts nothing from the page, e.g. because of its namespace.
+   */
+  def visitPage(page: PageNode, subjectUri: String): Option[PageNodeVisit]
+
+  private lazy val walker = new PageNodeWalker(Seq(this))
+
+  override def extract(page: PageNode, subjectUri: String): Seq[Quad] =
+  {
+    visitPage(page, subjectUri) match
+    {
+      case Some(visit) =>
+        walker.walk(page, Array(visit))
+        visit.finish()
+      case None => Seq.empty
+    }
+  }
+}
+
+/**
+ * The visit of one page by a PageNodeVisitor.
+ */
+abstract class PageNodeVisit
+{
+  /** the quads extracted from the visited nodes */
+  val quads = new ArrayBuffer[Quad]()
+
+  /**
+   * Called in document order for each node of the page whose class is one of the visitor's node types.
+   *
+   * @return false if the nodes below this node should not be visited, true otherwise.
+   */
+  def visit(node: Node): Boolean
+
+  /**
+   * Called after the walk. Visits that extract from all visited nodes together override this.
+   */
+  def finish(): Seq[Quad] = quads
+}
+
+/**
+ * Walks the AST of a page in document order and passes each node to the visits that want to see it.
+ */
+class PageNodeWalker(visitors: Seq[PageNodeVisitor]) extends java.io.Serializable
+{
+  private val nodeTypes = visitors.map(_.nodeTypes).toArray
+
+  /** visitor indexes by node class, filled on first sight of each class */
+  private val dispatch = new ConcurrentHashMap[Class[_], Array[Int]]()
+
+  private def visitorsOf(nodeClass: Class[_]): Array[Int] =
+  {
+    var indexes = dispatch.get(nodeClass)
+    if (indexes == null)
+    {
+      indexes = nodeTypes.indices.filter(i => nodeTypes(i).exists(_.isAssignableFrom(nodeClass))).toArray
+      dispatch.put(nodeClass, indexes)
+    }
+    indexes
+  }
+
+  /**
+   * @param visits the visits of the page, by the index of their visitor. Null for visitors that skip the page.
+   */
+  def walk(page: PageNode, visits: Array[PageNodeVisit]): Unit =
+  {
+    walk(page, visits, new Array[Node](visits.length))
+  }
+
+  // closed(i) is the node below which visit i wants to see no more nodes, null while it sees all nodes
+  private def walk(node: Node, visits: Array[PageNodeVisit], closed: Array[Node]): Unit =
+  {
+    var closedHere = false
+    for (i <- visitorsOf(node.getClass))
+    {
+      if (visits(i) != null && closed(i) == null && !visits(i).visit(node))
+      {
+        closed(i) = node
+        closedHere = true
+      }
+    }
+
+    for (child <- node.children) walk(child, visits, closed)
+
+    if (closedHere)
+    {
+      for (i <- closed.indices) if (closed(i) eq node) closed(i) = null
+    }
+  }
+}
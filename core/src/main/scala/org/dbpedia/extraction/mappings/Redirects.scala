@@ -1,13 +1,15 @@
 package org.dbpedia.extraction.mappings
 
 import java.io._
+import java.util.concurrent.ConcurrentHashMap
 import java.util.logging.{Level, Logger}
 
 import org.dbpedia.extraction.sources.Source
 import org.dbpedia.extraction.util.Language
 import org.dbpedia.extraction.wikiparser._
-import org.dbpedia.extraction.wikiparser.impl.wikipedia.Redirect
+import org.dbpedia.extraction.wikiparser.impl.wikipedia.WikiPatterns
 
+import scala.collection.convert.decorateAsScala._
 import scala.collection.mutable.{HashMap, HashSet}
 
 /**
@@ -167,38 +169,28 @@ object Redirects
 
         val redirectFinder = new RedirectFinder(lang)
 
-        // TODO: usually, flatMap can be applied to Option, but not here. That's why
-        // RedirectFinder.apply returns a List, not an Option. Some implicit missing?
-        val redirects = new Redirects(source.flatMap(redirectFinder).toMap)
+        // the source may call us from several threads, so collect into a concurrent map
+        // instead of using source.flatMap
+        val map = new ConcurrentHashMap[String, String]().asScala
+        for (page <- source; (from, to) <- redirectFinder(page))
+            map(from) = to
+        val redirects = new Redirects(map.toMap)
 
         logger.info("Redirects loaded from source ("+lang.wikiCode+")")
         redirects
     }
 
-    private class RedirectFinder(lang : Language) extends (WikiPage => List[(String, String)])
+    private[mappings] class RedirectFinder(lang : Language) extends (WikiPage => List[(String, String)])
     {
-        val regex = buildRegex
-        
-        private def buildRegex = {
-            val redirects = Redirect(lang).mkString("|")
-            // (?ius) enables CASE_INSENSITIVE UNICODE_CASE DOTALL
-            // case insensitive and unicode are important - that's what mediawiki does.
-            // Note: Although we do not specify a Locale, UNICODE_CASE does mostly the right thing.
-            // DOTALL means that '.' also matches line terminators.
-            // Reminder: (?:...) are non-capturing groups, '*?' is a reluctant qualifier.
-            // (?:#[^\n]*?)? is an optional (the last '?') non-capturing group meaning: there may
-            // be a '#' after which everything but line breaks is allowed ('[]{}|<>' are not allowed 
-            // before the '#'). The match is reluctant ('*?'), which means that we recognize ']]' 
-            // as early as possible.
-            // (?:\|[^\n]*?)? is another optional non-capturing group that reluctantly consumes 
-            // a '|' character and everything but line breaks after it.
-            ("""(?ius)\s*(?:"""+redirects+""")\s*:?\s*\[\[([^\[\]{}|<>\n]+(?:#[^\n]*?)?)(?:\|[^\n]*?)?\]\].*""").r
-        } 
+        private val redirect = WikiPatterns.redirect(lang)
+
+        val regex = redirect.destinationRegex
 
         override def apply(page : WikiPage) : List[(String, String)]=
         {
             var destinationTitle : WikiTitle = 
-            page.source match {
+            if (!redirect.maybeStartOf(page.source)) null
+            else page.source match {
                 case regex(destination) => {
                   try {
                       
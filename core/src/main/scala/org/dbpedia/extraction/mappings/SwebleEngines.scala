@@ -0,0 +1,39 @@
+package org.dbpedia.extraction.mappings
+
+import org.sweble.wikitext.engine.WtEngineImpl
+import org.sweble.wikitext.engine.config.WikiConfig
+
+/**
+ * One Sweble engine and config per worker thread. WtEngineImpl keeps parser state between pages
+ * and must not be used by several threads at the same time.
+ *
+ * Extractors create the engine of a worker thread in Extractor.initializeWorker() and drop it
+ * in Extractor.finalizeWorker(). Threads that didn't call init() (e.g. the server) get an
+ * engine when they first use one.
+ *
+ * @param newConfig creates the config of a new engine
+ */
+class SwebleEngines(newConfig: () => WikiConfig)
+{
+  private val engines = new ThreadLocal[WtEngineImpl]
+
+  def init(): Unit = engines.set(new WtEngineImpl(newConfig()))
+
+  def destroy(): Unit = engines.remove()
+
+  /**
+   * @return the engine of the current thread
+   */
+  def engine: WtEngineImpl =
+  {
+    val engine = engines.get
+    if (engine != null) return engine
+    init()
+    engines.get
+  }
+
+  /**
+   * @return the config of the engine of the current thread
+   */
+  def config: WikiConfig = engine.getWikiConfig
+}
@@ -6,10 +6,19 @@ import org.dbpedia.extraction.wikiparser.Namespace
 import org.sweble.wikitext.engine.{FullPage, PageId, PageTitle}
 import org.sweble.wikitext.engine.utils.DefaultConfigEnWp
 
-class Template (val map : Map[String, FullPage])
+import scala.collection.convert.decorateAsScala._
+
+/**
+ * Template pages by encoded title, used by the Sweble ExpansionCallbacks.
+ *
+ * @param lookup finds a template page, e.g. in a Map or in a memory-mapped TemplateStore
+ */
+class Template (lookup : String => Option[FullPage])
 {
+  def this(map : Map[String, FullPage]) = this(map.get _)
+
   def getFullPage(title : String) : FullPage = {
-    map.getOrElse(title, null)
+    lookup(title).orNull
   }
 }
 object Template{
@@ -17,7 +26,8 @@ object Template{
   def load(articlesSource : Source) : Template =
   {
     val config = DefaultConfigEnWp.generate()
-    val template_map = scala.collection.mutable.Map[String, FullPage]()
+    // the source may call us from several threads
+    val template_map = new java.util.concurrent.ConcurrentHashMap[String, FullPage]().asScala
     for (page <- articlesSource){
       if(page.title.namespace == Namespace.Template){
         val pageId = new PageId(PageTitle.make(config, page.title.decodedWithNamespace), page.id)
@@ -28,5 +38,15 @@ object Template{
     new Template(template_map.toMap)
   }
 
-
-}
\ No newline at end of file
+  /**
+   * Reads the templates lazily from a memory-mapped store.
+   *
+   * @param cacheChars size of a TemplateCache shared by all users of the result, in characters of
+   *                   template source. 0 disables the cache.
+   */
+  def fromStore(store : TemplateStore, cacheChars : Long = 0) : Template =
+  {
+    if (cacheChars > 0) new Template(new TemplateCache(store.get, cacheChars))
+    else new Template(store.get _)
+  }
+}
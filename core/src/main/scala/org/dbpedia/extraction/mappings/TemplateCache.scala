@@ -0,0 +1,87 @@
+package org.dbpedia.extraction.mappings
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Logger
+
+import org.sweble.wikitext.engine.FullPage
+
+/**
+ * Bounded least-recently-used cache in front of a template lookup, shared by all worker threads.
+ * Missing templates are cached as well, Sweble asks for the same red links again and again.
+ *
+ * The cache is split into stripes with their own lock, so that threads looking up different
+ * templates rarely wait for each other. Each stripe evicts its least recently used templates
+ * once their sources exceed its share of the size limit.
+ *
+ * @param lookup the underlying lookup, e.g. a TemplateStore. Must be thread-safe.
+ * @param maxChars size limit in characters of template source (and title)
+ */
+class TemplateCache(lookup : String => Option[FullPage], maxChars : Long, stripes : Int = 64)
+  extends (String => Option[FullPage])
+{
+  private val cache = Array.fill(stripes)(new TemplateCache.Stripe(maxChars / stripes))
+
+  private val hitCount = new AtomicLong()
+
+  private val missCount = new AtomicLong()
+
+  def hits: Long = hitCount.get
+
+  def misses: Long = missCount.get
+
+  override def apply(title : String) : Option[FullPage] =
+  {
+    val stripe = cache((title.hashCode & Int.MaxValue) % stripes)
+    val cached = stripe.synchronized { stripe.get(title) }
+    if (cached != null) {
+      if (hitCount.incrementAndGet() % TemplateCache.LogInterval == 0) TemplateCache.logger.info(toString)
+      return cached
+    }
+
+    missCount.incrementAndGet()
+    // two threads may load the same template at the same time, that's cheaper than waiting for each other
+    val page = lookup(title)
+    stripe.synchronized { stripe.add(title, page) }
+    page
+  }
+
+  override def toString: String =
+  {
+    val h = hits
+    val m = misses
+    "template cache: " + h + " hits, " + m + " misses" + (if (h + m > 0) ", hit rate " + (h * 100 / (h + m)) + "%" else "")
+  }
+}
+
+object TemplateCache
+{
+  private val logger = Logger.getLogger(classOf[TemplateCache].getName)
+
+  private val LogInterval = 1000000
+
+  private def size(title : String, page : Option[FullPage]) : Long =
+    title.length + page.map(_.getText.length.toLong).getOrElse(0L)
+
+  /**
+   * Access-ordered map that drops the eldest entries when it grows too large. Not thread-safe.
+   */
+  private class Stripe(maxChars : Long) extends java.util.LinkedHashMap[String, Option[FullPage]](16, 0.75f, true)
+  {
+    private var chars = 0L
+
+    def add(title : String, page : Option[FullPage]) : Unit =
+    {
+      val previous = put(title, page)
+      if (previous != null) chars -= TemplateCache.size(title, previous)
+      chars += TemplateCache.size(title, page)
+
+      // keep at least the new entry, even if it is larger than the limit
+      val it = entrySet().iterator()
+      while (chars > maxChars && size > 1) {
+        val eldest = it.next()
+        chars -= TemplateCache.size(eldest.getKey, eldest.getValue)
+        it.remove()
+      }
+    }
+  }
+}
@@ -26,6 +26,7 @@ extends Extractor[TemplateNode]
 
     private val classOwlThing = context.ontology.classes("owl:Thing")
     private val propertyRdfType = context.ontology.properties("rdf:type")
+    private val hierarchy = context.ontology.hierarchy
 
     override def extract(node: TemplateNode, subjectUri: String): Seq[Quad] =
     {
@@ -55,7 +56,7 @@ extends Extractor[TemplateNode]
                 //  Check if the root template has been mapped to the corresponding Class of this template
                 //  If the mapping already defines a corresponding class & propery then we should create a new resource
                 val condition1_createCorrespondingProperty = correspondingClass != null &&
-                  correspondingProperty != null && pageClass.relatedClasses.contains(correspondingClass)
+                  correspondingProperty != null && hierarchy.isRelated(pageClass, correspondingClass)
 
                 // Condition #2
                 // If we have more than one of the same template it means that we want to create multiple resources. See for example
@@ -67,7 +68,7 @@ extends Extractor[TemplateNode]
 
                 // Condition #3
                 // The current mapping is a subclass or a superclass of previous class or owl:Thing
-                val condition3_subclass = mapToClass.relatedClasses.contains(pageClass) || pageClass.relatedClasses.contains(mapToClass) || mapToClass.equals(classOwlThing) || pageClass.equals(classOwlThing)
+                val condition3_subclass = hierarchy.isRelated(mapToClass, pageClass) || hierarchy.isRelated(pageClass, mapToClass) || mapToClass.equals(classOwlThing) || pageClass.equals(classOwlThing)
 
                 // If all above conditions are met then use the main resource, otherwise create a new one
                 val instanceUri =
@@ -101,14 +102,14 @@ extends Extractor[TemplateNode]
         val pageClass = node.root.getAnnotation(TemplateMapping.CLASS_ANNOTATION).getOrElse(throw new IllegalArgumentException("missing class Annotation"))
 
         // Compute missing types, i.e. the set difference between the page classes and this TemplateMapping relatedClasses
-        val diffSet = mapToClass.relatedClasses.filterNot(c => pageClass.relatedClasses.contains(c))
+        val diffSet = hierarchy.relatedClassesNotIn(mapToClass, pageClass)
 
         // Set annotations
         node.setAnnotation(TemplateMapping.CLASS_ANNOTATION, mapToClass)
         node.setAnnotation(TemplateMapping.INSTANCE_URI_ANNOTATION, uri)
 
         // Set new annotation (if new map is a subclass)
-        if (mapToClass.relatedClasses.contains(pageClass))
+        if (hierarchy.isRelated(mapToClass, pageClass))
           node.root.setAnnotation(TemplateMapping.CLASS_ANNOTATION, mapToClass)
 
         // Create missing type statements
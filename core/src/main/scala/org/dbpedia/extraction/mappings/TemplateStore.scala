@@ -0,0 +1,182 @@
+package org.dbpedia.extraction.mappings
+
+import java.io._
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+
+import org.apache.commons.lang3.StringEscapeUtils
+import org.sweble.wikitext.engine.utils.DefaultConfigEnWp
+import org.sweble.wikitext.engine.{FullPage, PageId, PageTitle}
+
+import scala.collection.convert.decorateAsScala._
+
+/**
+ * On-disk store of template sources: an index file with the titles of all templates and a data
+ * file with their unescaped wikitext as UTF-8. The data file is memory-mapped and a template
+ * source is only decoded when it is requested, so the heap only holds the titles.
+ *
+ * Only the file names are serialized, the files are opened again after deserialization.
+ *
+ * @param index titles, page ids and positions of the sources in the data file, sorted by key
+ * @param data UTF-8 template sources
+ */
+class TemplateStore(val index: File, val data: File) extends java.io.Serializable
+{
+  import TemplateStore._
+
+  @transient private lazy val entries = readIndex(index)
+
+  @transient private lazy val segments = mapData(data)
+
+  @transient private lazy val config = DefaultConfigEnWp.generate()
+
+  def exists: Boolean = index.isFile && data.isFile
+
+  def size: Int = entries.keys.length
+
+  /**
+   * @param key encoded template title without namespace
+   * @return the template page, None if there is no template with this title
+   */
+  def get(key: String): Option[FullPage] =
+  {
+    val e = entries
+    val i = java.util.Arrays.binarySearch(e.keys.asInstanceOf[Array[AnyRef]], key)
+    if (i < 0) return None
+
+    val source = new String(read(segments, e.offsets(i), e.lengths(i)), StandardCharsets.UTF_8)
+    Some(new FullPage(new PageId(PageTitle.make(config, e.titles(i)), e.ids(i)), source))
+  }
+
+  override def toString: String = "TemplateStore(" + data + ")"
+}
+
+object TemplateStore
+{
+  val IndexSuffix = "templates-index.bin"
+
+  val DataSuffix = "templates-data.bin"
+
+  // map the data file in segments of 1 GB, a single mapping can't be larger than 2 GB
+  private val SegmentBits = 30
+
+  private val SegmentMask = (1L << SegmentBits) - 1
+
+  private class Entries(val keys: Array[String], val titles: Array[String], val ids: Array[Long], val offsets: Array[Long], val lengths: Array[Int])
+
+  private case class Entry(title: String, id: Long, offset: Long, length: Int)
+
+  private def readIndex(file: File): Entries =
+  {
+    val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))
+    try
+    {
+      val count = in.readInt()
+      val entries = new Entries(new Array[String](count), new Array[String](count), new Array[Long](count), new Array[Long](count), new Array[Int](count))
+      for (i <- 0 until count)
+      {
+        entries.keys(i) = in.readUTF()
+        entries.titles(i) = in.readUTF()
+        entries.ids(i) = in.readLong()
+        entries.offsets(i) = in.readLong()
+        entries.lengths(i) = in.readInt()
+      }
+      entries
+    }
+    finally in.close()
+  }
+
+  /**
+   * Maps a data file in read-only segments, see read(). Also used by TitleStore.
+   */
+  private[mappings] def mapData(file: File): Array[MappedByteBuffer] =
+  {
+    val channel = new RandomAccessFile(file, "r").getChannel
+    try
+    {
+      val length = channel.size
+      // the mappings stay valid after the channel is closed
+      Array.tabulate(((length + SegmentMask) >>> SegmentBits).toInt) { i =>
+        val start = i.toLong << SegmentBits
+        channel.map(FileChannel.MapMode.READ_ONLY, start, math.min(length - start, 1L << SegmentBits))
+      }
+    }
+    finally channel.close()
+  }
+
+  /**
+   * Copies bytes from the mapped segments. A source may straddle two segments.
+   */
+  private[mappings] def read(segments: Array[MappedByteBuffer], offset: Long, length: Int): Array[Byte] =
+  {
+    val bytes = new Array[Byte](length)
+    var done = 0
+    while (done < length)
+    {
+      val pos = offset + done
+      // duplicate, the position of a shared buffer must not be changed by several threads
+      val segment = segments((pos >>> SegmentBits).toInt).duplicate()
+      segment.position((pos & SegmentMask).toInt)
+      val count = math.min(length - done, segment.remaining)
+      segment.get(bytes, done, count)
+      done += count
+    }
+    bytes
+  }
+
+  /**
+   * Writes a template store. Templates may be added from several threads.
+   * The index is written by close(), the store can't be used before that.
+   */
+  class Writer(store: TemplateStore)
+  {
+    private val entries = new ConcurrentHashMap[String, Entry]().asScala
+
+    private val out = new BufferedOutputStream(new FileOutputStream(store.data), 1 << 16)
+
+    private var offset = 0L
+
+    /**
+     * @param key encoded template title without namespace
+     * @param title decoded template title with namespace
+     * @param source template source as found in the dump, still XML-escaped
+     */
+    def add(key: String, title: String, id: Long, source: String): Unit =
+    {
+      val bytes = StringEscapeUtils.unescapeXml(source).getBytes(StandardCharsets.UTF_8)
+      val start = out.synchronized
+      {
+        val start = offset
+        out.write(bytes)
+        offset += bytes.length
+        start
+      }
+      entries(key) = Entry(title, id, start, bytes.length)
+    }
+
+    def size: Int = entries.size
+
+    def close(): Unit =
+    {
+      out.close()
+
+      val index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(store.index), 1 << 16))
+      try
+      {
+        val sorted = entries.toArray.sortBy(_._1)
+        index.writeInt(sorted.length)
+        for ((key, entry) <- sorted)
+        {
+          index.writeUTF(key)
+          index.writeUTF(entry.title)
+          index.writeLong(entry.id)
+          index.writeLong(entry.offset)
+          index.writeInt(entry.length)
+        }
+      }
+      finally index.close()
+    }
+  }
+}
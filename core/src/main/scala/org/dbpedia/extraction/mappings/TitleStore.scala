@@ -0,0 +1,131 @@
+package org.dbpedia.extraction.mappings
+
+import java.io._
+import java.nio.charset.StandardCharsets
+
+/**
+ * On-disk store of the titles of all pages of a dump by page id: an index file with the sorted
+ * page ids and the positions of the titles in a data file with the titles as UTF-8. As in
+ * TemplateStore, the data file is memory-mapped. The index is only read by the first lookup,
+ * so a store that is never asked for a title costs no heap at all.
+ *
+ * Only the file names are serialized, the files are opened again after deserialization.
+ *
+ * @param index page ids and positions of the titles in the data file, sorted by page id
+ * @param data UTF-8 titles
+ */
+class TitleStore(val index: File, val data: File) extends java.io.Serializable
+{
+  import TitleStore._
+
+  @transient private lazy val entries = readIndex(index)
+
+  @transient private lazy val segments = TemplateStore.mapData(data)
+
+  def exists: Boolean = index.isFile && data.isFile
+
+  /**
+   * @return the title of the page with the given id, None if there is no page with this id
+   */
+  def get(id: Long): Option[String] =
+  {
+    val e = entries
+    val i = java.util.Arrays.binarySearch(e.ids, id)
+    if (i < 0) None else Some(new String(TemplateStore.read(segments, e.offsets(i), e.lengths(i)), StandardCharsets.UTF_8))
+  }
+
+  override def toString: String = "TitleStore(" + data + ")"
+}
+
+object TitleStore
+{
+  val IndexSuffix = "titles-index.bin"
+
+  val DataSuffix = "titles-data.bin"
+
+  private class Entries(val ids: Array[Long], val offsets: Array[Long], val lengths: Array[Int])
+
+  private def readIndex(file: File): Entries =
+  {
+    val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))
+    try
+    {
+      val count = in.readInt()
+      val entries = new Entries(new Array[Long](count), new Array[Long](count), new Array[Int](count))
+      for (i <- 0 until count)
+      {
+        entries.ids(i) = in.readLong()
+        entries.offsets(i) = in.readLong()
+        entries.lengths(i) = in.readInt()
+      }
+      entries
+    }
+    finally in.close()
+  }
+
+  /**
+   * Writes a title store. Titles may be added from several threads.
+   * The index is written by close(), the store can't be used before that.
+   *
+   * Titles go to the data file in the order they are added. Only the page ids and the positions
+   * are kept in primitive arrays until close() sorts them, with the page id in the upper and
+   * the number of the title in the lower 32 bits of a single long, so no objects per page are
+   * needed. MediaWiki page ids are unsigned 32 bit numbers.
+   */
+  class Writer(store: TitleStore)
+  {
+    private val out = new BufferedOutputStream(new FileOutputStream(store.data), 1 << 16)
+
+    private var offset = 0L
+
+    // guarded by out
+    private var keys = new Array[Long](1 << 12)
+    private var offsets = new Array[Long](1 << 12)
+    private var count = 0
+
+    def add(id: Long, title: String): Unit =
+    {
+      if (id < 0 || id > 0xFFFFFFFFL) throw new IllegalArgumentException("page id " + id + " out of range")
+      val bytes = title.getBytes(StandardCharsets.UTF_8)
+      out.synchronized
+      {
+        if (count == keys.length)
+        {
+          keys = java.util.Arrays.copyOf(keys, count * 2)
+          offsets = java.util.Arrays.copyOf(offsets, count * 2)
+        }
+        keys(count) = id << 32 | count
+        offsets(count) = offset
+        count += 1
+        out.write(bytes)
+        offset += bytes.length
+      }
+    }
+
+    def size: Int = out.synchronized { count }
+
+    def close(): Unit =
+    {
+      out.close()
+
+      java.util.Arrays.sort(keys, 0, count)
+      val index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(store.index), 1 << 16))
+      try
+      {
+        index.writeInt(count)
+        for (i <- 0 until count)
+        {
+          val number = (keys(i) & 0xFFFFFFFFL).toInt
+          val end = if (number + 1 < count) offsets(number + 1) else offset
+          index.writeLong(keys(i) >>> 32)
+          index.writeLong(offsets(number))
+          index.writeInt((end - offsets(number)).toInt)
+        }
+      }
+      finally index.close()
+
+      keys = null
+      offsets = null
+    }
+  }
+}
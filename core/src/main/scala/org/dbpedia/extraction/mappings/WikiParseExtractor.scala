@@ -3,7 +3,6 @@ package org.dbpedia.extraction.mappings
 import org.dbpedia.extraction.config.provenance.Dataset
 import org.dbpedia.extraction.transform.Quad
 import org.dbpedia.extraction.wikiparser.WikiPage
-import org.dbpedia.extraction.wikiparser.impl.simple.SimpleWikiParser
 
 /**
  * User: hadyelsahar
@@ -14,6 +13,7 @@ import org.dbpedia.extraction.wikiparser.impl.simple.SimpleWikiParser
  *
  * send page to SimpleWikiParser, if it returns none do nothing
  * if it's parsed correctly send the PageNode to the next level extractors
+ * the page is parsed once, other extractors of the page get the same PageNode from WikiPage.pageNode
  *
  * @param extractors  Sequence of next level Extractors
  *
@@ -24,10 +24,13 @@ import org.dbpedia.extraction.wikiparser.impl.simple.SimpleWikiParser
 
   override def extract(page: WikiPage, subjectUri: String): Seq[Quad] = {
 
-    val node = SimpleWikiParser(page)
-    node match {
+    page.pageNode match {
       case Some(n) =>  extractors.extract(n, subjectUri)
       case None => Seq.empty
     }
   }
+
+  override def initializeWorker(): Unit = extractors.initializeWorker()
+
+  override def finalizeWorker(): Unit = extractors.finalizeWorker()
 }
@@ -4,9 +4,8 @@ import java.io.{File, IOException}
 
 import com.fasterxml.jackson.module.scala.experimental.ScalaObjectMapper
 import org.dbpedia.extraction.config.mappings.wikidata._
-import org.dbpedia.extraction.config.provenance.DBpediaDatasets
+import org.dbpedia.extraction.config.provenance.{DBpediaDatasets, Dataset}
 import org.dbpedia.extraction.ontology.{OntologyProperty, _}
-import org.dbpedia.extraction.ontology.datatypes.Datatype
 import org.dbpedia.extraction.transform.Quad
 import org.dbpedia.extraction.util.{JsonConfig, Language, WikidataUtil}
 import org.dbpedia.extraction.wikiparser.{JsonNode, Namespace}
@@ -50,12 +49,13 @@ class WikidataR2RExtractor(
                             )
   extends JsonNodeExtractor {
 
-  val config: JsonConfig = new JsonConfig(getClass.getClassLoader.getResource("wikidatar2r.json"))
-  var equivalentProperties: Map[String, Set[String]] = context.ontology.wikidataPropertiesMap.map(x => x._1 -> x._2.map(y => y.uri))
-
   //class mappings generated with script WikidataSubClassOf and written to json file.
   val classMappings = readClassMappings(context.configFile.wikidataMappingsFile)
 
+  // wikidatar2r.json and the equivalent properties of the ontology, compiled once
+  val mappings = new WikidataR2RMappings(
+    new JsonConfig(getClass.getClassLoader.getResource("wikidatar2r.json")), context.ontology, getEquivalentClass)
+
   private val rdfType = context.ontology.properties("rdf:type")
   private val wikidataSplitIri = context.ontology.properties("wikidataSplitIri")
   private val rdfStatement = "http://www.w3.org/1999/02/22-rdf-syntax-ns#Statement"
@@ -86,169 +86,99 @@ class WikidataR2RExtractor(
     val quads = new ArrayBuffer[Quad]()
 
     if (page.wikiPage.title.namespace != Namespace.WikidataProperty) {
-      for ((statementGroup) <- page.wikiDataDocument.getStatementGroups) {
-        val duplicateList = getDuplicates(statementGroup)
-        val statements = checkRank(statementGroup)
-        statements.foreach {
-          statement => {
-            val claim = statement.getClaim
-            val property = claim.getMainSnak.getPropertyId.getId
-            val equivPropertySet = getEquivalentProperties(property)
-            claim.getMainSnak match {
-              case mainSnak: ValueSnak => {
-                val value = mainSnak.getValue
-
-                val equivClassSet = getEquivalentClass(value)
-                val receiver: WikidataCommandReceiver = new WikidataCommandReceiver
-                val command: WikidataTransformationCommands = config.getCommand(property, value, equivClassSet, equivPropertySet, receiver)
-                command.execute()
-
-                val statementUri = WikidataUtil.getStatementUri(subjectUri, property, value)
-
-                val PV = property + " " + value
-                if (duplicateList.contains(PV)) {
-                  val statementUriWithHash = WikidataUtil.getStatementUriWithHash(subjectUri, property, value, statement.getStatementId)
-                  quads += new Quad(context.language, DBpediaDatasets.WikidataDublicateIriSplit, statementUri, wikidataSplitIri, statementUriWithHash, page.wikiPage.sourceIri, null)
-                }
-                quads ++= getQuad(page, subjectUri, statementUri, receiver.getMap())
-
-                //Wikidata qualifiers R2R mapping
-                quads ++= getQualifersQuad(page, statementUri, claim)
+      for (statementGroup <- page.wikiDataDocument.getStatementGroups) {
+        val statements = statementGroup.getStatements
+        val duplicates = getDuplicates(statements)
+        val rank = selectRank(statements)
+        for (statement <- statements if statement.getRank == rank) {
+          val claim = statement.getClaim
+          claim.getMainSnak match {
+            case mainSnak: ValueSnak =>
+              val property = mainSnak.getPropertyId.getId
+              val value = mainSnak.getValue
+              val statementUri = WikidataUtil.getStatementUri(subjectUri, property, value)
+
+              if (duplicates.contains(value)) {
+                val statementUriWithHash = WikidataUtil.getStatementUriWithHash(subjectUri, property, value, statement.getStatementId)
+                quads += new Quad(context.language, DBpediaDatasets.WikidataDublicateIriSplit, statementUri, wikidataSplitIri, statementUriWithHash, page.wikiPage.sourceIri, null)
               }
+              addQuads(page, subjectUri, statementUri, value, mappings.get(property), quads)
 
-              case _ =>
-            }
+              //Wikidata qualifiers R2R mapping
+              addQualifierQuads(page, statementUri, claim, quads)
 
+            case _ =>
           }
         }
       }
     }
 
-    splitDatasets(quads, subjectUri, page)
-  }
-
-  def checkRank(statementGroup: StatementGroup): Seq[Statement] ={
-    var statements = Seq[Statement]();
-
-    //If statementGroup has preferred statement
-    statements = statementGroup.getStatements.filter(_.getRank.equals(StatementRank.PREFERRED));
-
-    //If there is no preferred statement, take all Normal statemnts
-    if (statements.isEmpty) {
-      statements = statementGroup.getStatements.filter(_.getRank.equals(StatementRank.NORMAL))
-    }
-    statements
-  }
-  def getQuad(page: JsonNode, subjectUri: String,statementUri:String,map: mutable.Map[String, String]): ArrayBuffer[Quad] = {
-    val quads = new ArrayBuffer[Quad]()
-    map.foreach {
-      propertyValue => {
-        try {
-          val ontologyProperty = context.ontology.properties(propertyValue._1)
-          val datatype = findType(null, ontologyProperty.range)
-          if (propertyValue._2.startsWith("http:") && datatype != null && datatype.name == "xsd:string") {
-            quads += new Quad(context.language, DBpediaDatasets.WikidataR2R_mappingerrors, subjectUri, ontologyProperty, propertyValue._2.toString, page.wikiPage.sourceIri, datatype)
-          } else {
-
-            //split to literal / object datasets
-            val mapDataset = if (ontologyProperty.isInstanceOf[OntologyObjectProperty]) DBpediaDatasets.WikidataR2R_objects else DBpediaDatasets.WikidataR2R_literals
-            //Wikidata R2R mapping without reification
-            val quad = new Quad(context.language, mapDataset, subjectUri, ontologyProperty, propertyValue._2.toString, page.wikiPage.sourceIri, datatype)
-            quads += quad
-
-            //Reification added to R2R mapping
-            quads ++= getReificationQuads(page, statementUri, datatype, quad)
-          }
-        } catch {
-          case e: Exception => println("exception caught: " + e)
-        }
-
-      }
-    }
     quads
   }
 
-  def getReificationQuads(page: JsonNode, statementUri: String, datatype: Datatype, quad: Quad): ArrayBuffer[Quad] = {
-    val quads = new ArrayBuffer[Quad]()
-
-    quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfType, rdfStatement, page.wikiPage.sourceIri)
-    quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfSubject, quad.subject, page.wikiPage.sourceIri, null)
-    quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfPredicate, quad.predicate, page.wikiPage.sourceIri, null)
-    quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfObject, quad.value, page.wikiPage.sourceIri, datatype)
-
-    quads
+  /**
+   * @return the preferred rank if the statements contain a preferred statement, the normal rank otherwise
+   */
+  private def selectRank(statements: java.util.List[Statement]): StatementRank = {
+    if (statements.exists(_.getRank == StatementRank.PREFERRED)) StatementRank.PREFERRED
+    else StatementRank.NORMAL
   }
 
-  def getQualifersQuad(page: JsonNode, statementUri: String, claim: Claim): Seq[Quad] = {
-    val quads = new ArrayBuffer[Quad]()
-
-    val receiverForQualifier: WikidataCommandReceiver = new WikidataCommandReceiver
-
-    claim.getQualifiers.foreach {
-
-      qualifier => {
-        for (qual <- qualifier) {
-          qual match {
-            case valueSnak: ValueSnak => {
-              val qualifierProperty = valueSnak.getPropertyId.getId
-
-              val qualifierValue = valueSnak.getValue
-
-              val equivClassSet = getEquivalentClass(qualifierValue)
-              val equivPropertySet = getEquivalentProperties(qualifierProperty)
-
-              val commandQualifier: WikidataTransformationCommands =
-                config.getCommand(qualifierProperty, qualifierValue, equivClassSet, equivPropertySet, receiverForQualifier)
-
-              commandQualifier.execute()
-
-              receiverForQualifier.getMap().foreach {
-                mappedQualifierValue => {
-                  try {
-                    val ontologyProperty = context.ontology.properties(mappedQualifierValue._1)
-                    val datatype = if (ontologyProperty.range.isInstanceOf[Datatype]) ontologyProperty.range.asInstanceOf[Datatype] else null
-                    quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2RQualifier,
-                      statementUri, ontologyProperty, mappedQualifierValue._2, page.wikiPage.sourceIri, datatype)
-                  } catch {
-                    case e: Exception => println("exception caught: " + e)
-                  }
-                }
-              }
-            }
-            case _ =>
-          }
+  private def addQuads(page: JsonNode, subjectUri: String, statementUri: String, value: Value, mappings: Array[WikidataR2RMapping], quads: ArrayBuffer[Quad]): Unit = {
+    for (mapping <- mappings) {
+      val mappedValue = mapping(value)
+      if (mappedValue != null) {
+        if (mapping.isStringRange && mappedValue.startsWith("http:")) {
+          quads += new Quad(context.language, DBpediaDatasets.WikidataR2R_mappingerrors, subjectUri, mapping.property, mappedValue, page.wikiPage.sourceIri, mapping.datatype)
+        } else {
+          //Wikidata R2R mapping without reification, split to datasets
+          quads += new Quad(context.language, getDataset(mapping.property, mappedValue), subjectUri, mapping.property, mappedValue, page.wikiPage.sourceIri, mapping.datatype)
+          if (mapping.property == rdfType)
+            addTransitiveTypes(page, subjectUri, mappedValue, quads)
+
+          //Reification added to R2R mapping
+          quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfType, rdfStatement, page.wikiPage.sourceIri)
+          quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfSubject, subjectUri, page.wikiPage.sourceIri, null)
+          quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfPredicate, mapping.property.uri, page.wikiPage.sourceIri, null)
+          quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfObject, mappedValue, page.wikiPage.sourceIri, mapping.datatype)
         }
       }
     }
-
-    quads
   }
 
-  private def getDuplicates(statementGroup: StatementGroup): mutable.MutableList[String] = {
-    var duplicateList = mutable.MutableList[String]();
-    statementGroup.getStatements.foreach {
-      statement => {
-        val claim = statement.getClaim
-        val property = claim.getMainSnak.getPropertyId.getId
-        claim.getMainSnak match {
-          case mainSnak: ValueSnak =>
-            val value = mainSnak.getValue
-            val PV = property + " " + value
-            duplicateList +=PV
-          case _ =>
-        }
+  private def addQualifierQuads(page: JsonNode, statementUri: String, claim: Claim, quads: ArrayBuffer[Quad]): Unit = {
+    for (qualifier <- claim.getQualifiers; qual <- qualifier) {
+      qual match {
+        case valueSnak: ValueSnak =>
+          val qualifierValue = valueSnak.getValue
+          for (mapping <- mappings.get(valueSnak.getPropertyId.getId)) {
+            val mappedValue = mapping(qualifierValue)
+            if (mappedValue != null)
+              quads += new Quad(context.language, DBpediaDatasets.WikidataReifiedR2RQualifier,
+                statementUri, mapping.property, mappedValue, page.wikiPage.sourceIri, mapping.datatype)
+          }
+        case _ =>
       }
     }
-    duplicateList= duplicateList.diff(duplicateList.distinct).distinct
-    duplicateList
   }
 
-  private def findType(datatype: Datatype, range: OntologyType): Datatype = {
-    if (datatype != null) datatype
-    else range match {
-      case datatype: Datatype => datatype
-      case _ => null
+  /**
+   * @return the values of the statements that occur more than once, empty if there are none
+   */
+  private def getDuplicates(statements: java.util.List[Statement]): collection.Set[Value] = {
+    if (statements.size < 2)
+      return Set.empty
+
+    val values = new mutable.HashSet[Value]()
+    val duplicates = new mutable.HashSet[Value]()
+    for (statement <- statements) {
+      statement.getClaim.getMainSnak match {
+        case mainSnak: ValueSnak =>
+          if (! values.add(mainSnak.getValue)) duplicates += mainSnak.getValue
+        case _ =>
+      }
     }
+    duplicates
   }
 
   private def getEquivalentClass(value: Value): Set[OntologyClass] = {
@@ -298,64 +228,49 @@ class WikidataR2RExtractor(
     finalMap
   }
 
-  private def getEquivalentProperties(property: String): Set[String] = {
-    equivalentProperties.get("wikidata:" + property) match{
-      case Some(x) => x
-      case None => Set[String]()
-    }
-  }
-
   /**
-   * Splits the quads to different datasets according to custom rules
+   * Splits the mapped quads to different datasets according to custom rules
    */
-  private def splitDatasets(originalGraph: Seq[Quad], subjectUri : String, page: JsonNode) : Seq[Quad] = {
-    val adjustedGraph = new ArrayBuffer[Quad]
-
-    originalGraph.foreach(q => {
-      if (q.dataset.equals(DBpediaDatasets.WikidataR2R_literals.encoded) || q.dataset.equals(DBpediaDatasets.WikidataR2R_objects.encoded)) {
-        q.predicate match {
-
-            // split type statements, some types e.g. cordinates go to separate datasets
-          case "http://www.w3.org/1999/02/22-rdf-syntax-ns#type" =>
-            q.value match {
-              case "http://www.w3.org/2003/01/geo/wgs84_pos#SpatialThing"
-                   => adjustedGraph += q.copy(dataset = DBpediaDatasets.GeoCoordinates.encoded)
-              case _ => // This is the deafult types we get
-                adjustedGraph += q.copy(dataset = DBpediaDatasets.OntologyTypes.encoded)
-                // Generate inferred types
-                context.ontology.classes.get(q.value.replace("http://dbpedia.org/ontology/", "")) match {
-                  case Some(clazz) =>
-                    for (cls <- clazz.relatedClasses.filter(_ != clazz))
-                      adjustedGraph += new Quad(context.language, DBpediaDatasets.OntologyTypesTransitive, subjectUri, rdfType, cls.uri, page.wikiPage.sourceIri)
-                  case None =>
-                }
-            }
+  private def getDataset(property: OntologyProperty, value: String): Dataset = {
+    property.uri match {
+        // split type statements, some types e.g. cordinates go to separate datasets
+      case "http://www.w3.org/1999/02/22-rdf-syntax-ns#type" =>
+        if (value == "http://www.w3.org/2003/01/geo/wgs84_pos#SpatialThing") DBpediaDatasets.GeoCoordinates
+        else DBpediaDatasets.OntologyTypes // This is the deafult types we get
 
-          case "http://www.w3.org/2000/01/rdf-schema#subClassOf"
-                => adjustedGraph += q.copy(dataset = DBpediaDatasets.WikidataR2R_ontology.encoded)
+      case "http://www.w3.org/2000/01/rdf-schema#subClassOf"
+            => DBpediaDatasets.WikidataR2R_ontology
 
-            // coordinates dataset
-          case "http://www.w3.org/2003/01/geo/wgs84_pos#lat" | "http://www.w3.org/2003/01/geo/wgs84_pos#long" | "http://www.georss.org/georss/point"
-                => adjustedGraph += q.copy(dataset = DBpediaDatasets.GeoCoordinates.encoded)
+        // coordinates dataset
+      case "http://www.w3.org/2003/01/geo/wgs84_pos#lat" | "http://www.w3.org/2003/01/geo/wgs84_pos#long" | "http://www.georss.org/georss/point"
+            => DBpediaDatasets.GeoCoordinates
 
-            //Images dataset
-          case  "http://xmlns.com/foaf/0.1/thumbnail" | "http://xmlns.com/foaf/0.1/depiction" | "http://dbpedia.org/ontology/thumbnail"
-                => adjustedGraph += q.copy(dataset = DBpediaDatasets.Images.encoded)
+        //Images dataset
+      case  "http://xmlns.com/foaf/0.1/thumbnail" | "http://xmlns.com/foaf/0.1/depiction" | "http://dbpedia.org/ontology/thumbnail"
+            => DBpediaDatasets.Images
 
-            // sameAs links
-          case "http://www.w3.org/2002/07/owl#sameAs" =>
-            // We get the commons:Creator links
-            if (q.value.startsWith("http://commons.dbpedia.org")) {
-              adjustedGraph += q.copy(dataset = DBpediaDatasets.WikidataNameSpaceSameAs.encoded)
-            } else {
-              adjustedGraph += q.copy(dataset = DBpediaDatasets.WikidataSameAsExternal.encoded)
-            }
+        // sameAs links, we get the commons:Creator links
+      case "http://www.w3.org/2002/07/owl#sameAs" =>
+        if (value.startsWith("http://commons.dbpedia.org")) DBpediaDatasets.WikidataNameSpaceSameAs
+        else DBpediaDatasets.WikidataSameAsExternal
 
-          case _ => adjustedGraph += q
-        }
-      } else adjustedGraph += q
-    })
+      case _ =>
+        //split to literal / object datasets
+        if (property.isInstanceOf[OntologyObjectProperty]) DBpediaDatasets.WikidataR2R_objects else DBpediaDatasets.WikidataR2R_literals
+    }
+  }
 
-    adjustedGraph
+  /**
+   * Generate inferred types
+   */
+  private def addTransitiveTypes(page: JsonNode, subjectUri: String, value: String, quads: ArrayBuffer[Quad]): Unit = {
+    if (value != "http://www.w3.org/2003/01/geo/wgs84_pos#SpatialThing") {
+      context.ontology.classes.get(value.replace("http://dbpedia.org/ontology/", "")) match {
+        case Some(clazz) =>
+          for (cls <- clazz.relatedClasses.filter(_ != clazz))
+            quads += new Quad(context.language, DBpediaDatasets.OntologyTypesTransitive, subjectUri, rdfType, cls.uri, page.wikiPage.sourceIri)
+        case None =>
+      }
+    }
   }
-}
\ No newline at end of file
+}
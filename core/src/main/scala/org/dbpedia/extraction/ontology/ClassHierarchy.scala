@@ -0,0 +1,134 @@
+package org.dbpedia.extraction.ontology
+
+import scala.collection.mutable
+
+/**
+ * Immutable index of the class hierarchy of an ontology, built once by OntologyReader and shared by all threads.
+ *
+ * Every class of the ontology, and every class reachable from them, gets a dense id. For each class,
+ * bitsets over these ids hold its transitive super classes, its related classes (see OntologyClass.relatedClasses)
+ * and the classes it is disjoint with, so that the tests below are a few word operations instead of walks
+ * through the hierarchy. Classes that are not in the index are handled by walking the hierarchy, like before.
+ *
+ * @param roots the classes of the ontology
+ */
+class ClassHierarchy(roots: Iterable[OntologyClass]) extends java.io.Serializable
+{
+  import ClassHierarchy._
+
+  private val ids = new mutable.HashMap[OntologyClass, Int]()
+
+  private val byId = new mutable.ArrayBuffer[OntologyClass]()
+
+  private def register(cls: OntologyClass): Unit = {
+    if (! ids.contains(cls)) {
+      ids(cls) = byId.size
+      byId += cls
+      cls.relatedClasses.foreach(register)
+      cls.disjointWithClasses.foreach(register)
+    }
+  }
+
+  roots.foreach(register)
+
+  private val words = (byId.size + 63) / 64
+
+  // per id: ids of the related classes, in the order of OntologyClass.relatedClasses
+  private val relatedIds: Array[Array[Int]] = byId.map(_.relatedClasses.map(ids).toArray).toArray
+
+  private val related: Array[Array[Long]] = relatedIds.map(bitset)
+
+  // per id: the class and its transitive base classes, without equivalent classes
+  private val ancestors: Array[Array[Long]] = byId.map { cls =>
+    val found = new mutable.LinkedHashSet[Int]()
+    def collect(c: OntologyClass): Unit = if (found.add(ids(c))) c.baseClasses.foreach(collect)
+    collect(cls)
+    bitset(found)
+  }.toArray
+
+  // per id: all classes that are disjoint with the class or one of its related classes, in either direction
+  private val disjoint: Array[Array[Long]] = {
+    val direct = Array.fill(byId.size)(new Array[Long](words))
+    for (cls <- byId; other <- cls.disjointWithClasses) {
+      set(direct(ids(cls)), ids(other))
+      set(direct(ids(other)), ids(cls))
+    }
+    relatedIds.map { relatedOfClass =>
+      val bits = new Array[Long](words)
+      for (id <- relatedOfClass; w <- 0 until words) bits(w) |= direct(id)(w)
+      bits
+    }
+  }
+
+  private def bitset(members: Iterable[Int]): Array[Long] = {
+    val bits = new Array[Long](words)
+    members.foreach(set(bits, _))
+    bits
+  }
+
+  private def id(cls: OntologyClass): Int = ids.getOrElse(cls, -1)
+
+  /**
+   * @return number of classes in the index
+   */
+  def size: Int = byId.size
+
+  /**
+   * @return true if sup is sub or one of its transitive base classes, see Ontology.isSubclassOf
+   */
+  def isSubclassOf(sub: OntologyClass, sup: OntologyClass): Boolean = {
+    val subId = id(sub)
+    val supId = id(sup)
+    if (subId >= 0 && supId >= 0) get(ancestors(subId), supId)
+    else (sup eq sub) || sub.baseClasses.exists(isSubclassOf(_, sup))
+  }
+
+  /**
+   * @return true if other is one of cls.relatedClasses
+   */
+  def isRelated(cls: OntologyClass, other: OntologyClass): Boolean = {
+    val clsId = id(cls)
+    val otherId = id(other)
+    if (clsId >= 0 && otherId >= 0) get(related(clsId), otherId)
+    else cls.relatedClasses.contains(other)
+  }
+
+  /**
+   * @return the related classes of cls that are not related classes of other, in the order of cls.relatedClasses
+   */
+  def relatedClassesNotIn(cls: OntologyClass, other: OntologyClass): Seq[OntologyClass] = {
+    val clsId = id(cls)
+    val otherId = id(other)
+    if (clsId >= 0 && otherId >= 0) {
+      val otherRelated = related(otherId)
+      relatedIds(clsId).filterNot(get(otherRelated, _)).map(byId)
+    }
+    else cls.relatedClasses.filterNot(c => other.relatedClasses.contains(c))
+  }
+
+  /**
+   * @return true if a related class of one class is declared disjoint with a related class of the other class
+   */
+  def isDisjoint(cls: OntologyClass, other: OntologyClass): Boolean = {
+    val clsId = id(cls)
+    val otherId = id(other)
+    if (clsId >= 0 && otherId >= 0) intersects(disjoint(clsId), related(otherId))
+    else cls.relatedClasses.exists(c => other.relatedClasses.exists(o => c.disjointWithClasses.contains(o) || o.disjointWithClasses.contains(c)))
+  }
+}
+
+object ClassHierarchy
+{
+  private def set(bits: Array[Long], id: Int): Unit = bits(id >>> 6) |= 1L << id
+
+  private def get(bits: Array[Long], id: Int): Boolean = (bits(id >>> 6) & (1L << id)) != 0
+
+  private def intersects(a: Array[Long], b: Array[Long]): Boolean = {
+    var i = 0
+    while (i < a.length) {
+      if ((a(i) & b(i)) != 0) return true
+      i += 1
+    }
+    false
+  }
+}
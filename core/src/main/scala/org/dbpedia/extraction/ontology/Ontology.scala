@@ -10,6 +10,7 @@ import datatypes._
  * @param datatypes The datatypes of this ontology
  * @param specializations Map of all ontology properties which are specialized to a specific datatype.
  * Example: The entry (Person, height) -> centimetre denotes a specialized property Person/height which has the range centimetres.
+ * @param hierarchy Index of the class hierarchy of the classes
  */
 class Ontology ( 
   val classes : Map[String, OntologyClass],
@@ -17,8 +18,19 @@ class Ontology (
   val datatypes : Map[String, Datatype],
   val specializations : Map[(OntologyClass, OntologyProperty), UnitDatatype],
   val wikidataPropertiesMap : Map[String,Set[OntologyProperty]],
-  val wikidataClassesMap : Map[String,Set[OntologyClass]]
+  val wikidataClassesMap : Map[String,Set[OntologyClass]],
+  val hierarchy : ClassHierarchy
 ) extends java.io.Serializable {
+
+  def this(
+    classes : Map[String, OntologyClass],
+    properties : Map[String, OntologyProperty],
+    datatypes : Map[String, Datatype],
+    specializations : Map[(OntologyClass, OntologyProperty), UnitDatatype],
+    wikidataPropertiesMap : Map[String,Set[OntologyProperty]],
+    wikidataClassesMap : Map[String,Set[OntologyClass]]
+  ) = this(classes, properties, datatypes, specializations, wikidataPropertiesMap, wikidataClassesMap, new ClassHierarchy(classes.values))
+
   def getOntologyClass(id: String): Option[OntologyClass] ={
     val iid = if(id.contains("/")) id.substring(id.lastIndexOf("/")+1) else id
     classes.get(iid)
@@ -44,11 +56,7 @@ class Ontology (
     wikidataPropertiesMap.get(iid)
   }
 
-  def isSubclassOf(sub: OntologyClass, sup: OntologyClass): Boolean ={
-    if (sup eq sub)
-      return true
-    sub.baseClasses.map(isSubclassOf(_, sup)).foldLeft(false)(_||_)
-  }
+  def isSubclassOf(sub: OntologyClass, sup: OntologyClass): Boolean = hierarchy.isSubclassOf(sub, sup)
 
   def isSuperclassOf(sup: OntologyClass, sub: OntologyClass): Boolean = isSubclassOf(sub, sup)
 }
\ No newline at end of file
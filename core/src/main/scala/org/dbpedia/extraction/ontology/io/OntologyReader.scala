@@ -341,12 +341,15 @@ class OntologyReader
             val propertyMap = properties.map( property => (property.name, property) ).toMap
             val typeMap = datatypes.map( datatype => (datatype.name, datatype) ).toMap
 
-            new Ontology( classes.flatMap(_.build(classMap)).map(c => (c.name, c)).toMap,
+            val ontologyClasses = classes.flatMap(_.build(classMap)).map(c => (c.name, c)).toMap
+
+            new Ontology( ontologyClasses,
                           properties.flatMap(_.build(classMap, typeMap)).map(p => (p.name, p)).toMap,
                           datatypes.map(t => (t.name, t)).toMap,
                           specializedProperties.flatMap(_.build(classMap, propertyMap, typeMap)).toMap,
                           equivalentPropertiesBuilderMap.map{m=>m._1 -> m._2.flatMap(_.build(classMap,typeMap))},
-                          equivalentClassesMap.map{m=>m._1 -> m._2.flatMap(_.build(classMap))})
+                          equivalentClassesMap.map{m=>m._1 -> m._2.flatMap(_.build(classMap))},
+                          new ClassHierarchy(ontologyClasses.values))
         }
     }
 
@@ -0,0 +1,370 @@
+package org.dbpedia.extraction.ontology.io
+
+import java.io._
+import java.nio.file.{Files, StandardCopyOption}
+import java.security.MessageDigest
+import java.util
+import java.util.logging.{Level, Logger}
+
+import org.dbpedia.extraction.ontology._
+import org.dbpedia.extraction.ontology.datatypes.{Datatype, UnitDatatype}
+import org.dbpedia.extraction.util.Language
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Binary snapshot of a fully linked ontology, so that a restart doesn't have to parse the ontology pages again.
+ *
+ * The snapshot starts with a format version and the SHA-256 hash of the ontology source file, and is ignored if
+ * either doesn't match. Classes and properties are written once each, in a table, and refer to each other by
+ * their position in the tables, so that shared instances are shared again after loading. Datatypes are defined in
+ * code (OntologyDatatypes) and are only referenced by name.
+ */
+object OntologySnapshot
+{
+  private val logger = Logger.getLogger(OntologySnapshot.getClass.getName)
+
+  private val Magic = 0x44424f53 // "DBOS"
+
+  private val Version = 1
+
+  // property kinds
+  private val PlainProperty = 0
+  private val ObjectProperty = 1
+  private val DatatypeProperty = 2
+
+  /**
+   * Loads the ontology from the snapshot next to the source file if it is up to date, otherwise reads the
+   * ontology from the source and writes a new snapshot.
+   *
+   * @param source ontology source file
+   * @param parse reads the ontology from the source
+   */
+  def load(source: File, parse: => Ontology): Ontology = {
+    val snapshot = new File(source.getPath + ".snapshot")
+    val hash = sha256(source)
+    val loaded = if (snapshot.isFile) {
+      try read(snapshot, hash)
+      catch {
+        case ex: Exception =>
+          logger.log(Level.WARNING, "could not read ontology snapshot " + snapshot + ", reading " + source, ex)
+          None
+      }
+    } else None
+
+    loaded match {
+      case Some(ontology) =>
+        logger.info("Loaded ontology from snapshot " + snapshot)
+        ontology
+      case None =>
+        val ontology = parse
+        try write(ontology, snapshot, hash)
+        catch {
+          case ex: IOException => logger.log(Level.WARNING, "could not write ontology snapshot " + snapshot, ex)
+        }
+        ontology
+    }
+  }
+
+  def sha256(file: File): Array[Byte] = {
+    val digest = MessageDigest.getInstance("SHA-256")
+    val in = new FileInputStream(file)
+    try {
+      val buffer = new Array[Byte](1 << 16)
+      var count = in.read(buffer)
+      while (count >= 0) {
+        digest.update(buffer, 0, count)
+        count = in.read(buffer)
+      }
+    }
+    finally in.close()
+    digest.digest()
+  }
+
+  /**
+   * Writes the snapshot to a temporary file first, so that concurrent readers never see a partial snapshot.
+   */
+  def write(ontology: Ontology, file: File, hash: Array[Byte]): Unit = {
+    val temp = File.createTempFile(file.getName, ".tmp", file.getAbsoluteFile.getParentFile)
+    try {
+      val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))
+      try new SnapshotWriter(out).write(ontology, hash)
+      finally out.close()
+      Files.move(temp.toPath, file.toPath, StandardCopyOption.REPLACE_EXISTING)
+    }
+    finally temp.delete()
+  }
+
+  /**
+   * @return None if the snapshot has a different version or was made from a different source
+   */
+  def read(file: File, hash: Array[Byte]): Option[Ontology] = {
+    val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))
+    try new SnapshotReader(in).read(hash)
+    finally in.close()
+  }
+
+  private class SnapshotWriter(out: DataOutputStream)
+  {
+    // by identity: the reader creates separate instances for classes with the same name, e.g. external classes
+    private val classIds = new util.IdentityHashMap[OntologyClass, Integer]()
+    private val classes = new ArrayBuffer[OntologyClass]()
+    private val propertyIds = new util.IdentityHashMap[OntologyProperty, Integer]()
+    private val properties = new ArrayBuffer[OntologyProperty]()
+
+    private def addClass(cls: OntologyClass): Unit = {
+      if (! classIds.containsKey(cls)) {
+        classIds.put(cls, classes.size)
+        classes += cls
+        cls.baseClasses.foreach(addClass)
+        cls.equivalentClasses.foreach(addClass)
+        cls.disjointWithClasses.foreach(addClass)
+      }
+    }
+
+    private def addProperty(property: OntologyProperty): Unit = {
+      if (! propertyIds.containsKey(property)) {
+        propertyIds.put(property, properties.size)
+        properties += property
+        if (property.domain != null) addClass(property.domain)
+        property.range match {
+          case cls: OntologyClass => addClass(cls)
+          case _ =>
+        }
+        property.equivalentProperties.foreach(addProperty)
+        property.superProperties.foreach(addProperty)
+      }
+    }
+
+    def write(ontology: Ontology, hash: Array[Byte]): Unit = {
+      ontology.classes.values.foreach(addClass)
+      ontology.properties.values.foreach(addProperty)
+      for (((cls, property), _) <- ontology.specializations) {
+        addClass(cls)
+        addProperty(property)
+      }
+      ontology.wikidataClassesMap.values.flatten.foreach(addClass)
+      ontology.wikidataPropertiesMap.values.flatten.foreach(addProperty)
+
+      out.writeInt(Magic)
+      out.writeInt(Version)
+      out.writeInt(hash.length)
+      out.write(hash)
+
+      // first all instances, then the links between them, so that the reader can create them in two passes
+      out.writeInt(classes.size)
+      for (cls <- classes) {
+        writeString(cls.name)
+        writeTexts(cls.labels)
+        writeTexts(cls.comments)
+      }
+      for (cls <- classes) {
+        writeClasses(cls.baseClasses)
+        writeClasses(cls.equivalentClasses)
+        writeClasses(cls.disjointWithClasses)
+      }
+
+      // a property can only be created after its equivalent and super properties, see propertyOrder
+      out.writeInt(properties.size)
+      for (property <- propertyOrder) {
+        out.writeInt(propertyIds.get(property))
+        writeString(property.name)
+        writeTexts(property.labels)
+        writeTexts(property.comments)
+        out.writeBoolean(property.isFunctional)
+        out.writeInt(if (property.domain == null) -1 else classIds.get(property.domain))
+        property match {
+          case p: OntologyObjectProperty =>
+            out.writeByte(ObjectProperty)
+            out.writeInt(classIds.get(p.range))
+          case p: OntologyDatatypeProperty =>
+            out.writeByte(DatatypeProperty)
+            writeString(p.range.name)
+          case p =>
+            out.writeByte(PlainProperty)
+            p.range match {
+              case null => out.writeByte(0)
+              case cls: OntologyClass => out.writeByte(1); out.writeInt(classIds.get(cls))
+              case datatype: Datatype => out.writeByte(2); writeString(datatype.name)
+              case other => throw new IOException("cannot write range " + other + " of property " + p.name)
+            }
+        }
+        writeProperties(property.equivalentProperties)
+        writeProperties(property.superProperties)
+      }
+
+      out.writeInt(ontology.classes.size)
+      for ((name, cls) <- ontology.classes) {
+        writeString(name)
+        out.writeInt(classIds.get(cls))
+      }
+      out.writeInt(ontology.properties.size)
+      for ((name, property) <- ontology.properties) {
+        writeString(name)
+        out.writeInt(propertyIds.get(property))
+      }
+      out.writeInt(ontology.specializations.size)
+      for (((cls, property), datatype) <- ontology.specializations) {
+        out.writeInt(classIds.get(cls))
+        out.writeInt(propertyIds.get(property))
+        writeString(datatype.name)
+      }
+      out.writeInt(ontology.wikidataClassesMap.size)
+      for ((name, set) <- ontology.wikidataClassesMap) {
+        writeString(name)
+        writeClasses(set)
+      }
+      out.writeInt(ontology.wikidataPropertiesMap.size)
+      for ((name, set) <- ontology.wikidataPropertiesMap) {
+        writeString(name)
+        writeProperties(set)
+      }
+    }
+
+    private def propertyOrder: Seq[OntologyProperty] = {
+      val done = new util.IdentityHashMap[OntologyProperty, Integer]()
+      val order = new ArrayBuffer[OntologyProperty]()
+      def visit(property: OntologyProperty): Unit = {
+        if (! done.containsKey(property)) {
+          done.put(property, 0)
+          property.equivalentProperties.foreach(visit)
+          property.superProperties.foreach(visit)
+          order += property
+        }
+      }
+      properties.foreach(visit)
+      order
+    }
+
+    private def writeClasses(set: Iterable[OntologyClass]): Unit = {
+      out.writeInt(set.size)
+      for (cls <- set) out.writeInt(classIds.get(cls))
+    }
+
+    private def writeProperties(set: Iterable[OntologyProperty]): Unit = {
+      out.writeInt(set.size)
+      for (property <- set) out.writeInt(propertyIds.get(property))
+    }
+
+    private def writeTexts(texts: Map[Language, String]): Unit = {
+      out.writeInt(texts.size)
+      for ((language, text) <- texts) {
+        writeString(language.wikiCode)
+        writeString(text)
+      }
+    }
+
+    // writeUTF is limited to 64 KB
+    private def writeString(string: String): Unit = {
+      val bytes = string.getBytes("UTF-8")
+      out.writeInt(bytes.length)
+      out.write(bytes)
+    }
+  }
+
+  private class SnapshotReader(in: DataInputStream)
+  {
+    private val datatypes: Map[String, Datatype] = OntologyDatatypes.load().map(t => (t.name, t)).toMap
+
+    def read(hash: Array[Byte]): Option[Ontology] = {
+      if (in.readInt() != Magic || in.readInt() != Version) return None
+      val snapshotHash = new Array[Byte](in.readInt())
+      in.readFully(snapshotHash)
+      if (! util.Arrays.equals(hash, snapshotHash)) return None
+
+      // classes are immutable and refer to each other, so they are created from builders that are linked first
+      val classCount = in.readInt()
+      val names = new Array[String](classCount)
+      val labels = new Array[Map[Language, String]](classCount)
+      val comments = new Array[Map[Language, String]](classCount)
+      for (i <- 0 until classCount) {
+        names(i) = readString()
+        labels(i) = readTexts()
+        comments(i) = readTexts()
+      }
+      val bases = new Array[Seq[Int]](classCount)
+      val equivalents = new Array[Seq[Int]](classCount)
+      val disjoints = new Array[Seq[Int]](classCount)
+      for (i <- 0 until classCount) {
+        bases(i) = readIds()
+        equivalents(i) = readIds()
+        disjoints(i) = readIds()
+      }
+      val classes = new Array[OntologyClass](classCount)
+      def build(i: Int): OntologyClass = {
+        if (classes(i) == null) {
+          // same as OntologyReader: no cycle detection, the reader would have failed on cycles already
+          classes(i) = new OntologyClass(names(i), labels(i), comments(i), bases(i).map(build).toList,
+            equivalents(i).map(build).toSet, disjoints(i).map(build).toSet)
+        }
+        classes(i)
+      }
+      for (i <- 0 until classCount) build(i)
+
+      val properties = new Array[OntologyProperty](in.readInt())
+      for (_ <- properties.indices) {
+        val id = in.readInt()
+        val name = readString()
+        val propertyLabels = readTexts()
+        val propertyComments = readTexts()
+        val isFunctional = in.readBoolean()
+        val domain = in.readInt() match {
+          case -1 => null
+          case i => classes(i)
+        }
+        properties(id) = in.readByte().toInt match {
+          case ObjectProperty =>
+            val range = classes(in.readInt())
+            new OntologyObjectProperty(name, propertyLabels, propertyComments, domain, range, isFunctional,
+              readIds().map(properties).toSet, readIds().map(properties).toSet)
+          case DatatypeProperty =>
+            val range = datatype(readString())
+            new OntologyDatatypeProperty(name, propertyLabels, propertyComments, domain, range, isFunctional,
+              readIds().map(properties).toSet, readIds().map(properties).toSet)
+          case PlainProperty =>
+            val range = in.readByte().toInt match {
+              case 0 => null
+              case 1 => classes(in.readInt())
+              case _ => datatype(readString())
+            }
+            new OntologyProperty(name, propertyLabels, propertyComments, domain, range, isFunctional,
+              readIds().map(properties).toSet, readIds().map(properties).toSet)
+          case kind => throw new IOException("invalid property kind " + kind)
+        }
+      }
+
+      val classMap = Array.fill(in.readInt())(readString() -> classes(in.readInt())).toMap
+      val propertyMap = Array.fill(in.readInt())(readString() -> properties(in.readInt())).toMap
+      val specializations = Array.fill(in.readInt()) {
+        val cls = classes(in.readInt())
+        val property = properties(in.readInt())
+        val name = readString()
+        datatype(name) match {
+          case unit: UnitDatatype => (cls, property) -> unit
+          case _ => throw new IOException("specialized datatype " + name + " is not a unit")
+        }
+      }.toMap
+      val wikidataClasses = Array.fill(in.readInt())(readString() -> readIds().map(classes).toSet).toMap
+      val wikidataProperties = Array.fill(in.readInt())(readString() -> readIds().map(properties).toSet).toMap
+
+      Some(new Ontology(classMap, propertyMap, datatypes, specializations, wikidataProperties, wikidataClasses))
+    }
+
+    private def datatype(name: String): Datatype =
+      datatypes.getOrElse(name, throw new IOException("unknown datatype " + name + ", the snapshot is outdated"))
+
+    private def readIds(): Seq[Int] = Array.fill(in.readInt())(in.readInt())
+
+    private def readTexts(): Map[Language, String] = Array.fill(in.readInt()) {
+      val code = readString()
+      val language = Language.get(code).getOrElse(throw new IOException("unknown language " + code))
+      language -> readString()
+    }.toMap
+
+    private def readString(): String = {
+      val bytes = new Array[Byte](in.readInt())
+      in.readFully(bytes)
+      new String(bytes, "UTF-8")
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package org.dbpedia.extraction.sources
+
+import java.io._
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+
+import org.dbpedia.extraction.util.IOUtils
+import org.dbpedia.extraction.util.RichFile.wrapFile
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Cuts a MediaWiki XML dump into byte ranges that can each be read by their own WikipediaDumpParser:
+ * uncompressed dumps at <page> tags, multistream bz2 dumps at the stream offsets given by their index.
+ */
+object XMLDumpRanges
+{
+  private val PageTag = "<page>".getBytes(StandardCharsets.US_ASCII)
+
+  private val Header = "<mediawiki>\n".getBytes(StandardCharsets.US_ASCII)
+
+  private val Footer = "</mediawiki>\n".getBytes(StandardCharsets.US_ASCII)
+
+  /**
+   * Splits the file into at most the given number of ranges of roughly the same size.
+   * Each range starts at a <page> tag. The last range runs to the end of the file and
+   * therefore contains the closing </mediawiki> tag of the dump.
+   *
+   * @return (start, end) byte offsets, empty if the file contains no page
+   */
+  def split(file: File, splits: Int): Seq[(Long, Long)] = {
+    val channel = new RandomAccessFile(file, "r").getChannel
+    try {
+      val length = channel.size
+      val first = find(channel, 0, PageTag)
+      if (first < 0) return Seq()
+
+      val chunk = (length - first) / math.max(splits, 1)
+      val starts = new ArrayBuffer[Long]()
+      starts += first
+      for (i <- 1 until splits) {
+        val start = find(channel, math.max(first + i * chunk, starts.last + 1), PageTag)
+        if (start > starts.last) starts += start
+      }
+
+      starts.zip(starts.tail :+ length)
+    }
+    finally channel.close()
+  }
+
+  /**
+   * Splits a multistream bz2 dump into at most the given number of ranges of roughly the same
+   * size, using the stream offsets of its index file. Each range consists of complete bz2 streams. The first
+   * stream only contains the <siteinfo> header and is not part of any range. The last range
+   * runs to the end of the file and therefore contains the closing </mediawiki> tag of the dump.
+   *
+   * @param index the multistream index file, lines have the format offset:pageid:title
+   * @return (start, end) byte offsets, empty if the index contains no offset
+   */
+  def splitMultistream(file: File, index: File, splits: Int): Seq[(Long, Long)] = {
+    val offsets = new java.util.TreeSet[java.lang.Long]()
+    IOUtils.readLines(index) { line =>
+      if (line != null && line.nonEmpty)
+        offsets.add(line.substring(0, line.indexOf(':')).toLong)
+    }
+    if (offsets.isEmpty) return Seq()
+
+    val length = file.length
+    val chunk = math.max((length - offsets.first) / math.max(splits, 1), 1L)
+    val starts = new ArrayBuffer[Long]()
+    val it = offsets.iterator()
+    while (it.hasNext) {
+      val offset = it.next().longValue
+      if (starts.isEmpty || offset - starts.last >= chunk) starts += offset
+    }
+
+    starts.zip(starts.tail :+ length)
+  }
+
+  /**
+   * Opens a reader over the given byte range of the file, wrapped in a synthetic <mediawiki>
+   * root element so that WikipediaDumpParser can read it like a complete dump.
+   *
+   * @param last true if the range runs to the end of the file and already contains </mediawiki>
+   * @param unzipper wraps the raw bytes of the range, e.g. to decompress a range of bz2 streams
+   */
+  def reader(file: File, start: Long, end: Long, last: Boolean, unzipper: InputStream => InputStream = identity): Reader = {
+    val range = new RangeInputStream(new RandomAccessFile(file, "r"), start, end)
+    val streams = new java.util.Vector[InputStream]()
+    streams.add(new ByteArrayInputStream(Header))
+    streams.add(new BufferedInputStream(unzipper(new BufferedInputStream(range, 1 << 16)), 1 << 16))
+    if (! last) streams.add(new ByteArrayInputStream(Footer))
+    new InputStreamReader(new SequenceInputStream(streams.elements()), StandardCharsets.UTF_8)
+  }
+
+  /**
+   * @return offset of the first occurrence of pattern at or after from, or -1
+   */
+  private def find(channel: FileChannel, from: Long, pattern: Array[Byte]): Long = {
+    val buffer = ByteBuffer.allocate(1 << 20)
+    val bytes = buffer.array()
+    var pos = from
+    while (pos < channel.size) {
+      buffer.clear()
+      val read = channel.read(buffer, pos)
+      if (read < pattern.length) return -1
+
+      var i = 0
+      while (i <= read - pattern.length) {
+        var j = 0
+        while (j < pattern.length && bytes(i + j) == pattern(j)) j += 1
+        if (j == pattern.length) return pos + i
+        i += 1
+      }
+      // keep the last pattern.length - 1 bytes, the pattern may straddle two buffers
+      pos += read - pattern.length + 1
+    }
+    -1
+  }
+
+  /**
+   * Reads the bytes from start (inclusive) to end (exclusive) of a file.
+   */
+  private class RangeInputStream(file: RandomAccessFile, start: Long, end: Long) extends InputStream
+  {
+    private var pos = start
+
+    file.seek(start)
+
+    override def read(): Int = {
+      if (pos >= end) return -1
+      val b = file.read()
+      if (b != -1) pos += 1
+      b
+    }
+
+    override def read(buf: Array[Byte], off: Int, len: Int): Int = {
+      if (pos >= end) return -1
+      val read = file.read(buf, off, math.min(len.toLong, end - pos).toInt)
+      if (read > 0) pos += read
+      read
+    }
+
+    override def close(): Unit = file.close()
+  }
+}
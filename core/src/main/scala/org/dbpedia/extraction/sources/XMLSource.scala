@@ -1,10 +1,12 @@
 package org.dbpedia.extraction.sources
 
-import java.io.{File, FileInputStream, InputStreamReader, Reader}
+import java.io._
 import java.util.concurrent.{Callable, ExecutorService, Executors}
 
-import org.dbpedia.extraction.util.Language
-import org.dbpedia.extraction.wikiparser.{WikiPage, WikiTitle}
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream
+import org.dbpedia.extraction.util.RichFile.wrapFile
+import org.dbpedia.extraction.util.{IOUtils, Language}
+import org.dbpedia.extraction.wikiparser.{Namespace, WikiPage, WikiTitle}
 
 import scala.collection.JavaConversions._
 import scala.util.Try
@@ -37,20 +39,84 @@ object XMLSource
       fromReaders(files.map { f => () => new InputStreamReader(new FileInputStream(f), "UTF-8") }, language, filter)
     }
 
+    /**
+     * Creates an XML Source which parses a single uncompressed dump file with several parsers
+     * running concurrently on byte ranges of the file. Pages are not yielded in dump order and
+     * the page processor is called from several threads.
+     * Falls back to a single parser if the file is compressed or splits is less than two.
+     *
+     * @param file The dump file to read from.
+     * @param splits number of byte ranges, i.e. of parsers running concurrently
+     * @param filter Function to filter pages by their title. Pages for which this function returns false, won't be yielded by the source.
+     * @param language parser expects file to be in this language, must not be null
+     * @param namespaces Only read pages in these namespaces. Other pages are skipped before their text is decoded. If empty, read all pages.
+     */
+    def fromSplitFile(file: File, language: Language, splits: Int, filter: WikiTitle => Boolean = _ => true, namespaces: Set[Namespace] = Set()) : Source = {
+      if (splits < 2 || ! isSplittable(file)) fromReader(() => IOUtils.reader(file), language, filter, namespaces)
+      else new SplitXMLFileSource(file, () => XMLDumpRanges.split(file, splits), identity, splits, language, filter, codes(namespaces))
+    }
+
+    /**
+     * Creates an XML Source which reads a multistream bz2 dump directly, without splitting it on disk.
+     * The stream offsets from the index file are used to decompress and parse groups of independent
+     * bz2 streams concurrently. Pages are not yielded in dump order and the page processor is called
+     * from several threads.
+     * Falls back to a single parser if threads is less than two.
+     *
+     * @param file The multistream dump file, e.g. enwiki-20181001-pages-articles-multistream.xml.bz2
+     * @param index The matching index file, e.g. enwiki-20181001-pages-articles-multistream-index.txt.bz2
+     * @param threads number of bz2 decompressors and parsers running concurrently
+     * @param filter Function to filter pages by their title. Pages for which this function returns false, won't be yielded by the source.
+     * @param language parser expects file to be in this language, must not be null
+     * @param namespaces Only read pages in these namespaces. Other pages are skipped before their text is decoded. If empty, read all pages.
+     */
+    def fromMultistreamFile(file: File, index: File, language: Language, threads: Int, filter: WikiTitle => Boolean = _ => true, namespaces: Set[Namespace] = Set()) : Source = {
+      if (threads < 2) fromReader(() => IOUtils.reader(file), language, filter, namespaces)
+      // several ranges per thread, streams differ a lot in size
+      else new SplitXMLFileSource(file, () => XMLDumpRanges.splitMultistream(file, index, threads * 8),
+        new BZip2CompressorInputStream(_, true), threads, language, filter, codes(namespaces))
+    }
+
+    /**
+     * @return the index file of a multistream bz2 dump, if the dump is a multistream dump and its index exists
+     */
+    def multistreamIndex(file: File) : Option[File] = {
+      val name = file.getName
+      if (! name.endsWith("multistream.xml.bz2")) None
+      else Option(new File(file.getParentFile, name.stripSuffix("multistream.xml.bz2") + "multistream-index.txt.bz2")).filter(_.isFile)
+    }
+
+    /**
+     * @return true if the file is not compressed and can be split into byte ranges
+     */
+    def isSplittable(file: File) : Boolean = {
+      val name = file.getName
+      ! IOUtils.unzippers.contains(name.substring(name.lastIndexOf('.') + 1))
+    }
+
     /**
      * Creates an XML Source from a reader.
      *
      * @param source The input stream to read from. Will be closed after reading.
      * @param filter Function to filter pages by their title. Pages for which this function returns false, won't be yielded by the source.
      * @param language if given, parser expects file to be in this language and doesn't read language from siteinfo element
+     * @param namespaces Only read pages in these namespaces. Other pages are skipped before their text is decoded. If empty, read all pages.
      */
-    def fromReader(source: () => Reader, language: Language, filter: WikiTitle => Boolean = _ => true) : Source = {
-      new XMLReaderSource(source, language, filter)
+    def fromReader(source: () => Reader, language: Language, filter: WikiTitle => Boolean = _ => true, namespaces: Set[Namespace] = Set()) : Source = {
+      new XMLReaderSource(source, language, filter, codes(namespaces))
+    }
+
+    def fromReaders(sources: Seq[() => Reader], language: Language, filter: WikiTitle => Boolean = _ => true, namespaces: Set[Namespace] = Set()) : Source = {
+      if (sources.size == 1) fromReader(sources.head, language, filter, namespaces) // no need to create an ExecutorService
+      else new MultipleXMLReaderSource(sources, language, filter, codes(namespaces))
     }
 
-    def fromReaders(sources: Seq[() => Reader], language: Language, filter: WikiTitle => Boolean = _ => true) : Source = {
-      if (sources.size == 1) fromReader(sources.head, language, filter) // no need to create an ExecutorService
-      else new MultipleXMLReaderSource(sources, language, filter)
+    /**
+     * @return namespace codes for WikipediaDumpParser, null if namespaces is empty
+     */
+    private def codes(namespaces: Set[Namespace]) : java.util.Set[Integer] = {
+      if (namespaces.isEmpty) null
+      else new java.util.HashSet[Integer](namespaces.map(ns => Int.box(ns.code)))
     }
 
     /**
@@ -72,7 +138,7 @@ object XMLSource
 /**
  * XML source which reads from a file
  */
-private class MultipleXMLReaderSource(sources: Seq[() => Reader], language: Language, filter: WikiTitle => Boolean) extends Source
+private class MultipleXMLReaderSource(sources: Seq[() => Reader], language: Language, filter: WikiTitle => Boolean, namespaces: java.util.Set[Integer]) extends Source
 {
   var executorService : ExecutorService = _
 
@@ -86,7 +152,7 @@ private class MultipleXMLReaderSource(sources: Seq[() => Reader], language: Lang
         new Callable[Unit]() {
           def call() {
             val reader = source()
-            try new WikipediaDumpParser(reader, language, filter.asInstanceOf[WikiTitle => java.lang.Boolean], proc).run()
+            try new WikipediaDumpParser(reader, language, filter.asInstanceOf[WikiTitle => java.lang.Boolean], namespaces, proc).run()
             finally reader.close()
           }
         }
@@ -104,14 +170,51 @@ private class MultipleXMLReaderSource(sources: Seq[() => Reader], language: Lang
   override def hasDefiniteSize = true
 }
 
+/**
+ * XML source which reads byte ranges of one file concurrently
+ *
+ * @param ranges computes the byte ranges, called once per traversal
+ * @param unzipper wraps the raw bytes of each range
+ */
+private class SplitXMLFileSource(file: File, ranges: () => Seq[(Long, Long)], unzipper: InputStream => InputStream, threads: Int, language: Language, filter: WikiTitle => Boolean, namespaces: java.util.Set[Integer]) extends Source
+{
+  override def foreach[U](proc : WikiPage => U) : Unit = {
+
+    val split = ranges()
+    val executorService = Executors.newFixedThreadPool(math.max(math.min(split.size, threads), 1))
+
+    try {
+
+      val tasks = split.zipWithIndex.map { case ((start, end), index) =>
+        new Callable[Unit]() {
+          def call() {
+            val reader = XMLDumpRanges.reader(file, start, end, index == split.size - 1, unzipper)
+            try new WikipediaDumpParser(reader, language, filter.asInstanceOf[WikiTitle => java.lang.Boolean], namespaces, proc).run()
+            finally reader.close()
+          }
+        }
+      }
+
+      // Wait for the tasks to finish, rethrow the first failure
+      for (future <- executorService.invokeAll(tasks))
+        future.get()
+
+    } finally {
+      executorService.shutdown()
+    }
+  }
+
+  override def hasDefiniteSize = true
+}
+
 /**
  * XML source which reads from a file
  */
-private class XMLReaderSource(source: () => Reader, language: Language, filter: WikiTitle => Boolean) extends Source
+private class XMLReaderSource(source: () => Reader, language: Language, filter: WikiTitle => Boolean, namespaces: java.util.Set[Integer]) extends Source
 {
     override def foreach[U](proc : WikiPage => U) : Unit = {
       val reader = source()
-      try new WikipediaDumpParser(reader, language, filter.asInstanceOf[WikiTitle => java.lang.Boolean], proc).run()
+      try new WikipediaDumpParser(reader, language, filter.asInstanceOf[WikiTitle => java.lang.Boolean], namespaces, proc).run()
       finally reader.close()
     }
 
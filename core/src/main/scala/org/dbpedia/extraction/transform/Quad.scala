@@ -1,6 +1,6 @@
 package org.dbpedia.extraction.transform
 
-import org.dbpedia.extraction.config.provenance.Dataset
+import org.dbpedia.extraction.config.provenance.{DBpediaDatasets, Dataset}
 import org.dbpedia.extraction.ontology.datatypes.Datatype
 import org.dbpedia.extraction.ontology.{OntologyProperty, OntologyType}
 import org.dbpedia.extraction.transform.Quad._
@@ -50,15 +50,18 @@ with Equals with Serializable
     value: String,
     context: String,
     datatype: Datatype
-  ) = this(
-    if (language == null) null else language.isoCode,
-    if (dataset == null) null else dataset.encoded,
+  ) = {
+    this(
+      if (language == null) null else language.isoCode,
+      if (dataset == null) null else dataset.encoded,
       subject,
       predicate,
       value,
       context,
       if (datatype == null) null else datatype.uri
     )
+    if (dataset != null) ordinalPlus2 = dataset.ordinal + 2
+  }
 
   def this(
     language: Language,
@@ -83,6 +86,18 @@ with Equals with Serializable
   if (subject == null) throw new NullPointerException("subject")
   if (predicate == null) throw new NullPointerException("predicate")
   if (value == null) throw new NullPointerException("value")
+
+  // Dataset.ordinal of the dataset plus 2, so that 0 (also the value after deserialization) means
+  // 'not yet resolved' and 1 means 'unknown dataset'. Transient because ordinals are only valid within a JVM.
+  @transient private var ordinalPlus2 = 0
+
+  /**
+   * @return Dataset.ordinal of the dataset of this quad, -1 if the dataset is null or unknown
+   */
+  def datasetOrdinal: Int = {
+    if (ordinalPlus2 == 0) ordinalPlus2 = DBpediaDatasets.getOrdinal(dataset) + 2
+    ordinalPlus2 - 2
+  }
   
   def copy(
     dataset: String = this.dataset,
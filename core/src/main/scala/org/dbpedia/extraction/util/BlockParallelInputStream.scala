@@ -0,0 +1,470 @@
+package org.dbpedia.extraction.util
+
+import java.io._
+import java.util.concurrent._
+import java.util.zip.GZIPInputStream
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream
+
+/**
+ * Decompresses independent segments of a compressed stream on a small thread pool and
+ * returns the decompressed bytes in the original order.
+ *
+ * Subclasses cut the compressed input into segments at candidate boundaries. A candidate may be
+ * a false positive, i.e. lie inside compressed data. Decompressing such a segment fails, in which
+ * case the segment is merged with its successor and decompressed again.
+ *
+ * Not thread-safe, like most input streams.
+ *
+ * @param threads number of segments decompressed concurrently
+ */
+abstract class BlockParallelInputStream[S](threads: Int) extends InputStream
+{
+  require(threads > 0, "threads must be positive")
+
+  /**
+   * How many false candidate boundaries in a row we accept before giving up.
+   */
+  private val MaxMerges = 16
+
+  private val executor = Executors.newFixedThreadPool(threads, new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, BlockParallelInputStream.this.getClass.getSimpleName)
+      thread.setDaemon(true)
+      thread
+    }
+  })
+
+  private val pending = new java.util.ArrayDeque[(S, Future[Array[Byte]])]()
+
+  private var exhausted = false
+
+  private var rest: InputStream = null
+
+  private var block = new Array[Byte](0)
+
+  private var pos = 0
+
+  /**
+   * Read the next segment from the compressed input.
+   * @return null if there are no more segments
+   */
+  protected def nextSegment(): S
+
+  /**
+   * Called once after nextSegment() returned null.
+   * @return a stream that sequentially decompresses the remaining input, or null if there is none
+   */
+  protected def remainder(): InputStream = null
+
+  /**
+   * Decompress a segment. Called concurrently on pool threads.
+   * @throws IOException if the segment is not a valid compressed unit
+   */
+  protected def decompress(segment: S): Array[Byte]
+
+  /**
+   * @return a segment containing the compressed data of first followed by second
+   */
+  protected def merge(first: S, second: S): S
+
+  /**
+   * Close the compressed input.
+   */
+  protected def closeInput(): Unit
+
+  override def read(): Int = {
+    while (pos >= block.length) {
+      if (! nextBlock()) return if (rest != null) rest.read() else -1
+    }
+    val b = block(pos) & 0xFF
+    pos += 1
+    b
+  }
+
+  override def read(buf: Array[Byte], off: Int, len: Int): Int = {
+    if (len == 0) return 0
+    while (pos >= block.length) {
+      if (! nextBlock()) return if (rest != null) rest.read(buf, off, len) else -1
+    }
+    val count = math.min(len, block.length - pos)
+    System.arraycopy(block, pos, buf, off, count)
+    pos += count
+    count
+  }
+
+  override def available: Int = block.length - pos
+
+  override def close(): Unit = {
+    executor.shutdownNow()
+    pending.clear()
+    if (rest != null) rest.close()
+    closeInput()
+  }
+
+  private def submit(segment: S): Future[Array[Byte]] = {
+    executor.submit(new Callable[Array[Byte]] {
+      override def call(): Array[Byte] = decompress(segment)
+    })
+  }
+
+  /**
+   * Keep the pool busy: read ahead until twice as many segments as threads are queued.
+   */
+  private def fill(): Unit = {
+    while (! exhausted && pending.size < threads * 2) {
+      val segment = nextSegment()
+      if (segment == null) {
+        exhausted = true
+        rest = remainder()
+        if (rest == null) executor.shutdown()
+      }
+      else pending.add((segment, submit(segment)))
+    }
+  }
+
+  /**
+   * @return false if all segments have been returned
+   */
+  private def nextBlock(): Boolean = {
+    fill()
+    if (pending.isEmpty) return false
+
+    var (segment, future) = pending.poll()
+    var result: Array[Byte] = null
+    var merges = 0
+    while (result == null) {
+      try result = future.get()
+      catch {
+        case ex: ExecutionException =>
+          // probably a false boundary candidate - try again with the next segment appended
+          fill()
+          if (pending.isEmpty || merges >= MaxMerges) throw new IOException("cannot decompress segment", ex.getCause)
+          val (next, nextFuture) = pending.poll()
+          nextFuture.cancel(true)
+          segment = merge(segment, next)
+          future = submit(segment)
+          merges += 1
+        case ex: InterruptedException =>
+          throw new InterruptedIOException(ex.getMessage)
+      }
+    }
+    block = result
+    pos = 0
+    true
+  }
+}
+
+object BlockParallelInputStream
+{
+  /**
+   * Read all bytes from the given stream and close it.
+   */
+  private[util] def readFully(in: InputStream, sizeHint: Int): Array[Byte] = {
+    val out = new ByteArrayOutputStream(sizeHint)
+    try IOUtils.copy(in, out)
+    finally in.close()
+    out.toByteArray
+  }
+}
+
+/**
+ * Compressed bits of one or more bzip2 blocks, starting at bit 0 of bytes.
+ *
+ * @param ends bit offsets of end-of-stream magic numbers after the block, in ascending order.
+ *             The block ends at the first one that is not a false match, or at bits if none is.
+ */
+private[util] class BitSegment(val bytes: Array[Byte], val bits: Long, val ends: Array[Long])
+
+/**
+ * Block-parallel bzip2 decompression. Works on single-stream and multi-stream files.
+ *
+ * The input is scanned for the 48 bit block and end-of-stream magic numbers, which are not byte
+ * aligned. Every block is copied into a standalone single-block bzip2 stream, whose stream CRC is
+ * the block CRC, and decompressed with BZip2CompressorInputStream, which checks the CRC.
+ *
+ * Both magic numbers may also be false matches within a block. A segment always reaches up to the
+ * next block magic number or the end of the input, and the end-of-stream magic numbers in between
+ * are only candidates for the end of the block, see decompress().
+ */
+class ParallelBZip2InputStream(in: InputStream, threads: Int) extends BlockParallelInputStream[BitSegment](threads)
+{
+  private val BlockMagic = 0x314159265359L
+
+  private val EndMagic = 0x177245385090L
+
+  private val Mask48 = (1L << 48) - 1
+
+  private val input = new BufferedInputStream(in, 1 << 16)
+
+  /** the last 48 bits read */
+  private var window = 0L
+
+  /** input bytes since the start of the current block, or the last few bytes before the first block */
+  private var buffer = new Array[Byte](1 << 20)
+
+  private var length = 0
+
+  private var inBlock = false
+
+  /** bit offset of the current block in buffer */
+  private var start = 0L
+
+  /** bit offsets of the end-of-stream magic numbers since start, relative to start, latest first */
+  private var ends: List[Long] = Nil
+
+  /** the byte we are currently scanning, and the next bit in it */
+  private var current = 0
+
+  private var bit = 8
+
+  protected override def nextSegment(): BitSegment = {
+    while (true) {
+      if (bit == 8) {
+        // before the first block, only keep enough bytes to hold a magic number
+        if (! inBlock && length > (1 << 16)) compact(length * 8L - 64)
+        current = input.read()
+        if (current == -1) {
+          if (! inBlock) return null
+          if (ends.isEmpty) throw new EOFException("bzip2 stream ends within a block")
+          // the last block, with everything after it
+          inBlock = false
+          return extract(start, length * 8L)
+        }
+        append(current.toByte)
+        bit = 0
+      }
+
+      while (bit < 8) {
+        window = ((window << 1) | ((current >>> (7 - bit)) & 1)) & Mask48
+        bit += 1
+        if (window == BlockMagic) {
+          // bit offset of the magic number in buffer
+          val magic = length * 8L - (8 - bit) - 48
+          val segment = if (inBlock) extract(start, magic) else null
+          inBlock = true
+          compact(magic)
+          if (segment != null) return segment
+        }
+        else if (inBlock && isEndMagic(window)) {
+          // keep the bits after it until the next block or the end of the input, the block
+          // continues there if this is a false match
+          ends = (length * 8L - (8 - bit) - 48 - start) :: ends
+        }
+      }
+    }
+    null
+  }
+
+  /**
+   * Only used to find the end-of-stream magic number in the input. Tests may also match
+   * other bits, to simulate false matches.
+   */
+  protected def isEndMagic(window: Long): Boolean = window == EndMagic
+
+  /**
+   * Tries the candidate ends of the block in order: the end-of-stream magic numbers, which are
+   * hardly ever false matches, then the end of the segment.
+   */
+  protected override def decompress(segment: BitSegment): Array[Byte] = {
+    var failure: Exception = null
+    var i = 0
+    while (i <= segment.ends.length) {
+      val end = if (i < segment.ends.length) segment.ends(i) else segment.bits
+      try return decompressBlock(segment.bytes, end)
+      catch { case ex: Exception => failure = ex }
+      i += 1
+    }
+    throw failure
+  }
+
+  /**
+   * @param bits length of the block at the start of bytes
+   */
+  private def decompressBlock(bytes: Array[Byte], bits: Long): Array[Byte] = {
+    // standalone stream: header, the block, end-of-stream magic, stream CRC = block CRC
+    val size = 4 + ((bits + 48 + 32 + 7) / 8).toInt
+    val stream = new Array[Byte](size)
+    stream(0) = 'B'.toByte; stream(1) = 'Z'.toByte; stream(2) = 'h'.toByte; stream(3) = '9'.toByte
+    System.arraycopy(bytes, 0, stream, 4, ((bits + 7) / 8).toInt)
+    var offset = 32 + bits
+    offset = writeBits(stream, offset, EndMagic, 48)
+    val crc = ((bytes(6) & 0xFFL) << 24) | ((bytes(7) & 0xFFL) << 16) | ((bytes(8) & 0xFFL) << 8) | (bytes(9) & 0xFFL)
+    writeBits(stream, offset, crc, 32)
+
+    BlockParallelInputStream.readFully(new BZip2CompressorInputStream(new ByteArrayInputStream(stream), false), 1 << 20)
+  }
+
+  /**
+   * All candidate ends of first have failed, so only those of second are kept.
+   */
+  protected override def merge(first: BitSegment, second: BitSegment): BitSegment = {
+    val bits = first.bits + second.bits
+    val bytes = java.util.Arrays.copyOf(first.bytes, ((bits + 7) / 8).toInt)
+    var offset = first.bits
+    var i = 0
+    while (i < second.bytes.length) {
+      val count = math.min(8L, second.bits - i * 8L).toInt
+      if (count > 0) offset = writeBits(bytes, offset, (second.bytes(i) & 0xFF) >>> (8 - count), count)
+      i += 1
+    }
+    new BitSegment(bytes, bits, second.ends.map(_ + first.bits))
+  }
+
+  protected override def closeInput(): Unit = input.close()
+
+  private def append(b: Byte): Unit = {
+    if (length == buffer.length) buffer = java.util.Arrays.copyOf(buffer, length * 2)
+    buffer(length) = b
+    length += 1
+  }
+
+  private def extract(from: Long, to: Long): BitSegment = {
+    val bits = to - from
+    val bytes = new Array[Byte](((bits + 7) / 8).toInt)
+    var i = 0
+    while (i < bytes.length) {
+      bytes(i) = readByte(buffer, from + i * 8L)
+      i += 1
+    }
+    // clear the bits after the end
+    val tail = (bits % 8).toInt
+    if (tail != 0) bytes(bytes.length - 1) = (bytes(bytes.length - 1) & (0xFF << (8 - tail))).toByte
+    val segment = new BitSegment(bytes, bits, ends.reverse.toArray)
+    ends = Nil
+    segment
+  }
+
+  /**
+   * Drop all bytes before the byte containing the given bit offset, which becomes the block start.
+   * Call extract() for the end candidates of the current block first.
+   */
+  private def compact(from: Long): Unit = {
+    val first = (from / 8).toInt
+    System.arraycopy(buffer, first, buffer, 0, length - first)
+    length -= first
+    start = from % 8
+  }
+
+  /**
+   * @return the 8 bits starting at the given bit offset, padded with zeros
+   */
+  private def readByte(bytes: Array[Byte], offset: Long): Byte = {
+    val index = (offset / 8).toInt
+    val shift = (offset % 8).toInt
+    val high = bytes(index) & 0xFF
+    val low = if (index + 1 < bytes.length) bytes(index + 1) & 0xFF else 0
+    (((high << 8) | low) >>> (8 - shift)).toByte
+  }
+
+  /**
+   * Write the lowest count bits of value at the given bit offset.
+   * @return bit offset after the written bits
+   */
+  private def writeBits(bytes: Array[Byte], offset: Long, value: Long, count: Int): Long = {
+    var pos = offset
+    var i = count - 1
+    while (i >= 0) {
+      val index = (pos / 8).toInt
+      val mask = 0x80 >>> (pos % 8).toInt
+      if (((value >>> i) & 1) != 0) bytes(index) = (bytes(index) | mask).toByte
+      else bytes(index) = (bytes(index) & ~mask).toByte
+      pos += 1
+      i -= 1
+    }
+    pos
+  }
+}
+
+/**
+ * Block-parallel gzip decompression of files that consist of several concatenated gzip members,
+ * e.g. files written by pigz or by ParallelGZIPOutputStream.
+ *
+ * Member headers are found by their magic bytes and plausible flag, XFL and OS fields. If no
+ * member boundary is found within maxSegment bytes (e.g. a file written by plain gzip, which has
+ * only one member), the rest of the file is decompressed sequentially.
+ *
+ * @param maxSegment maximum number of compressed bytes per segment
+ */
+class ParallelGZIPInputStream(in: InputStream, threads: Int, maxSegment: Int = 1 << 23) extends BlockParallelInputStream[Array[Byte]](threads)
+{
+  private val HeaderLength = 10
+
+  private val input = new BufferedInputStream(in, 1 << 16)
+
+  /** compressed bytes since the start of the current segment */
+  private var buffer = new Array[Byte](1 << 20)
+
+  private var length = 0
+
+  /** buffer has been searched for member headers up to here */
+  private var searched = 0
+
+  private var eof = false
+
+  private var sequential = false
+
+  protected override def nextSegment(): Array[Byte] = {
+    if (sequential) return null
+    while (true) {
+      // the segment starts with a member header, look for the next one
+      var i = math.max(searched, 1)
+      while (i + HeaderLength <= length) {
+        if (isHeader(i)) {
+          val segment = java.util.Arrays.copyOf(buffer, i)
+          System.arraycopy(buffer, i, buffer, 0, length - i)
+          length -= i
+          searched = 0
+          return segment
+        }
+        i += 1
+      }
+      searched = i
+
+      if (eof) {
+        if (length == 0) return null
+        val segment = java.util.Arrays.copyOf(buffer, length)
+        length = 0
+        searched = 0
+        return segment
+      }
+
+      if (length >= maxSegment) {
+        sequential = true
+        return null
+      }
+
+      if (length == buffer.length) buffer = java.util.Arrays.copyOf(buffer, length * 2)
+      val read = input.read(buffer, length, buffer.length - length)
+      if (read == -1) eof = true
+      else length += read
+    }
+    null
+  }
+
+  protected override def remainder(): InputStream = {
+    if (! sequential) null
+    else new GZIPInputStream(new SequenceInputStream(new ByteArrayInputStream(buffer, 0, length), input), 1 << 16)
+  }
+
+  protected override def decompress(segment: Array[Byte]): Array[Byte] = {
+    BlockParallelInputStream.readFully(new GZIPInputStream(new ByteArrayInputStream(segment), 1 << 16), segment.length * 4)
+  }
+
+  protected override def merge(first: Array[Byte], second: Array[Byte]): Array[Byte] = {
+    val merged = java.util.Arrays.copyOf(first, first.length + second.length)
+    System.arraycopy(second, 0, merged, first.length, second.length)
+    merged
+  }
+
+  protected override def closeInput(): Unit = input.close()
+
+  /**
+   * gzip member header: magic 1f 8b, method 8 (deflate), no reserved flags, XFL 0, 2 or 4, known OS
+   */
+  private def isHeader(i: Int): Boolean = {
+    (buffer(i) & 0xFF) == 0x1F && (buffer(i + 1) & 0xFF) == 0x8B && buffer(i + 2) == 8 &&
+      (buffer(i + 3) & 0xE0) == 0 && (buffer(i + 8) == 0 || buffer(i + 8) == 2 || buffer(i + 8) == 4) &&
+      ((buffer(i + 9) & 0xFF) <= 13 || (buffer(i + 9) & 0xFF) == 255)
+  }
+}
@@ -4,7 +4,9 @@ import java.io.{ByteArrayOutputStream, Writer}
 import java.net.SocketTimeoutException
 import java.nio.charset.Charset
 import java.text.DecimalFormat
-import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.{AtomicLong, AtomicReferenceArray, LongAdder}
+import java.util.concurrent.locks.LockSupport
 
 import org.apache.jena.atlas.json.{JSON, JsonArray, JsonObject}
 import org.dbpedia.extraction.config.provenance.Dataset
@@ -13,12 +15,17 @@ import org.dbpedia.extraction.transform.Quad
 import org.dbpedia.extraction.config.Config.SlackCredentials
 import org.dbpedia.extraction.wikiparser.{PageNode, WikiPage, WikiTitle}
 
+import scala.collection.JavaConverters._
+import scala.collection.concurrent.TrieMap
 import scala.collection.mutable
 import scala.collection.mutable.ListBuffer
 import scalaj.http.Http
 
 /**
   * Created by Chile on 11/3/2016.
+  *
+  * Can be called by many threads at once without locking: the counters are LongAdders, and log lines
+  * and Slack messages are put into a ring buffer and formatted and written by a background thread.
   */
 class ExtractionRecorder[T](
                              val logWriter: Writer = null,
@@ -29,26 +36,30 @@ class ExtractionRecorder[T](
                              val language: Language = Language.English,
                              val monitor: ExtractionMonitor = null
    ) {
+  import ExtractionRecorder._
 
   def this(er: ExtractionRecorder[T]) = this(er.logWriter, er.reportInterval, er.preamble, er.slackCredantials)
 
-  private var failedPageMap = Map[Language, scala.collection.mutable.Map[(String, T), Throwable]]()
-  private var successfulPagesMap = Map[Language, scala.collection.mutable.Map[Long, WikiTitle]]()
+  // the outer maps are only replaced (under the lock) when a new language appears
+  @volatile private var failedPageMap = Map[Language, scala.collection.mutable.Map[(String, T), Throwable]]()
+  @volatile private var successfulPagesMap = Map[Language, scala.collection.mutable.Map[Long, WikiTitle]]()
 
   private val startTime = new AtomicLong()
-  private var successfulPageCount = Map[Language,AtomicLong]()
-  private var successfulTripleCount = Map[Dataset, AtomicLong]()
+  private val successfulPageCount = new ConcurrentHashMap[Language, PageCounter]()
+  private val failedPageCount = new ConcurrentHashMap[Language, FailureCounter]()
+  private val parseCount = new ConcurrentHashMap[Language, ParseCounter]()
+  // triple counters indexed by Dataset.ordinal, replaced by a larger copy for new datasets
+  @volatile private var successfulTripleCount = new Array[LongAdder](0)
 
   private var defaultLang: Language = Language.English
 
-  private val decForm = new DecimalFormat("#.##")
-
   private var slackIncreaseExceptionThreshold = 1
 
   private var task: String = "transformation"
   private var initialized = false
 
-  private var writerOpen = if(logWriter == null) false else true
+  // only used by the log thread
+  @volatile private var writerOpen = if(logWriter == null) false else true
 
 
   /**
@@ -65,13 +76,14 @@ class ExtractionRecorder[T](
     * @return
     */
   def successfulPages(lang: Language): Long = successfulPageCount.get(lang) match{
-    case Some(m) => m.get()
-    case None => 0
+    case null => 0
+    case counter => counter.count.sum
   }
 
-  def successfulTriples(dataset : Dataset): Long = successfulTripleCount.get(dataset) match {
-    case Some(m) => m.get()
-    case None => 0
+  def successfulTriples(dataset : Dataset): Long = {
+    val counters = successfulTripleCount
+    if (dataset.ordinal < counters.length && counters(dataset.ordinal) != null) counters(dataset.ordinal).sum
+    else 0
   }
 
   /**
@@ -80,22 +92,41 @@ class ExtractionRecorder[T](
     * @param lang - for this language
     * @return
     */
-  def increaseAndGetSuccessfulPages(lang: Language): Long ={
-    successfulPageCount.get(lang) match {
-      case Some(ai) => ai.incrementAndGet()
-      case None =>
-        successfulPageCount += (lang -> new AtomicLong(1))
-        1
+  def increaseAndGetSuccessfulPages(lang: Language): Long = pageCounter(lang).increaseAndGet()
+
+  private def pageCounter(lang: Language): PageCounter = {
+    val counter = successfulPageCount.get(lang)
+    if (counter != null) counter
+    else {
+      val summaryInterval = if (slackCredantials == null) 0 else slackCredantials.summaryThreshold
+      successfulPageCount.putIfAbsent(lang, new PageCounter(reportInterval, summaryInterval))
+      successfulPageCount.get(lang)
     }
   }
 
   def increaseAndGetSuccessfulTriples(dataset: Dataset) : Long = {
-    successfulTripleCount.get(dataset) match {
-      case Some(ai) => ai.incrementAndGet()
-      case None =>
-        successfulTripleCount += (dataset -> new AtomicLong(1))
-        1
+    increaseSuccessfulTriples(dataset)
+    successfulTriples(dataset)
+  }
+
+  /**
+    * increase the triple count of a dataset, cheaper than increaseAndGetSuccessfulTriples if the new count isn't needed
+    */
+  def increaseSuccessfulTriples(dataset: Dataset) : Unit = {
+    val counters = successfulTripleCount
+    val ordinal = dataset.ordinal
+    val counter = if (ordinal < counters.length && counters(ordinal) != null) counters(ordinal) else tripleCounter(ordinal)
+    counter.increment()
+  }
+
+  private def tripleCounter(ordinal: Int): LongAdder = synchronized {
+    var counters = successfulTripleCount
+    if (ordinal >= counters.length || counters(ordinal) == null) {
+      counters = java.util.Arrays.copyOf(counters, math.max(counters.length, math.max(ordinal + 1, Dataset.count)))
+      counters(ordinal) = new LongAdder
+      successfulTripleCount = counters
     }
+    counters(ordinal)
   }
 
   /**
@@ -104,9 +135,88 @@ class ExtractionRecorder[T](
     * @param lang - for this language
     * @return
     */
-  def failedPages(lang: Language): Long = failedPageMap.get(lang) match{
-    case Some(m) => m.size
-    case None => 0
+  def failedPages(lang: Language): Long = failedPageCount.get(lang) match{
+    case null => 0
+    case counter => counter.count.sum
+  }
+
+  private def failedCounter(lang: Language): FailureCounter = {
+    val counter = failedPageCount.get(lang)
+    if (counter != null) counter
+    else {
+      val warningInterval = if (slackCredantials == null) 0 else slackCredantials.exceptionThreshold
+      failedPageCount.putIfAbsent(lang, new FailureCounter(warningInterval))
+      failedPageCount.get(lang)
+    }
+  }
+
+  /**
+    * records the parsing of a page, once after all extractors are done with it
+    *
+    * @param lang - language of the page
+    * @param nanos - time spent in the parsers of the page, see WikiPage.parseNanos
+    * @param failed - true if a parser failed on the page
+    */
+  def recordParse(lang: Language, nanos: Long, failed: Boolean): Unit = {
+    val counter = parseCounter(lang)
+    counter.pages.increment()
+    counter.nanos.add(nanos)
+    if (failed) counter.failed.increment()
+  }
+
+  /**
+    * @return number of parsed pages of a language
+    */
+  def parsedPages(lang: Language): Long = parseCount.get(lang) match{
+    case null => 0
+    case counter => counter.pages.sum
+  }
+
+  /**
+    * @return nanoseconds spent parsing the pages of a language
+    */
+  def parseNanos(lang: Language): Long = parseCount.get(lang) match{
+    case null => 0
+    case counter => counter.nanos.sum
+  }
+
+  /**
+    * @return number of pages of a language that a parser failed on
+    */
+  def failedParses(lang: Language): Long = parseCount.get(lang) match{
+    case null => 0
+    case counter => counter.failed.sum
+  }
+
+  private def parseCounter(lang: Language): ParseCounter = {
+    val counter = parseCount.get(lang)
+    if (counter != null) counter
+    else {
+      parseCount.putIfAbsent(lang, new ParseCounter)
+      parseCount.get(lang)
+    }
+  }
+
+  private def failedPagesOf(lang: Language): mutable.Map[(String, T), Throwable] = failedPageMap.get(lang) match {
+    case Some(map) => map
+    case None => synchronized {
+      failedPageMap.getOrElse(lang, {
+        val map = TrieMap[(String, T), Throwable]()
+        failedPageMap += lang -> map
+        map
+      })
+    }
+  }
+
+  private def successfulPagesOf(lang: Language): mutable.Map[Long, WikiTitle] = successfulPagesMap.get(lang) match {
+    case Some(map) => map
+    case None => synchronized {
+      successfulPagesMap.getOrElse(lang, {
+        val map = TrieMap[Long, WikiTitle]()
+        successfulPagesMap += lang -> map
+        map
+      })
+    }
   }
 
   /**
@@ -158,27 +268,31 @@ class ExtractionRecorder[T](
     * @param node - PageNode of page
     * @param exception  - the Throwable responsible for the fail
     */
-  def failedRecord(id: String, node: T, exception: Throwable, language:Language = null): Unit = synchronized{
+  def failedRecord(id: String, node: T, exception: Throwable, language:Language = null): Unit = {
     val lang = if(language != null) language else defaultLang
     val tag = node match{
       case p: PageNode => "page"
       case q: Quad => "quad"
       case _ => "instance"
     }
-    failedPageMap.get(lang) match{
-      case Some(map) => map += ((id,node) -> exception)
-      case None =>  failedPageMap += lang -> mutable.Map[(String, T), Throwable]((id, node) -> exception)
-    }
+    val counter = failedCounter(lang)
+    // a page that fails again is counted once, the count stays the size of the failed pages map
+    if(failedPagesOf(lang).put((id, node), exception).isEmpty)
+      counter.count.increment()
+    val failed = counter.count.sum
+
     val line = "{task} failed for " + tag + " " + id + ": " + exception.getMessage
     printLabeledLine(line, RecordSeverity.Exception, lang, Seq(PrinterDestination.err, PrinterDestination.file))
     for (ste <- exception.getStackTrace)
       printLabeledLine("\t" + ste.toString, RecordSeverity.Exception, lang, Seq(PrinterDestination.file), noLabel = true)
 
-    if(slackCredantials != null && failedPages(lang) % (slackCredantials.exceptionThreshold * slackIncreaseExceptionThreshold) == 0)
+    if(slackCredantials != null && counter.warningDue(failed, slackCredantials.exceptionThreshold * slackIncreaseExceptionThreshold))
       forwardExceptionWarning(lang)
 
-    if(monitor != null) monitor.reportError(this, exception)
-
+    // the monitor is not thread-safe
+    if(monitor != null) monitor.synchronized {
+      monitor.reportError(this, exception)
+    }
   }
 
   /**
@@ -188,27 +302,26 @@ class ExtractionRecorder[T](
     * @param title - page title
     * @param logSuccessfulPage - indicates whether the event of a successful extraction shall be included in the log file (default = false)
     */
-  def recordExtractedPage(id: Long, title: WikiTitle, logSuccessfulPage:Boolean = false): Unit = synchronized {
+  def recordExtractedPage(id: Long, title: WikiTitle, logSuccessfulPage:Boolean = false): Unit = {
     if(logSuccessfulPage) {
-      successfulPagesMap.get(title.language) match {
-        case Some(map) => map += (id -> title)
-        case None => successfulPagesMap += title.language -> mutable.Map[Long, WikiTitle](id -> title)
-      }
+      successfulPagesOf(title.language) += (id -> title)
       printLabeledLine("page " + id + ": " + title.encoded + " extracted", RecordSeverity.Info, title.language, Seq(PrinterDestination.file))
     }
-    val pages = increaseAndGetSuccessfulPages(title.language)
-    if(pages % reportInterval == 0)
-      printLabeledLine("extracted {page} pages; {mspp} per page; {fail} failed pages", RecordSeverity.Info, title.language)
-    if(slackCredantials != null && pages % slackCredantials.summaryThreshold == 0)
+    val counter = pageCounter(title.language)
+    val pages = counter.increaseAndGet()
+    if(counter.reportDue(pages))
+      printLabeledLine("extracted {page} pages; {mspp} per page; {parse} parsing per page; {fail} failed pages", RecordSeverity.Info, title.language)
+    if(slackCredantials != null && counter.summaryDue(pages))
       forwardSummary(title.language)
   }
 
   def recordGenericPage(lang: Language, line: String = null): Unit ={
-    val pages = increaseAndGetSuccessfulPages(lang)
+    val counter = pageCounter(lang)
+    val pages = counter.increaseAndGet()
     val l = if(line == null) "processed {page} instances; {mspp} per instance; {fail} failed instances" else line
-    if(pages % reportInterval == 0)
+    if(counter.reportDue(pages))
       printLabeledLine(l, RecordSeverity.Info, lang)
-    if(slackCredantials != null && pages % slackCredantials.summaryThreshold == 0)
+    if(slackCredantials != null && counter.summaryDue(pages))
       forwardSummary(lang)
   }
 
@@ -218,14 +331,17 @@ class ExtractionRecorder[T](
     * @param quad
     * @param lang
     */
-  def recordQuad(quad: Quad, severity: RecordSeverity.Value, lang:Language): Unit = synchronized {
-    if(increaseAndGetSuccessfulPages(lang) % reportInterval == 0)
+  def recordQuad(quad: Quad, severity: RecordSeverity.Value, lang:Language): Unit = {
+    val counter = pageCounter(lang)
+    if(counter.reportDue(counter.increaseAndGet()))
       printLabeledLine("processed {page} quads; {mspp} per quad; {fail} failed quads", severity, lang)
   }
 
     /**
     * print a line to std out, err or the log file
     *
+    * The counters are read right away, the line is formatted and printed later by the log thread.
+    *
     * @param line - the line in question
     * @param language - langauge of current page
     * @param print - enum values for printer destinations (err, out, file - null mean all of them)
@@ -242,44 +358,53 @@ class ExtractionRecorder[T](
         Seq(PrinterDestination.file)
     } else print
 
-    val status = getStatusValues(lang)
-    val replacedLine = (if (noLabel) "" else severity.toString + "; " + lang.wikiCode + "; {task} at {time} for {data}; ") + line
-    val pattern = "\\{\\s*\\w+\\s*\\}".r
-    var lastend = 0
-    var resultString = ""
-    for(matchh <- pattern.findAllMatchIn(replacedLine)){
-      resultString += replacedLine.substring(lastend, matchh.start)
-      resultString += (Option(matchh.matched) match{
-        case Some(m) =>
-          m match{
-            case i if i == "{time}" => status("time")
-            case i if i == "{mspp}" => status("mspp")
-            case i if i == "{page}" => status("pages")
-            case i if i == "{erate}" => status("erate")
-            case i if i == "{fail}" => status("failed")
-            case i if i == "{data}" => status("dataset")
-            case i if i == "{task}" => status("task")
-            case _ => ""
-          }
-        case None => ""
-      })
-      lastend = matchh.end
-    }
-    resultString += replacedLine.substring(lastend)
-
-    for(pr <-printOptions)
-      pr match{
-        case PrinterDestination.err => System.err.println(resultString)
-        case PrinterDestination.out => System.out.println(resultString)
-        case PrinterDestination.file if writerOpen => logWriter.append(resultString + "\n")
-        case _ =>
+    val pages = successfulPages(lang)
+    val failed = failedPages(lang)
+    val time = System.currentTimeMillis - startTime.get
+    val parsed = parsedPages(lang)
+    val parseTime = parseNanos(lang)
+
+    log {
+      val status = statusValues(pages, failed, time, parsed, parseTime)
+      val replacedLine = (if (noLabel) "" else severity.toString + "; " + lang.wikiCode + "; {task} at {time} for {data}; ") + line
+      var lastend = 0
+      val resultString = new StringBuilder
+      for(matchh <- PlaceholderPattern.findAllMatchIn(replacedLine)){
+        resultString ++= replacedLine.substring(lastend, matchh.start)
+        resultString ++= (Option(matchh.matched) match{
+          case Some(m) =>
+            m match{
+              case i if i == "{time}" => status("time")
+              case i if i == "{mspp}" => status("mspp")
+              case i if i == "{parse}" => status("parse")
+              case i if i == "{page}" => status("pages")
+              case i if i == "{erate}" => status("erate")
+              case i if i == "{fail}" => status("failed")
+              case i if i == "{data}" => status("dataset")
+              case i if i == "{task}" => status("task")
+              case _ => ""
+            }
+          case None => ""
+        })
+        lastend = matchh.end
       }
+      resultString ++= replacedLine.substring(lastend)
+      val text = resultString.toString
+
+      for(pr <-printOptions)
+        pr match{
+          case PrinterDestination.err => System.err.println(text)
+          case PrinterDestination.out => System.out.println(text)
+          case PrinterDestination.file if writerOpen => logWriter.append(text + "\n")
+          case _ =>
+        }
+    }
   }
 
-  def getStatusValues(lang: Language): Map[String, String] = {
-    val pages = successfulPages(lang)
-    val time = System.currentTimeMillis - startTime.get
-    val failed = failedPages(lang)
+  def getStatusValues(lang: Language): Map[String, String] =
+    statusValues(successfulPages(lang), failedPages(lang), System.currentTimeMillis - startTime.get, parsedPages(lang), parseNanos(lang))
+
+  private def statusValues(pages: Long, failed: Long, time: Long, parsed: Long, parseTime: Long): Map[String, String] = {
     val datasetss = if(datasets.nonEmpty && datasets.size <= 3)
       datasets.foldLeft[String]("")((x,y) => x + ", " + y.encoded).substring(2)
     else
@@ -287,7 +412,8 @@ class ExtractionRecorder[T](
 
     Map("pages" -> pages.toString,
       "failed" -> failed.toString,
-      "mspp" -> (decForm.format(time.toDouble / pages) + " ms"),
+      "mspp" -> (new DecimalFormat("#.##").format(time.toDouble / pages) + " ms"),
+      "parse" -> (if(parsed == 0) "0 ms" else new DecimalFormat("#.##").format(parseTime / 1e6 / parsed) + " ms"),
       "erate" -> (if(failed == 0) "0" else ((pages+failed) / failed).toString),
       "dataset" -> datasetss,
       "time" -> StringUtils.prettyMillis(time),
@@ -300,8 +426,10 @@ class ExtractionRecorder[T](
       return false
     this.failedPageMap = Map[Language, scala.collection.mutable.Map[(String, T), Throwable]]()
     this.successfulPagesMap = Map[Language, scala.collection.mutable.Map[Long, WikiTitle]]()
-    this.successfulPageCount = Map[Language,AtomicLong]()
-    this.successfulTripleCount = Map[Dataset, AtomicLong]()
+    this.successfulPageCount.clear()
+    this.failedPageCount.clear()
+    this.parseCount.clear()
+    this.successfulTripleCount = new Array[LongAdder](0)
 
     this.startTime.set(System.currentTimeMillis)
     this.defaultLang = lang
@@ -321,10 +449,15 @@ class ExtractionRecorder[T](
     true
   }
 
+  /**
+    * Closes the log writer and waits until all log lines and Slack messages are written.
+    */
   override def finalize(): Unit ={
-    if(writerOpen){
-      logWriter.close()
-      writerOpen = false
+    log {
+      if(writerOpen){
+        logWriter.close()
+        writerOpen = false
+      }
     }
 
     if(monitor != null) {
@@ -336,13 +469,16 @@ class ExtractionRecorder[T](
     printLabeledLine(line, RecordSeverity.Info, defaultLang)
     forwardSimpleLine(line)
 
+    flushLog()
+
     super.finalize()
   }
 
   def resetFailedPages(lang: Language) = failedPageMap.get(lang) match{
     case Some(m) =>
       m.clear()
-      successfulPageCount(lang).set(0)
+      failedCounter(lang).reset()
+      pageCounter(lang).reset()
     case None =>
   }
 
@@ -378,7 +514,7 @@ class ExtractionRecorder[T](
 
     val data = defaultMessage("Exception status report for language " + lang.name, null, attachments)
 
-    sendCurl(slackCredantials.webhook.toString, data)
+    postToSlack(data)
   }
 
   def forwardSummary(lang: Language) : Unit =
@@ -398,7 +534,7 @@ class ExtractionRecorder[T](
     attachment.put("fields", fields)
     attachments.add(attachment)
 
-    sendCurl(slackCredantials.webhook.toString, defaultMessage("Summary report for extraction of language " + lang.name + " (" + lang.wikiCode + ")", null, attachments))
+    postToSlack(defaultMessage("Summary report for extraction of language " + lang.name + " (" + lang.wikiCode + ")", null, attachments))
   }
 
   def forwardExtractionOverview(lang: Language, msg: String) : Unit ={
@@ -419,7 +555,7 @@ class ExtractionRecorder[T](
     attachment.put("fields", fields)
     attachments.add(attachment)
 
-    sendCurl(slackCredantials.webhook.toString, defaultMessage(msg, null, attachments))
+    postToSlack(defaultMessage(msg, null, attachments))
   }
 
   def forwardSimpleLine(line: String) : Unit =
@@ -427,7 +563,7 @@ class ExtractionRecorder[T](
     if(slackCredantials == null)
       return
 
-    sendCurl(slackCredantials.webhook.toString, defaultMessage(line, null))
+    postToSlack(defaultMessage(line, null))
   }
 
   def getAttachment(attachMsg: String, color: String): JsonObject =
@@ -466,6 +602,16 @@ class ExtractionRecorder[T](
     data
   }
 
+  /**
+    * sends a message to the Slack webhook in the log thread
+    */
+  private def postToSlack(data: JsonObject): Unit = {
+    val url = slackCredantials.webhook.toString
+    log {
+      sendCurl(url, data)
+    }
+  }
+
   def sendCurl(url: String, data: JsonObject): Boolean =
   {
     try {
@@ -538,12 +684,216 @@ class ExtractionRecorder[T](
 
   }
 
+  /**
+    * @return a snapshot of the successful page counts
+    */
   def getSuccessfulPageCount(): Map[Language,AtomicLong] = {
-    successfulPageCount
+    successfulPageCount.asScala.map { case (lang, counter) => lang -> new AtomicLong(counter.count.sum) }.toMap
   }
 
 }
 
+object ExtractionRecorder
+{
+  private val PlaceholderPattern = "\\{\\s*\\w+\\s*\\}".r
+
+  private val LogCapacity = 1 << 14
+
+  private val IdleNanos = 1000000L
+
+  // how long the JVM exit waits for the log thread to write the last lines
+  private val ShutdownNanos = 5000000000L
+
+  private lazy val events = new EventRing(LogCapacity)
+
+  /**
+    * Runs the event in the log thread, after all events that were logged before.
+    * Waits if the log thread is more than LogCapacity events behind.
+    */
+  private def log(event: => Unit): Unit = events.put(() => event)
+
+  /**
+    * Waits until the log thread has written all log lines and Slack messages logged so far.
+    */
+  def flushLog(): Unit = events.flush()
+
+  /**
+    * Count of the pages of a language. Log and Slack reports are due when the count passes a multiple of
+    * their interval, each report is due once although the count is read while other threads increase it.
+    */
+  private class PageCounter(reportInterval: Long, summaryInterval: Long)
+  {
+    val count = new LongAdder
+
+    private val nextReport = new AtomicLong(reportInterval)
+
+    private val nextSummary = new AtomicLong(summaryInterval)
+
+    def increaseAndGet(): Long = {
+      count.increment()
+      count.sum
+    }
+
+    def reportDue(pages: Long): Boolean = reportInterval > 0 && due(nextReport, reportInterval, pages)
+
+    def summaryDue(pages: Long): Boolean = summaryInterval > 0 && due(nextSummary, summaryInterval, pages)
+
+    def reset(): Unit = {
+      count.reset()
+      nextReport.set(reportInterval)
+      nextSummary.set(summaryInterval)
+    }
+  }
+
+  /**
+    * Count of the failed pages of a language. A Slack exception warning is due when the count passes the
+    * next mark, once like the reports of PageCounter. The mark then moves on by the current interval.
+    */
+  private class FailureCounter(warningInterval: Long)
+  {
+    val count = new LongAdder
+
+    private val nextWarning = new AtomicLong(warningInterval)
+
+    def warningDue(failed: Long, interval: Long): Boolean = warningInterval > 0 && due(nextWarning, interval, failed)
+
+    def reset(): Unit = {
+      count.reset()
+      nextWarning.set(warningInterval)
+    }
+  }
+
+  /**
+    * @return true for the one caller that moves the mark from a value the count has reached to the next mark
+    */
+  private def due(next: AtomicLong, interval: Long, count: Long): Boolean = {
+    val mark = next.get
+    count >= mark && next.compareAndSet(mark, mark + interval)
+  }
+
+  /**
+    * Parsed pages of a language, the time spent parsing them and the number of failed parses.
+    */
+  private class ParseCounter
+  {
+    val pages = new LongAdder
+
+    val nanos = new LongAdder
+
+    val failed = new LongAdder
+  }
+
+  /**
+    * Bounded ring buffer of events with many producers and one consumer at a time, usually the log thread.
+    * Producers claim a sequence number and fill the slot; the consumer runs the events in sequence order.
+    * The log thread sleeps while the ring is empty and the producer of the next event wakes it up.
+    * Producers that find the ring full wait until the consumer has made room.
+    */
+  private class EventRing(capacity: Int)
+  {
+    private val mask = capacity - 1
+
+    private val slots = new AtomicReferenceArray[() => Unit](capacity)
+
+    // next sequence number to claim
+    private val tail = new AtomicLong()
+
+    // next sequence number to run, only changed by drain
+    @volatile private var head = 0L
+
+    // true while the log thread is about to park or parked, producers unpark it
+    @volatile private var idle = false
+
+    // producers wait on it while the ring is full
+    private val space = new Object
+
+    // number of producers waiting for space, changed with its lock
+    @volatile private var waiting = 0
+
+    private val thread = {
+      val thread = new Thread("extraction-recorder-log") {
+        override def run(): Unit = {
+          while (true) {
+            if (drain() == 0) {
+              idle = true
+              // a producer that filled the slot before it saw the flag doesn't unpark us
+              if (slots.get((head & mask).toInt) == null) LockSupport.park(this)
+              idle = false
+            }
+          }
+        }
+      }
+      thread.setDaemon(true)
+      thread.start()
+      // don't lose the last lines when the JVM exits, but don't wait for a hanging Slack post either
+      Runtime.getRuntime.addShutdownHook(new Thread("extraction-recorder-log-flush") {
+        override def run(): Unit = {
+          val target = tail.get
+          val deadline = System.nanoTime + ShutdownNanos
+          while (head < target && System.nanoTime - deadline < 0) LockSupport.parkNanos(IdleNanos)
+        }
+      })
+      thread
+    }
+
+    def put(event: () => Unit): Unit = {
+      val seq = tail.getAndIncrement()
+      // full: wait for the consumer instead of dropping log lines
+      if (seq - head >= capacity) awaitSpace(seq)
+      slots.set((seq & mask).toInt, event)
+      if (idle) LockSupport.unpark(thread)
+    }
+
+    /**
+      * The sequence number is claimed, so keep waiting if interrupted, the ring would stall at its empty slot.
+      */
+    private def awaitSpace(seq: Long): Unit = space.synchronized {
+      var interrupted = false
+      waiting += 1
+      try {
+        while (seq - head >= capacity) {
+          try space.wait()
+          catch {
+            case _: InterruptedException => interrupted = true
+          }
+        }
+      }
+      finally waiting -= 1
+      if (interrupted) Thread.currentThread.interrupt()
+    }
+
+    /**
+      * Runs all events whose slots are filled, in order, in the calling thread.
+      * @return number of events run
+      */
+    def drain(): Int = synchronized {
+      var count = 0
+      var slot = (head & mask).toInt
+      var event = slots.get(slot)
+      while (event != null) {
+        slots.set(slot, null)
+        head += 1
+        if (waiting > 0) space.synchronized { space.notifyAll() }
+        try event()
+        catch {
+          case ex: Throwable => ex.printStackTrace()
+        }
+        count += 1
+        slot = (head & mask).toInt
+        event = slots.get(slot)
+      }
+      count
+    }
+
+    def flush(): Unit = {
+      val target = tail.get
+      while (head < target) {
+        if (drain() == 0) LockSupport.parkNanos(IdleNanos / 10)
+      }
+    }
+  }
+}
+
 /**
   * This class provides the necessary attributes to record either a successful or failed extraction
   *
@@ -14,20 +14,43 @@ import java.nio.charset.Charset
  */
 object IOUtils {
 
+  /**
+   * Number of threads compressing .gz and .bz2 output streams, shared by all streams. If greater
+   * than 1, chunks of the output are compressed concurrently into concatenated gzip members or
+   * bzip2 streams. Set from the 'compression-threads' property by the dump extraction.
+   */
+  @volatile var zipperThreads: Int = 1
+
+  /**
+   * Compression level 1 (fast) to 9 (small) of .gz and .bz2 output streams. For bzip2, this is the
+   * block size in 100 KB. -1 means the default level of the format (6 for gzip, 9 for bzip2).
+   * Set from the 'compression-level' property by the dump extraction.
+   */
+  @volatile var zipperLevel: Int = -1
+
   /**
    * Map from file suffix (without "." dot) to output stream wrapper
    */
   val zippers = Map[String, OutputStream => OutputStream] (
-    "gz" -> { new GZIPOutputStream(_) }, 
-    "bz2" -> { new BZip2CompressorOutputStream(_) } 
+    "gz" -> { out: OutputStream => if (zipperThreads > 1) new ParallelGZIPOutputStream(out, zipperLevel) else ParallelGZIPOutputStream.gzip(out, zipperLevel) },
+    "bz2" -> { out: OutputStream => if (zipperThreads > 1) new ParallelBZip2OutputStream(out, bzip2BlockSize) else new BZip2CompressorOutputStream(out, bzip2BlockSize) }
   )
+
+  private def bzip2BlockSize: Int = if (zipperLevel >= 1 && zipperLevel <= 9) zipperLevel else 9
   
+  /**
+   * Number of threads decompressing each .gz or .bz2 input stream. If greater than 1,
+   * bzip2 blocks and concatenated gzip members are decompressed concurrently.
+   * Set from the 'decompression-threads' property by the dump extraction.
+   */
+  @volatile var unzipperThreads: Int = 1
+
   /**
    * Map from file suffix (without "." dot) to input stream wrapper
    */
   val unzippers = Map[String, InputStream => InputStream] (
-    "gz" -> { new GZIPInputStream(_) }, 
-    "bz2" -> { new BZip2CompressorInputStream(_, true) } 
+    "gz" -> { in: InputStream => if (unzipperThreads > 1) new ParallelGZIPInputStream(in, unzipperThreads) else new GZIPInputStream(in) },
+    "bz2" -> { in: InputStream => if (unzipperThreads > 1) new ParallelBZip2InputStream(in, unzipperThreads) else new BZip2CompressorInputStream(in, true) }
   )
   
   /**
@@ -11,9 +11,6 @@ import java.net.URL
 import com.fasterxml.jackson.core.JsonFactory
 import com.fasterxml.jackson.databind.node.JsonNodeType
 import com.fasterxml.jackson.databind.{JsonNode, ObjectReader, ObjectMapper}
-import org.dbpedia.extraction.config.mappings.wikidata.{WikidataOneToOneCommand, WikidataOneToManyCommand, WikidataTransformationCommands, WikidataCommandReceiver}
-import org.dbpedia.extraction.ontology.OntologyClass
-import org.wikidata.wdtk.datamodel.interfaces.Value
 
 import scala.collection.JavaConversions._
 import scala.language.postfixOps
@@ -36,26 +33,6 @@ class JsonConfig(fileUrl:URL) {
     }
   }
 
-  def getCommand(property: String, value: Value, equivClassSet: Set[OntologyClass], equivPropertySet: Set[String], receiver: WikidataCommandReceiver): WikidataTransformationCommands = {
-    var command = new WikidataTransformationCommands {
-      override def execute(): Unit = print("")
-    }
-
-      if (getMap(property)!=null) {
-        if (getMap(property).nonEmpty) {
-          receiver.setParameters(property, value, equivClassSet, equivPropertySet, getMap(property).map(x => x._1 -> x._2.asText()))
-          val oneToManyCommand = new WikidataOneToManyCommand(receiver)
-          command = oneToManyCommand
-        }
-        else {
-          receiver.setParameters(property, value, equivClassSet, equivPropertySet, getMap(property).map(x => x._1 -> x._2.asText()))
-          val oneToOneCommand = new WikidataOneToOneCommand(receiver)
-          command = oneToOneCommand
-        }
-      }
-    command
-  }
-
   def keys(): Iterable[String] = configMap.keys
 
   def size(): Int = configMap.size
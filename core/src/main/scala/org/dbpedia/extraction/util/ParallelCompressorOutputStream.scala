@@ -0,0 +1,155 @@
+package org.dbpedia.extraction.util
+
+import java.io._
+import java.util.concurrent._
+import java.util.zip.GZIPOutputStream
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream
+
+/**
+ * Cuts the output into chunks, compresses the chunks concurrently on a thread pool shared by
+ * all streams of this kind, and writes the compressed chunks in the original order, like pigz.
+ * Each chunk is compressed into a complete stream (a gzip member, a bzip2 stream), so the output
+ * is a concatenation of streams that gzip, bzip2 and IOUtils.inputStream read like a single one.
+ *
+ * Not thread-safe, like most output streams. Up to IOUtils.zipperThreads chunks per stream are
+ * kept in memory while they are compressed.
+ *
+ * @param chunkSize number of uncompressed bytes per chunk
+ */
+abstract class ParallelCompressorOutputStream(out: OutputStream, chunkSize: Int) extends OutputStream
+{
+  private val pool = ParallelCompressorOutputStream.pool
+
+  private val maxPending = math.max(IOUtils.zipperThreads, 1)
+
+  private val pending = new java.util.ArrayDeque[Future[Array[Byte]]]()
+
+  private var chunk = new Array[Byte](chunkSize)
+
+  private var length = 0
+
+  private var chunks = 0
+
+  private var closed = false
+
+  /**
+   * Compress a chunk into a complete stream. Called concurrently on pool threads.
+   */
+  protected def compress(bytes: Array[Byte], length: Int): Array[Byte]
+
+  override def write(b: Int): Unit = {
+    chunk(length) = b.toByte
+    length += 1
+    if (length == chunkSize) submit()
+  }
+
+  override def write(buf: Array[Byte], off: Int, len: Int): Unit = {
+    var done = 0
+    while (done < len) {
+      val count = math.min(len - done, chunkSize - length)
+      System.arraycopy(buf, off + done, chunk, length, count)
+      length += count
+      done += count
+      if (length == chunkSize) submit()
+    }
+  }
+
+  /**
+   * Writes the chunks that are already compressed. Doesn't end the current chunk, that would
+   * produce lots of tiny streams for callers that flush often.
+   */
+  override def flush(): Unit = {
+    while (! pending.isEmpty && pending.peek.isDone) writeNext()
+    out.flush()
+  }
+
+  override def close(): Unit = {
+    if (closed) return
+    closed = true
+    try {
+      // an empty file still needs one (empty) stream to be a valid compressed file
+      if (length > 0 || chunks == 0) submit()
+      while (! pending.isEmpty) writeNext()
+    }
+    finally out.close()
+  }
+
+  private def submit(): Unit = {
+    val bytes = chunk
+    val count = length
+    pending.add(pool.submit(new Callable[Array[Byte]] {
+      override def call(): Array[Byte] = compress(bytes, count)
+    }))
+    chunks += 1
+    chunk = new Array[Byte](chunkSize)
+    length = 0
+    while (pending.size > maxPending) writeNext()
+  }
+
+  private def writeNext(): Unit = {
+    val future = pending.poll()
+    val compressed = try future.get() catch {
+      case ex: ExecutionException => throw new IOException("compression failed", ex.getCause)
+    }
+    out.write(compressed)
+  }
+}
+
+object ParallelCompressorOutputStream
+{
+  /**
+   * Created on first use with IOUtils.zipperThreads threads.
+   */
+  private lazy val pool = Executors.newFixedThreadPool(math.max(IOUtils.zipperThreads, 1), new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, "compressor")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+}
+
+/**
+ * Writes concatenated gzip members of 1 MB uncompressed data each.
+ *
+ * @param level deflate level 1 to 9, -1 for the default
+ */
+class ParallelGZIPOutputStream(out: OutputStream, level: Int = -1, chunkSize: Int = 1 << 20)
+  extends ParallelCompressorOutputStream(out, chunkSize)
+{
+  override protected def compress(bytes: Array[Byte], length: Int): Array[Byte] = {
+    val buffer = new ByteArrayOutputStream(length / 3 + 64)
+    val zip = ParallelGZIPOutputStream.gzip(buffer, level)
+    zip.write(bytes, 0, length)
+    zip.close()
+    buffer.toByteArray
+  }
+}
+
+object ParallelGZIPOutputStream
+{
+  /**
+   * @return a sequential gzip stream with the given deflate level, -1 for the default
+   */
+  def gzip(out: OutputStream, level: Int): GZIPOutputStream = new GZIPOutputStream(out, 1 << 16) {
+    if (level >= 0) `def`.setLevel(level)
+  }
+}
+
+/**
+ * Writes concatenated bzip2 streams. Each stream contains about one bzip2 block.
+ *
+ * @param blockSize bzip2 block size 1 to 9 (times 100 KB)
+ */
+class ParallelBZip2OutputStream(out: OutputStream, blockSize: Int = 9)
+  extends ParallelCompressorOutputStream(out, blockSize * 100000)
+{
+  override protected def compress(bytes: Array[Byte], length: Int): Array[Byte] = {
+    val buffer = new ByteArrayOutputStream(length / 4 + 64)
+    val zip = new BZip2CompressorOutputStream(buffer, blockSize)
+    zip.write(bytes, 0, length)
+    zip.close()
+    buffer.toByteArray
+  }
+}
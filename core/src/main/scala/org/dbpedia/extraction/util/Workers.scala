@@ -1,8 +1,9 @@
 package org.dbpedia.extraction.util
 
 import java.io.Closeable
-import java.util.concurrent.atomic.AtomicInteger
-import java.util.concurrent.{ArrayBlockingQueue, ConcurrentHashMap}
+import java.util.concurrent.atomic.{AtomicInteger, AtomicLong, AtomicReference}
+import java.util.concurrent.{ArrayBlockingQueue, ConcurrentHashMap, CountDownLatch, TimeUnit}
+import java.util.logging.{Level, Logger}
 
 import org.dbpedia.extraction.util.Workers._
 
@@ -121,11 +122,29 @@ object Workers {
    * Sentinel object that signals to the threads that the queue is empty.
    */
   private[util] val sentinel = new Object()
+
+  /**
+   * Signals to a single thread that it should go away, see Workers.resize().
+   */
+  private[util] val retire = new Object()
+
+  private[util] val logger = Logger.getLogger(classOf[Workers[_]].getName)
+
+  /**
+   * How often a thread that is started later, by resize() or as a replacement, tries to initialize
+   * a new worker before the failure is given up on.
+   */
+  private[util] val initAttempts = 3
+
+  /**
+   * Several values that are queued as one item, see Workers.processBatch().
+   */
+  private[util] class Batch(val values: Seq[AnyRef])
   
   /**
    * By default, use one thread per logical processor.
    */
-  private[util] val defaultThreads = Runtime.getRuntime.availableProcessors()
+  val defaultThreads: Int = Runtime.getRuntime.availableProcessors()
 
 
   def work[T <: AnyRef](args : List[T])(proc : T => Unit) : Unit = {
@@ -172,23 +191,21 @@ object Workers {
 }
   
 /**
- * A simple fixed size thread-pool.
- * 
- * TODO: If a worker thread dies because of an uncaught exception, it just goes away and we
- * may not fully use all CPUs. Maybe we should start a new worker thread? Or use a thread pool
- * who does that for us? On the other hand - what about worker.init() and worker.destroy()?
- * We probably don't want to call them twice. No, I guess it's better to let the thread die.
- * Users can always catch Throwable in their implementation of Worker.process().
- * 
- * FIXME: If all worker threads die because of uncaught exceptions, the master thread will
- * probably still add tasks to the queue and block forever. When a worker thread dies, it should
- * count down the number of live threads and if none are left interrupt the master thread if it is 
- * blocking in process(). But what if there are multiple master threads? Ough. We need more ways to
- * communicate between masters and workers...
+ * A thread-pool that starts with a fixed number of threads. The number can be changed
+ * while the pool is running, see resize() and WorkersController.
+ *
+ * If a worker thread dies because of an uncaught exception, the value it was processing is lost,
+ * but a new thread with a new worker takes its place, so the pool doesn't lose capacity and the
+ * master thread can't block forever in process() because no threads are left. A worker whose
+ * init() fails is not replaced, that would probably fail again. start() waits until all threads
+ * have initialized their workers and throws the first init() failure. A thread that is started
+ * later tries a few times, then process() and processBatch() throw the failure.
  *  
  * @param availThreads number of threads in pool
  * @param queueLength max length of work queue
- * @param factory called during initialization of this class to create a worker for each thread
+ * @param factory called to create a worker for each thread, including threads added later.
+ *                Each thread calls init() and destroy() of its worker itself, so workers may hold
+ *                thread-confined resources.
  */
 class Workers[T <: AnyRef](availThreads: Int, queueLength: Int, factory: => Worker[T]) extends Closeable {
 
@@ -204,91 +221,248 @@ class Workers[T <: AnyRef](availThreads: Int, queueLength: Int, factory: => Work
 
   private val queue = new ArrayBlockingQueue[AnyRef](queueLength)
 
+  // process log and dependencies are only maintained once a caller asked for a dependency
+  @volatile private var trackDependencies = false
   private val processLog = new ConcurrentHashMap[Int, WorkerObjectState.Value]().asScala
   private val queueDependency = new ConcurrentHashMap[Int, Int]().asScala
 
-  private val threads =
-  for (i <- 0 until availThreads) yield
-    new Thread() {
-      val worker: Worker[T] = factory
-      override def run(): Unit = {
+  private val processed = new AtomicLong()
+
+  // running threads, guarded by itself
+  private val live = new java.util.HashSet[WorkerThread]()
+
+  // number of retire signals in the queue that no thread has taken yet
+  private val retiring = new AtomicInteger()
+
+  @volatile private var started = false
+
+  @volatile private var stopping = false
+
+  // first exception thrown by the init() of a worker
+  private val failure = new AtomicReference[Throwable]()
+
+  /**
+   * @param ready counted down once the worker is initialized, or once this thread left the pool
+   *              because the initialization failed. Null for threads that nobody waits for.
+   * @param attempt number of this try to initialize a worker for a thread started later
+   */
+  private class WorkerThread(ready: CountDownLatch, attempt: Int) extends Thread {
+    val worker: Worker[T] = factory
+    override def run(): Unit = {
+      var replace = false
+      var retry = false
+      var initialized = false
+      var initFailure: Throwable = null
+      try {
         try {
-          if(worker.getState != WorkerState.initialized)
-            throw new IllegalStateException("A worker was tasked with work while not being in the 'initialized' state: " + worker.getState)
+          // initialize in this thread, the worker may create thread-local state
+          try {
+            if(worker.getState == WorkerState.declared)
+              worker.init()
+            if(worker.getState != WorkerState.initialized)
+              throw new IllegalStateException("A worker was tasked with work while not being in the 'initialized' state: " + worker.getState)
+          } catch {
+            case ex: Throwable =>
+              // start() gives up at once, it throws the failure anyway
+              retry = ready == null && attempt < initAttempts && ! stopping
+              logger.log(Level.SEVERE, "worker thread " + getName + " failed to initialize its worker" + (if (retry) ", trying again" else ""), ex)
+              if (! retry) initFailure = ex
+              return
+          }
+          initialized = true
+          if (ready != null) ready.countDown()
 
           while(true) {
             val value = queue.take()
-            queueDependency.get(value.hashCode()) match{
-              case Some(h) => processLog.get(h) match{
-                case Some(x) => queue.put(value) // dependency is queued or in progress -> ergo put it back in the queue
-                case None =>
-              }
-              case None =>
-            }
-            processLog(value.hashCode()) = WorkerObjectState.inProcess
 
             // if we find the sentinel, we're done
             if (value eq sentinel)
               return
 
-            worker.process(value.asInstanceOf[T])
+            if (value eq retire) {
+              retiring.decrementAndGet()
+              return
+            }
 
-            //will  not longer save WorkerObjectState.done since this constitutes a memory leak. Instead, we assume that its done when not available
-            processLog.remove(value.hashCode())
+            value match {
+              case batch: Batch => batch.values.foreach { v => worker.process(v.asInstanceOf[T]); processed.incrementAndGet() }
+              case _ if trackDependencies => processTracked(value)
+              case _ => worker.process(value.asInstanceOf[T]); processed.incrementAndGet()
+            }
           }
+        } catch {
+          case ex: Throwable =>
+            logger.log(Level.SEVERE, "worker thread " + getName + " died, starting a new one", ex)
+            replace = true
         } finally {
+          worker.destroy()
+        }
+      } finally {
+        live.synchronized {
+          live.remove(this)
+          // replace even while stopping, the new thread has to take this thread's sentinel
+          if (replace) spawn(null, 1)
+          else if (retry) spawn(null, attempt + 1)
         }
+        // only now, so that nobody who sees the failure still counts this thread
+        if (initFailure != null) failure.compareAndSet(null, initFailure)
+        if (! initialized && ready != null) ready.countDown()
       }
     }
+
+    private def processTracked(value: AnyRef): Unit = {
+      queueDependency.get(value.hashCode()) match {
+        case Some(h) if processLog.contains(h) =>
+          queue.put(value) // dependency is queued or in progress -> ergo put it back in the queue
+        case _ =>
+          processLog(value.hashCode()) = WorkerObjectState.inProcess
+          worker.process(value.asInstanceOf[T])
+          processed.incrementAndGet()
+          //will  not longer save WorkerObjectState.done since this constitutes a memory leak. Instead, we assume that its done when not available
+          processLog.remove(value.hashCode())
+          queueDependency.remove(value.hashCode())
+      }
+    }
+  }
+
+  private def spawn(ready: CountDownLatch, attempt: Int): Unit = live.synchronized {
+    val thread = new WorkerThread(ready, attempt)
+    live.add(thread)
+    thread.start()
+  }
   
   /**
-   * Start all threads. Each thread will initialize its worker.
+   * Start all threads. Each thread will initialize its worker. Waits until all workers are
+   * initialized. If the init() of a worker fails, stops the pool and throws the first failure.
    */
   final def start(): Unit = {
-    for (thread <- threads) {
-      if(thread.worker.getState == WorkerState.declared){
-        thread.worker.init()
+    val ready = live.synchronized {
+      if (started) null
+      else {
+        started = true
+        val ready = new CountDownLatch(availThreads)
+        for (i <- 0 until availThreads)
+          spawn(ready, 1)
+        ready
+      }
+    }
+    // wait without the lock, threads whose init() fails need it to leave the pool
+    if (ready != null) {
+      ready.await()
+      val ex = failure.get
+      if (ex != null) {
+        stop()
+        throw ex
       }
-      if(thread.getState != Thread.State.NEW)
-        thread.resume()                         //TODO replace this with something more scala like
-      else
-        thread.start()
     }
   }
 
+  /**
+   * Change the number of threads. New threads start at once, superfluous threads stop after
+   * the values that are already queued. Does nothing before start() or after stop().
+   */
+  final def resize(threads: Int): Unit = live.synchronized {
+    if (started && ! stopping) {
+      val current = live.size - retiring.get
+      for (i <- current until threads)
+        spawn(null, 1)
+      // don't wait for a full queue while holding the lock, try again next time
+      for (i <- threads until current)
+        if (queue.offer(retire)) retiring.incrementAndGet()
+    }
+  }
+
+  /**
+   * @return number of threads, not counting threads that were told to stop but haven't yet
+   */
+  def threadCount: Int = live.synchronized { live.size - retiring.get }
+
+  def queueSize: Int = queue.size
+
+  def queueCapacity: Int = queueLength
+
+  /**
+   * @return number of values processed so far
+   */
+  def processedCount: Long = processed.get
+
   final def process(value: T, dependentOn: T): Unit = process(value, dependentOn.hashCode())
   /**
    * Add a value to the queue. A thread will take the value and let its worker process it.
    * If queue is full and all threads are busy, wait until a thread becomes available.
+   * Throws an IllegalStateException if a worker failed to initialize.
+   *
+   * @param dependentOn hash code of a value that must be processed before this one.
+   *                    The first dependency switches on the process log for all following values.
    */
   final def process(value: T, dependentOn: Int = -1): Unit = {
     if (value == null) throw new NullPointerException("value")
-    if(dependentOn >= 0)
+    if(dependentOn >= 0) {
+      trackDependencies = true
       queueDependency(value.hashCode()) = dependentOn
-    queue.put(value)
-    processLog(value.hashCode()) = WorkerObjectState.queued
+    }
+    if(trackDependencies)
+      processLog(value.hashCode()) = WorkerObjectState.queued
+    enqueue(value)
+  }
+
+  /**
+   * Add several values to the queue as a single item. A thread takes all of them at once and lets
+   * its worker process them one after the other, which is cheaper than a queue hand-off per value
+   * if processing a single value is fast. Batched values can't have dependencies.
+   */
+  final def processBatch(values: Seq[T]): Unit = {
+    if (values.exists(_ == null)) throw new NullPointerException("value")
+    if (values.nonEmpty)
+      enqueue(new Batch(values))
+  }
+
+  /**
+   * Wait until there is room in the queue. Don't wait forever if a thread failed to initialize
+   * its worker, the pool may have no threads left that take from the queue.
+   */
+  private def enqueue(item: AnyRef): Unit = {
+    checkFailure()
+    while (! queue.offer(item, 100, TimeUnit.MILLISECONDS))
+      checkFailure()
+  }
+
+  private def checkFailure(): Unit = {
+    val ex = failure.get
+    if (ex != null) throw new IllegalStateException("a worker failed to initialize", ex)
   }
   
   /**
    * Stop all threads and wait for them to finish. Each thread will destroy its worker.
    */
   final def stop(): Unit = {
-    // enqueue one sentinel per thread - each thread removes one
-    for (thread <- threads)
-      queue.put(sentinel)
-    // wait for the threads to find the sentinels and finish
-    for (thread <- threads) {
+    val count = live.synchronized {
+      stopping = true
+      live.size - retiring.get
+    }
+    // enqueue one sentinel per thread - each thread removes one. A thread whose init() fails
+    // leaves without taking one, so stop waiting for room in the queue once no thread is left.
+    for (i <- 0 until count)
+      while (! queue.offer(sentinel, 100, TimeUnit.MILLISECONDS) && nextThread() != null) {}
+    // wait for the threads to find the sentinels and finish, including threads that replaced dead ones
+    var thread = nextThread()
+    while (thread != null) {
       thread.join()
-      thread.worker.destroy()
+      thread = nextThread()
     }
   }
 
+  private def nextThread(): Thread = live.synchronized {
+    val it = live.iterator()
+    if (it.hasNext) it.next() else null
+  }
+
   /**
-    * check the state of a queued Worker object
+    * check the state of a queued Worker object, only known after the first value with a dependency was queued
     * @param hash - hashcode of queued object
     * @return WorkerState
     */
-  def checkWorkerProcess(hash: Int) = Option(processLog(hash))
+  def checkWorkerProcess(hash: Int): Option[WorkerObjectState.Value] = processLog.get(hash)
 
   override def close(): Unit = stop()
 }
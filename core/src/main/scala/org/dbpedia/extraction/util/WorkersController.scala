@@ -0,0 +1,124 @@
+package org.dbpedia.extraction.util
+
+import java.io.Closeable
+import java.lang.management.ManagementFactory
+import java.util.logging.Logger
+
+/**
+ * Adapts the number of threads of a running Workers pool to the work, within the given bounds.
+ *
+ * Every interval, the controller looks at the throughput of the pool, the length of its queue and
+ * the CPU load of the process:
+ *
+ * - If the last change made the pool slower in two intervals in a row, it is undone, and the
+ *   pool is left alone for one more interval. A single slow interval may just be noise.
+ * - If the queue is at least half full (the workers can't keep up) and there are idle CPUs,
+ *   e.g. because the workers wait for I/O, one thread is added.
+ * - If the queue is (almost) empty (the source can't keep up) or the CPUs are saturated,
+ *   one thread is removed.
+ *
+ * @param minThreads lower bound, at least 1
+ * @param maxThreads upper bound
+ * @param interval milliseconds between two adjustments
+ */
+class WorkersController(workers: Workers[_], minThreads: Int, maxThreads: Int, interval: Long = 5000) extends Closeable
+{
+  private val logger = Logger.getLogger(classOf[WorkersController].getName)
+
+  require(minThreads >= 1 && minThreads <= maxThreads, "invalid thread bounds " + minThreads + ".." + maxThreads)
+
+  private val processors = Runtime.getRuntime.availableProcessors()
+
+  // throughput before the last change and the change itself (+1, -1 or 0)
+  private var lastThroughput = 0.0
+  private var lastChange = 0
+
+  // intervals in a row that were slower than before the last change
+  private var slowSamples = 0
+
+  // intervals to wait after an undo
+  private var hold = 0
+
+  private var lastCount = 0L
+  private var lastTime = 0L
+
+  @volatile private var running = false
+
+  private val thread = new Thread("workers-controller") {
+    setDaemon(true)
+    override def run(): Unit = {
+      lastCount = workers.processedCount
+      lastTime = System.nanoTime
+      try {
+        while (running) {
+          Thread.sleep(interval)
+          if (running) adjust()
+        }
+      } catch {
+        case _: InterruptedException => // stopped
+      }
+    }
+  }
+
+  def start(): Unit = {
+    running = true
+    thread.start()
+  }
+
+  override def close(): Unit = {
+    running = false
+    thread.interrupt()
+    thread.join()
+  }
+
+  private def adjust(): Unit = {
+    val count = workers.processedCount
+    val time = System.nanoTime
+    val throughput = (count - lastCount) * 1e9 / math.max(time - lastTime, 1L)
+    lastCount = count
+    lastTime = time
+
+    val threads = workers.threadCount
+    val fill = workers.queueSize.toDouble / math.max(workers.queueCapacity, 1)
+    val cpu = cpuLoad
+
+    val slower = lastChange != 0 && throughput < lastThroughput * 0.95
+    slowSamples = if (slower) slowSamples + 1 else 0
+    val undo = slowSamples >= 2
+
+    val change =
+      if (undo) - lastChange
+      else if (slower || hold > 0) 0
+      else if (fill >= 0.5 && cpu < 0.9 && threads < maxThreads) 1
+      else if ((fill < 0.1 || cpu > 0.98) && threads > minThreads) -1
+      else 0
+
+    val target = math.max(minThreads, math.min(maxThreads, threads + change))
+    if (target != threads) {
+      logger.fine("workers: " + threads + " -> " + target + " threads, " + throughput.toLong + " values/s, queue " + (fill * 100).toInt + "% full, cpu " + (cpu * 100).toInt + "%")
+      workers.resize(target)
+    }
+
+    if (undo) {
+      hold = 1
+      slowSamples = 0
+      lastChange = 0
+      lastThroughput = throughput
+    }
+    else if (! slower) {
+      hold = math.max(0, hold - 1)
+      lastChange = target - threads
+      lastThroughput = throughput
+    }
+    // else keep the change and the throughput before it, and look again next time
+  }
+
+  /**
+   * @return CPU load of this process between 0 and 1, estimated from the system load average
+   *         if the JVM doesn't provide it
+   */
+  private def cpuLoad: Double = ManagementFactory.getOperatingSystemMXBean match {
+    case os: com.sun.management.OperatingSystemMXBean if os.getProcessCpuLoad >= 0 => os.getProcessCpuLoad
+    case os => math.max(0.0, math.min(1.0, os.getSystemLoadAverage / processors))
+  }
+}
@@ -20,12 +20,22 @@ abstract class Node( val children : List[Node], val line : Int)
     //Set the parent of all children
     for(child <- children) child.parent = this
 
-    private val annotations = new HashMap[AnnotationKey[_], Any]()
+    /**
+     * Created by the first setAnnotation. Most nodes of a page never get an annotation.
+     */
+    private var annotations : HashMap[AnnotationKey[_], Any] = null
 
   /**
     * TODO the UriGenerator class needs to be replaced (see bottom)
+    * Created by the first generateUri. Most nodes of a page never generate a URI.
     */
-    private val uriGenerator = new UriGenerator()
+    private var _uriGenerator : UriGenerator = null
+
+    private def uriGenerator : UriGenerator =
+    {
+        if(_uriGenerator == null) _uriGenerator = new UriGenerator()
+        _uriGenerator
+    }
 
     def generateUri(baseUri : String, node : Node) = uriGenerator.generate(baseUri, node)
 
@@ -97,7 +107,10 @@ abstract class Node( val children : List[Node], val line : Int)
     final def retrieveText: Option[String] = retrieveText(true)
 
     protected def retrieveText(recurse: Boolean): Option[String] = {
-      if (recurse && children.length == 1) children(0).retrieveText(false) else None
+      children match {
+        case child :: Nil if recurse => child.retrieveText(false)
+        case _ => None
+      }
     }
 
     /**
@@ -108,7 +121,7 @@ abstract class Node( val children : List[Node], val line : Int)
      */
     @unchecked // we know the type is ok - setAnnotation doesn't allow any other type
     def getAnnotation[T](key: AnnotationKey[T]): Option[T] = {
-      annotations.get(key).asInstanceOf[Option[T]]
+      if (annotations == null) None else annotations.get(key).asInstanceOf[Option[T]]
     }
 
     /**
@@ -118,6 +131,7 @@ abstract class Node( val children : List[Node], val line : Int)
      * @param value The value of the annotation
      */
     def setAnnotation[T](key: AnnotationKey[T], value: T): Unit = {
+      if (annotations == null) annotations = new HashMap[AnnotationKey[_], Any]()
       annotations(key) = value
     }
     
@@ -1,7 +1,6 @@
 package org.dbpedia.extraction.wikiparser
 
-import org.dbpedia.extraction.wikiparser.impl.simple.SimpleWikiParser
-import org.dbpedia.extraction.wikiparser.impl.wikipedia.Disambiguation
+import org.dbpedia.extraction.wikiparser.impl.wikipedia.WikiPatterns
 
 /**
  * Represents a page.
@@ -33,16 +32,11 @@ extends Node(children, 0)
   def toDumpXML = WikiPage.toDumpXML(title, id, revision, timestamp, contributorID, contributorName, toWikiText, "text/x-wiki")
 
 
-  def isRedirect: Boolean ={
-    SimpleWikiParser.getRedirectPattern(title.language).findFirstMatchIn(this.source) match{
-      case Some(x) => true
-      case None => false
-    }
-  }
+  def isRedirect: Boolean = WikiPatterns.redirect(title.language).findIn(this.source)
 
 
   def isDisambiguation: Boolean ={
-    val disambiguationNames = Disambiguation.get(this.title.language).getOrElse(Set("Disambig"))
+    val disambiguationNames = WikiPatterns.disambiguation(this.title.language)
     children.exists(node => findTemplate(node, disambiguationNames))
   }
 
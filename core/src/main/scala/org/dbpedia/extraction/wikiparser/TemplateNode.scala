@@ -16,7 +16,7 @@ case class TemplateNode (
     titleParsed : List[Node] = List())
   extends Node(children, line)
 {
-    private val propertyMap : Map[String, PropertyNode] = Map.empty ++ (for(property <- children) yield (property.key, property))
+    private lazy val propertyMap : Map[String, PropertyNode] = Map.empty ++ (for(property <- children) yield (property.key, property))
     
     /**
      * Retrieves a property by its key.
@@ -3,9 +3,11 @@ package org.dbpedia.extraction.wikiparser
 import org.dbpedia.extraction.util.{RecordEntry, RecordSeverity}
 import org.dbpedia.extraction.util.StringUtils._
 import org.dbpedia.extraction.wikiparser.impl.simple.SimpleWikiParser
+import org.dbpedia.extraction.wikiparser.impl.wikipedia.WikiPatterns
 
 import scala.collection.mutable
 import scala.collection.mutable.ListBuffer
+import scala.util.{Failure, Try}
 import scala.xml.Elem
 
 /**
@@ -36,13 +38,53 @@ class WikiPage(
 
   private val extractionRecords = ListBuffer[RecordEntry[WikiPage]]()
 
-  lazy val pageNode: Option[PageNode] = SimpleWikiParser(this)
+  // ASTs of the simple and the sweble parser, see parsed. Pages are handled by one thread at a time,
+  // transient because a deserialized page parses again.
+  @transient private var simpleParse: Try[Option[PageNode]] = _
+  @transient private var swebleParse: Try[Option[PageNode]] = _
+  @transient private var _parseNanos = 0L
 
-  def isRedirect: Boolean = SimpleWikiParser.getRedirectPattern(title.language).findFirstMatchIn(this.source) match{
-    case Some(x) => true
-    case None => false
+  /**
+   * The AST of the simple parser, parsed once and shared with WikiParserWrapper.
+   */
+  def pageNode: Option[PageNode] = parsed(sweble = false)(SimpleWikiParser(this))
+
+  /**
+   * Parses this page once per parser: later calls for the same parser return the same AST,
+   * or throw the same exception, so that all extractors of a page share one parse. toggleRetry
+   * forgets the parses.
+   *
+   * @param sweble true for the sweble parser, false for the simple parser
+   * @param parse parses the page
+   */
+  private[wikiparser] def parsed(sweble: Boolean)(parse: => Option[PageNode]): Option[PageNode] = {
+    var result = if (sweble) swebleParse else simpleParse
+    if (result == null) {
+      val start = System.nanoTime
+      result = Try(parse)
+      _parseNanos += System.nanoTime - start
+      if (sweble) swebleParse = result else simpleParse = result
+    }
+    result.get
   }
 
+  /**
+   * @return true if a parser was run on this page
+   */
+  def isParsed: Boolean = simpleParse != null || swebleParse != null
+
+  /**
+   * @return nanoseconds spent parsing this page, by all parsers
+   */
+  def parseNanos: Long = _parseNanos
+
+  /**
+   * @return the exception of a parser that failed on this page, null if none failed
+   */
+  def parseError: Throwable = Seq(simpleParse, swebleParse).collectFirst { case Failure(ex) => ex }.orNull
+
+  def isRedirect: Boolean = WikiPatterns.redirect(title.language).findIn(this.source)
+
   def isDisambiguation: Boolean = pageNode match{
     case Some(s) => s.isDisambiguation
     case None => throw new WikiParserException("WikiPage " + title.encoded + " could not be extracted.")
@@ -73,8 +115,14 @@ class WikiPage(
 
   private var isRetryy = false
 
+  /**
+   * Also forgets the parses of this page, so that a retry parses it again and records only its own parse.
+   */
   def toggleRetry(): Unit = {
     this.isRetryy = !this.isRetryy
+    simpleParse = null
+    swebleParse = null
+    _parseNanos = 0L
   }
 
   def isRetry: Boolean = this.isRetryy
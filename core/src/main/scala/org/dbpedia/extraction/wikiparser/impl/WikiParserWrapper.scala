@@ -30,10 +30,11 @@ class WikiParserWrapper(wikiTextParserName: String) extends  WikiParser{
     page.format match {
       //case "application/json" => jsonParser(page)  //obslete now after core refactoring
       case _ =>
+        // parsed once per page and parser, see WikiPage.parsed
         if (wikiTextParserName == null || wikiTextParserName.equals("simple")){
-          SimpleWikiParser(page)
+          page.parsed(sweble = false)(SimpleWikiParser(page))
         } else {
-          swebleWikiParser(page)
+          page.parsed(sweble = true)(swebleWikiParser(page))
         }
 
     }
@@ -4,24 +4,28 @@ private final class Matcher(val userTags : List[String], matchStdTags : Boolean
 {
     private val stdTags = if(matchStdTags) List("[[", "[", "http", "{{", "{|", "\n=", "<!--", "<ref", "<math", "<code", "<source") else List()
 
-    /** Indicates whether all tags start with a special char (see: isSpecialChar) */
-    private val onlySpecialChars = (stdTags ::: userTags).map(tag => tag(0)).forall(isSpecialChar)
-
     /**
-     * True, if the given character is one of: \n, ' ', <, =, >, [, ], {, |, }, h.
-     * These characters are usually used as tokens in MediaWiki.
+     * The tags by their first character, in the order in which they are tested at a position:
+     * standard tags before user tags, each in list order. Null for characters that start no tag.
+     * Built once per matcher, so that execute only tests the tags that can start at a position.
      */
-    @inline
-    private def isSpecialChar(c : Char) : Boolean =
+    private val asciiCandidates = new Array[Array[Candidate]](128)
+
+    /** Same as asciiCandidates, for tags that start with a non-ASCII character */
+    private val otherCandidates : Map[Char, Array[Candidate]] =
     {
-       c == 'h' || c == 10 || c == 33 || (c >= 60 && c <= 62) || c == 91 || c == 93 || (c >= 123 && c <= 125)
+        val candidates = stdTags.zipWithIndex.map{ case (tag, index) => new Candidate(tag, index, true) } :::
+                         userTags.zipWithIndex.map{ case (tag, index) => new Candidate(tag, index, false) }
+
+        val byChar = candidates.groupBy(_.tag(0)).map{ case (c, list) => (c, list.toArray) }
+        for((c, array) <- byChar if c < 128) asciiCandidates(c) = array
+        byChar.filter(_._1 >= 128)
     }
 
     def execute(source : String, startPos : Int) : MatchResult =
     {
         var pos = startPos
-        var tagIndex = -1
-        var tagLength = 0
+        val length = source.length
 
         //Handle special case when a section begins in the first line
         if(matchStdTags && pos == 0 && source.nonEmpty && source(0) == '=')
@@ -29,46 +33,39 @@ private final class Matcher(val userTags : List[String], matchStdTags : Boolean
             return new MatchResult(true, 1, stdTags.indexOf("\n="), "\n=", true)
         }
 
-        while(pos < source.length)
+        while(pos < length)
         {
-            if(!onlySpecialChars || isSpecialChar(source(pos)))
-            {
-                // check for standard tags (if set)
-                tagIndex = 0
-                for(tag <- stdTags)
-                {
-                    tagLength = tag.length;
-                    if(pos + tagLength <= source.length && source.regionMatches(pos, tag, 0, tagLength))
-                    {
-                        pos += tagLength;
-                        return new MatchResult(true, pos, tagIndex, tag, true)
-                    }
-
-                    tagIndex += 1
-                }
+            val c = source.charAt(pos)
+            val candidates = if(c < 128) asciiCandidates(c) else if(otherCandidates.isEmpty) null else otherCandidates.getOrElse(c, null)
 
-                // check for actually searched for tags
-                tagIndex = 0
-                for(tag <- userTags)
+            if(candidates != null)
+            {
+                var i = 0
+                while(i < candidates.length)
                 {
-                    tagLength = tag.length;
-                    if(pos + tagLength <= source.length && source.regionMatches(pos, tag, 0, tagLength))
+                    // the first character is already known to match
+                    val candidate = candidates(i)
+                    val tagLength = candidate.tag.length
+                    if(pos + tagLength <= length && source.regionMatches(pos + 1, candidate.tag, 1, tagLength - 1))
                     {
-                        pos += tagLength;
-                        return new MatchResult(true, pos, tagIndex, tag, false)
+                        return new MatchResult(true, pos + tagLength, candidate.tagIndex, candidate.tag, candidate.isStdTag)
                     }
 
-                    tagIndex += 1
+                    i += 1
                 }
             }
-            
-            pos += 1;
+
+            pos += 1
         }
 
         new MatchResult(false, pos)
     }
 }
 
+private final class Candidate( val tag : String,
+                               val tagIndex : Int,
+                               val isStdTag : Boolean )
+
 private final class MatchResult( val matched : Boolean,
                                  val pos : Int,
                                  val tagIndex : Int = 0,
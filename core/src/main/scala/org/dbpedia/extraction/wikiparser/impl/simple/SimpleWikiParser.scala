@@ -6,7 +6,7 @@ import org.apache.jena.iri.IRIException
 import org.dbpedia.extraction.util.RichString.wrapString
 import org.dbpedia.extraction.util.{Language, WikiUtil}
 import org.dbpedia.extraction.wikiparser._
-import org.dbpedia.extraction.wikiparser.impl.wikipedia.Redirect
+import org.dbpedia.extraction.wikiparser.impl.wikipedia.WikiPatterns
 import org.dbpedia.iri.{IRISyntaxException, UriUtils}
 
 import scala.util.{Failure, Success}
@@ -19,6 +19,9 @@ object SimpleWikiParser
     private val MaxNestingLevel = 10
     private val MaxErrors = 1000
 
+    // matches the standard tags only, parses a whole source
+    private val stdTags = new Matcher(List(), true)
+
     private val commentEnd = new Matcher(List("-->"))
 
     private val htmlTagEndOrStart = new Matcher(List("/>", "<"), false)
@@ -62,8 +65,8 @@ object SimpleWikiParser
       // - generating the XML dump files takes several days, and the wikitext is obviously not generated at the
       //   same time as the redirect target, so sometimes they do not match.
       // In a nutshell: if the redirect in WikiPage is different from what we find, we're probably correct.
-      val pattern = """(?is)\s*(?:""" + Redirect(lang).mkString("|") + """)\s*:?\s*\[\[.*"""
-      pattern.r
+      // The pattern is compiled once per language, WikiPage.isRedirect matches it without a regex.
+      WikiPatterns.redirect(lang).regex
     }
 
     /**
@@ -83,7 +86,7 @@ object SimpleWikiParser
       else
       {
         //Parse source
-        val nodes = parseUntil(new Matcher(List(), true), new Source(page.source, page.title.language), 0)
+        val nodes = parseUntil(stdTags, new Source(page.source, page.title.language), 0)
 
         //Return page node
         Some(new PageNode(page.title, page.id, page.revision, page.timestamp, page.contributorID, page.contributorName, page.source, nodes))
@@ -118,17 +121,17 @@ object SimpleWikiParser
             //Add text
             if(m.matched && source.pos - lastPos > m.tag.length)
             {
-                currentText += source.getString(lastPos, source.pos - m.tag.length)
+                currentText = concat(currentText, source.getString(lastPos, source.pos - m.tag.length))
             }
             else if(!m.matched)
             {
-                currentText += source.getString(lastPos, source.pos)
+                currentText = concat(currentText, source.getString(lastPos, source.pos))
             }
 
             //If this text is at the beginning => remove leading whitespace
             if(nodes.isEmpty)
             {
-                currentText = currentText.replaceAll("^\\s+", "")
+                currentText = trimStart(currentText)
             }
             
             //If this text is at the end => remove trailing whitespace and return
@@ -218,6 +221,27 @@ object SimpleWikiParser
         nodes.reverse
     }
 
+    /**
+     * Text nodes usually consist of a single piece of the source, which is then used as it is instead of being copied again.
+     */
+    private def concat(text : String, piece : String) : String =
+    {
+        if(text.isEmpty) piece else if(piece.isEmpty) text else text + piece
+    }
+
+    /**
+     * Removes leading whitespace like replaceAll("^\\s+", ""), without compiling a regex for every text node.
+     */
+    private def trimStart(text : String) : String =
+    {
+        var start = 0
+        while(start < text.length && isWhitespace(text.charAt(start))) start += 1
+        if(start == 0) text else text.substring(start)
+    }
+
+    // the characters of \s in java.util.regex
+    private def isWhitespace(c : Char) : Boolean = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+
     private def skipHtmlTag(source : Source, matcher : Matcher)
     {
         source.find(htmlTagEndOrStart, throwIfNoMatch = false)
@@ -326,7 +350,7 @@ object SimpleWikiParser
                 //reparse the text
                 val newSource = new Source(newText, source.language)
                 newSource.line = source.line
-                val newNodes = parseUntil(new Matcher(List(), true), newSource, 0)
+                val newNodes = parseUntil(stdTags, newSource, 0)
 
                 val newNodesToText = newNodes.map(_.toPlainText).mkString(" ").trim
                 if (newNodesToText.isEmpty && newNodes.nonEmpty)
@@ -13,48 +13,92 @@ private final class Source(source : String, val language : Language)
 {
     //TODO create new class Position
     var pos = 0
-    var line = 1
+
+    /** Line of the first character of the source, see line_= */
+    private var firstLine = 1
+
+    /** Positions of all line breaks in the source, built when a line number is needed first */
+    private var lineBreaks : Array[Int] = null
+
+    /** Last result of lineBreaksBefore, most line numbers are requested several times for the same position */
+    private var lastEnd = 0
+    private var lastCount = 0
 
     /** Error counter */
     var errors = 0
 
     def length = source.length
 
-    def seek(count : Int) : Boolean =
+    /**
+     * The line of the current position, resolved from the line break index.
+     */
+    def line : Int = firstLine + lineBreaksBefore(pos)
+
+    /**
+     * Sets the line of the current position, the lines of all other positions are relative to it.
+     */
+    def line_=(line : Int) : Unit =
+    {
+        firstLine = line - lineBreaksBefore(pos)
+    }
+
+    /**
+     * @return the number of line breaks before the given position
+     */
+    private def lineBreaksBefore(end : Int) : Int =
     {
-        if(count >= 0)
+        if(lineBreaks == null)
         {
-            if(pos + count <= source.length)
-            {
-                for(c <- source.substring(pos, pos + count) if c == '\n') line += 1
-                pos += count
+            var count = 0
+            var i = source.indexOf('\n')
+            while(i != -1) { count += 1; i = source.indexOf('\n', i + 1) }
+
+            lineBreaks = new Array[Int](count)
+            count = 0
+            i = source.indexOf('\n')
+            while(i != -1) { lineBreaks(count) = i; count += 1; i = source.indexOf('\n', i + 1) }
+        }
 
-                true
-            }
-            else
+        if(end != lastEnd)
+        {
+            //binary search for the first line break at or after end
+            var low = 0
+            var high = lineBreaks.length
+            while(low < high)
             {
-                for(c <- source.substring(pos) if c == '\n') line += 1
-                pos = source.length - 1
-
-                false
+                val mid = (low + high) >>> 1
+                if(lineBreaks(mid) < end) low = mid + 1 else high = mid
             }
+
+            lastEnd = end
+            lastCount = low
         }
-        else
+
+        lastCount
+    }
+
+    def seek(count : Int) : Boolean =
+    {
+        if(pos + count >= 0 && pos + count <= source.length)
         {
-            if(pos + count >= 0)
-            {
-                for(c <- source.substring(pos + count, pos) if c == '\n') line -= 1
-                pos += count
+            pos += count
 
-                true
-            }
-            else
-            {
-                for(c <- source.substring(0, pos) if c == '\n') line -= 1
-                pos = 0
+            true
+        }
+        else if(count >= 0)
+        {
+            //count all remaining lines, but stop at the last character
+            val endLine = firstLine + lineBreaksBefore(source.length)
+            pos = source.length - 1
+            line = endLine
 
-                false
-            }
+            false
+        }
+        else
+        {
+            pos = 0
+
+            false
         }
     }
 
@@ -65,15 +109,8 @@ private final class Source(source : String, val language : Language)
      */
     def find(matcher : Matcher, throwIfNoMatch : Boolean = true) : MatchResult =
     {
-        val oldPos = pos
-
         val result = matcher.execute(source, pos)
         pos = result.pos
-        
-        if(pos != oldPos)
-        {
-            for(c <- source.substring(oldPos, pos) if c == '\n') line += 1
-        }
 
         if(!result.matched && throwIfNoMatch)
         {
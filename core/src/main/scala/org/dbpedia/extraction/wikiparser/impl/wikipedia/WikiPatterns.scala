@@ -0,0 +1,222 @@
+package org.dbpedia.extraction.wikiparser.impl.wikipedia
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.regex.Pattern
+
+import org.dbpedia.extraction.util.Language
+
+import scala.util.matching.Regex
+
+/**
+ * The compiled patterns for the redirect magic words and disambiguation templates of each language.
+ * Built on first use and shared by all threads. Patterns are keyed by wiki code, since Redirect and
+ * Disambiguation are, so that all Language objects of a wiki code share them.
+ */
+object WikiPatterns
+{
+    private val redirects = new PerLanguage(language => new RedirectPattern(Redirect(language)))
+
+    private val disambiguationNames = new PerLanguage(language => Disambiguation.get(language).getOrElse(Set("Disambig")))
+
+    private val disambiguationTemplates = new PerLanguage(language =>
+    {
+        val names = disambiguation(language).map(name => name.split("[ _]+").map(Pattern.quote).mkString("[ _]+"))
+        Pattern.compile("""\{\{\s*(?:""" + names.mkString("|") + """)\s*(?:\||\}\})""", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)
+    })
+
+    /**
+     * @return the redirect magic words of the language
+     */
+    def redirect(language : Language) : RedirectPattern = redirects(language)
+
+    /**
+     * @return the names of the disambiguation templates of the language, "Disambig" if it has none
+     */
+    def disambiguation(language : Language) : Set[String] = disambiguationNames(language)
+
+    /**
+     * @return a pattern that finds the disambiguation templates of the language in wiki text
+     */
+    def disambiguationTemplate(language : Language) : Pattern = disambiguationTemplates(language)
+
+    private class PerLanguage[T <: AnyRef](build : Language => T)
+    {
+        private val values = new ConcurrentHashMap[String, T]()
+
+        def apply(language : Language) : T =
+        {
+            val value = values.get(language.wikiCode)
+            if(value != null) value
+            else
+            {
+                // two threads may build the same value, only one is kept
+                val built = build(language)
+                val previous = values.putIfAbsent(language.wikiCode, built)
+                if(previous != null) previous else built
+            }
+        }
+    }
+}
+
+/**
+ * The redirect magic words of a language, e.g. #REDIRECT.
+ */
+final class RedirectPattern(names : Set[String])
+{
+    /**
+     * Finds a redirect anywhere in wiki text, ignoring ASCII case: a name, an optional colon and [[.
+     */
+    lazy val regex : Regex = ("""(?is)\s*(?:""" + names.mkString("|") + """)\s*:?\s*\[\[.*""").r
+
+    /**
+     * Matches wiki text that starts with a redirect and extracts its destination. Ignores case like
+     * MediaWiki does.
+     */
+    lazy val destinationRegex : Regex =
+    {
+        // (?ius) enables CASE_INSENSITIVE UNICODE_CASE DOTALL
+        // case insensitive and unicode are important - that's what mediawiki does.
+        // Note: Although we do not specify a Locale, UNICODE_CASE does mostly the right thing.
+        // DOTALL means that '.' also matches line terminators.
+        // Reminder: (?:...) are non-capturing groups, '*?' is a reluctant qualifier.
+        // (?:#[^\n]*?)? is an optional (the last '?') non-capturing group meaning: there may
+        // be a '#' after which everything but line breaks is allowed ('[]{}|<>' are not allowed
+        // before the '#'). The match is reluctant ('*?'), which means that we recognize ']]'
+        // as early as possible.
+        // (?:\|[^\n]*?)? is another optional non-capturing group that reluctantly consumes
+        // a '|' character and everything but line breaks after it.
+        ("""(?ius)\s*(?:""" + names.mkString("|") + """)\s*:?\s*\[\[([^\[\]{}|<>\n]+(?:#[^\n]*?)?)(?:\|[^\n]*?)?\]\].*""").r
+    }
+
+    private val asciiCase = new MagicWordTrie(names, unicodeCase = false)
+
+    private val unicodeCase = new MagicWordTrie(names, unicodeCase = true)
+
+    /**
+     * Same as regex.findFirstMatchIn(text).isDefined, without a regex.
+     */
+    def findIn(text : String) : Boolean =
+    {
+        text != null && asciiCase.find(text, isLinkStart)
+    }
+
+    /**
+     * Same as destinationRegex.unapplySeq(text).isDefined, but the destination itself is not checked.
+     * False for almost all pages that are not redirects.
+     */
+    def maybeStartOf(text : String) : Boolean =
+    {
+        text != null && unicodeCase.matchesAt(text, MagicWordTrie.skipWhitespace(text, 0), isLinkStart)
+    }
+
+    // \s*:?\s*\[\[ after the name
+    private val isLinkStart = (text : String, end : Int) =>
+    {
+        var pos = MagicWordTrie.skipWhitespace(text, end)
+        if(pos < text.length && text.charAt(pos) == ':') pos = MagicWordTrie.skipWhitespace(text, pos + 1)
+        text.startsWith("[[", pos)
+    }
+}
+
+/**
+ * Case insensitive prefix trie of the names of a magic word. Names match like a regex alternation
+ * of the names compiled with CASE_INSENSITIVE, and UNICODE_CASE if unicodeCase is set.
+ */
+final class MagicWordTrie(names : Iterable[String], unicodeCase : Boolean)
+{
+    private final class TrieNode
+    {
+        var chars = new Array[Char](0)
+        var children = new Array[TrieNode](0)
+        var terminal = false
+
+        def child(c : Char) : TrieNode =
+        {
+            var i = 0
+            while(i < chars.length)
+            {
+                if(chars(i) == c) return children(i)
+                i += 1
+            }
+            null
+        }
+
+        def add(c : Char) : TrieNode =
+        {
+            val node = new TrieNode
+            chars :+= c
+            children :+= node
+            node
+        }
+    }
+
+    private val root = new TrieNode
+
+    for(name <- names)
+    {
+        var node = root
+        for(c <- name)
+        {
+            val folded = fold(c)
+            val next = node.child(folded)
+            node = if(next != null) next else node.add(folded)
+        }
+        node.terminal = true
+    }
+
+    // the case folding of java.util.regex.Pattern for single characters
+    private def fold(c : Char) : Char =
+    {
+        if(unicodeCase) Character.toLowerCase(Character.toUpperCase(c))
+        else if(c >= 'A' && c <= 'Z') (c + ('a' - 'A')).toChar
+        else c
+    }
+
+    /**
+     * @param accept called with the text and the end of each name that starts at pos, shortest first
+     * @return true if a name starts at pos and accept returned true for it
+     */
+    def matchesAt(text : String, pos : Int, accept : (String, Int) => Boolean) : Boolean =
+    {
+        var node = root
+        var end = pos
+        while(end < text.length)
+        {
+            node = node.child(fold(text.charAt(end)))
+            if(node == null) return false
+            end += 1
+            if(node.terminal && accept(text, end)) return true
+        }
+        false
+    }
+
+    /**
+     * @return true if a name starts anywhere in the text and accept returned true for it
+     */
+    def find(text : String, accept : (String, Int) => Boolean) : Boolean =
+    {
+        var pos = 0
+        while(pos < text.length)
+        {
+            if(root.child(fold(text.charAt(pos))) != null && matchesAt(text, pos, accept)) return true
+            pos += 1
+        }
+        false
+    }
+}
+
+object MagicWordTrie
+{
+    /**
+     * @return the position of the first character at or after pos that is not matched by \s
+     */
+    def skipWhitespace(text : String, pos : Int) : Int =
+    {
+        var end = pos
+        while(end < text.length && isWhitespace(text.charAt(end))) end += 1
+        end
+    }
+
+    // the characters of \s in java.util.regex
+    private def isWhitespace(c : Char) : Boolean = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+}
@@ -0,0 +1,84 @@
+package org.dbpedia.extraction.destinations
+
+import java.nio.file.Files
+
+import org.dbpedia.extraction.transform.Quad
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class QuadFingerprintsTest extends FlatSpec with Matchers
+{
+  private def quad(i: Int, context: String = "c") =
+    new Quad("en", "d", "http://dbpedia.org/resource/S" + (i / 10), "http://dbpedia.org/ontology/p", "v" + i, context, null)
+
+  private def addAll(set: QuadFingerprints): Unit = {
+    for (i <- 0 until 200000) set.add(quad(i)) shouldBe true
+    for (i <- 0 until 200000) set.add(quad(i, "other")) shouldBe false
+    set.close()
+  }
+
+  "QuadFingerprints" should "find quads again after the tables grew" in {
+    addAll(new QuadFingerprints(1024))
+  }
+
+  it should "find quads again after they were spilled" in {
+    val dir = Files.createTempDirectory("fingerprints").toFile
+    addAll(new QuadFingerprints(1024, dir, 64 * 2048 * 16))
+    dir.listFiles shouldBe empty
+    dir.delete()
+  }
+
+  it should "merge spilled tables into a few files per stripe and search them only behind their filters" in {
+    val dir = Files.createTempDirectory("fingerprints").toFile
+    // tables of 2048 slots per stripe, i.e. a spill every 1536 fingerprints of a stripe
+    val set = new QuadFingerprints(1024, dir, 64 * 2048 * 16)
+    val count = 400000
+
+    for (i <- 0 until count) set.add(quad(i)) shouldBe true
+    set.spills should be >= 64 * 3
+    // at most log2(spills) + 1 files per stripe, with about 4 spills per stripe
+    set.spillFiles should be <= 64 * 3
+    dir.listFiles.length shouldBe set.spillFiles
+    // only the false positives of the filters are searched
+    set.runSearches should be < count / 20L
+
+    val searches = set.runSearches
+    for (i <- 0 until count) set.add(quad(i, "other")) shouldBe false
+    dir.listFiles.length shouldBe set.spillFiles
+    // every quad that is found in a spill file passed its filter once, plus the false positives
+    // of the filters of the newer files
+    set.runSearches - searches should be <= count.toLong * 21 / 20
+
+    set.close()
+    dir.listFiles shouldBe empty
+    dir.delete()
+  }
+
+  it should "rewrite each spilled fingerprint only a logarithmic number of times" in {
+    val dir = Files.createTempDirectory("fingerprints").toFile
+    // tables of 1024 slots per stripe, i.e. about 20 spills of 768 fingerprints per stripe
+    val set = new QuadFingerprints(1024, dir, 64 * 1024 * 16)
+    val count = 1000000
+
+    for (i <- 0 until count) set.add(quad(i)) shouldBe true
+    set.spills should be >= 64 * 19
+    // one write plus at most log2(20) rewrites, a single file per stripe would need about 10
+    set.spillWrites should be <= count.toLong * 6
+    set.spillFiles should be <= 64 * 5
+    for (i <- 0 until count by 7) set.add(quad(i, "other")) shouldBe false
+
+    set.close()
+    dir.listFiles shouldBe empty
+    dir.delete()
+  }
+
+  it should "not confuse quads whose fields only differ in where they are split" in {
+    val set = new QuadFingerprints(1024)
+    set.add(new Quad("en", "d", "ab", "c", "v", null, null)) shouldBe true
+    set.add(new Quad("en", "d", "a", "bc", "v", null, null)) shouldBe true
+    set.add(new Quad("en", "d", "a", "bc", "v", null, "t")) shouldBe true
+    set.close()
+  }
+}
@@ -0,0 +1,151 @@
+package org.dbpedia.extraction.destinations
+
+import java.io.{IOException, Writer}
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+
+import org.dbpedia.extraction.destinations.formatters.Formatter
+import org.dbpedia.extraction.transform.Quad
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class WriterDestinationTest extends FlatSpec with Matchers
+{
+  /** one line per quad */
+  private object LineFormatter extends Formatter
+  {
+    override def header = "header\n"
+    override def footer = "footer\n"
+    override def render(quad: Quad) = quad.subject + " " + quad.value + "\n"
+  }
+
+  private def graph(name: String, size: Int): Seq[Quad] =
+    for (i <- 0 until size) yield new Quad("en", "d", name, "p", i.toString, null, null)
+
+  /** collects the output, optionally fails or waits before each write after the header */
+  private class TestWriter extends Writer
+  {
+    val out = new StringBuilder
+    @volatile var closed = false
+    @volatile var failing = false
+    @volatile var gate: CountDownLatch = null
+    @volatile var delayMillis = 0
+
+    override def write(chars: Array[Char], off: Int, len: Int): Unit = {
+      if (out.nonEmpty) {
+        if (failing) throw new IOException("disk full")
+        if (gate != null) gate.await()
+        if (delayMillis > 0) Thread.sleep(delayMillis)
+      }
+      out.appendAll(chars, off, len)
+    }
+
+    override def flush(): Unit = {}
+
+    override def close(): Unit = closed = true
+  }
+
+  "WriterDestination" should "neither interleave nor lose the graphs of concurrent writers" in {
+    val writer = new TestWriter
+    val destination = new WriterDestination(() => writer, LineFormatter, buffers = 4)
+    destination.open()
+
+    val threads = for (t <- 0 until 8) yield new Thread {
+      override def run(): Unit = for (g <- 0 until 300) destination.write(graph("t" + t + "g" + g, 1 + g % 25))
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+    destination.close()
+    writer.closed shouldBe true
+
+    val lines = writer.out.toString.split("\n").toSeq
+    lines.head shouldBe "header"
+    lines.last shouldBe "footer"
+
+    // each graph is one run of lines, in the order of its quads
+    val body = lines.slice(1, lines.length - 1).map(_.split(" ")).map(parts => (parts(0), parts(1).toInt))
+    val runs = body.foldLeft(List[(String, Int)]()) {
+      case ((name, count) :: rest, (subject, index)) if name == subject =>
+        index shouldBe count
+        (name, count + 1) :: rest
+      case (acc, (subject, index)) =>
+        index shouldBe 0
+        (subject, 1) :: acc
+    }
+    runs should have size 8 * 300
+    runs.map(_._1).distinct should have size 8 * 300
+    for ((name, count) <- runs) count shouldBe 1 + name.substring(name.indexOf('g') + 1).toInt % 25
+  }
+
+  it should "make writers wait once all buffers are in use" in {
+    val writer = new TestWriter
+    val destination = new WriterDestination(() => writer, LineFormatter, buffers = 2)
+    destination.open()
+    writer.gate = new CountDownLatch(1)
+
+    val written = new AtomicInteger
+    val producer = new Thread {
+      override def run(): Unit = for (g <- 0 until 5) {
+        destination.write(graph("g" + g, 3))
+        written.incrementAndGet()
+      }
+    }
+    producer.start()
+
+    // the writer thread holds one buffer, the other one waits to be written
+    Thread.sleep(500)
+    written.get shouldBe 2
+    producer.isAlive shouldBe true
+
+    writer.gate.countDown()
+    producer.join(10000)
+    written.get shouldBe 5
+    destination.close()
+    writer.out.toString.split("\n").count(_.startsWith("g")) shouldBe 15
+  }
+
+  it should "pass the error of a failing writer to its callers and still close it" in {
+    val writer = new TestWriter
+    val destination = new WriterDestination(() => writer, LineFormatter, buffers = 2)
+    destination.open()
+    writer.failing = true
+
+    val done = new CountDownLatch(1)
+    var error: Throwable = null
+    val producer = new Thread {
+      override def run(): Unit = {
+        try for (g <- 0 until 100) destination.write(graph("g" + g, 3))
+        catch { case ex: Throwable => error = ex }
+        done.countDown()
+      }
+    }
+    producer.start()
+
+    // without the failure check, the producer would wait for a free buffer forever
+    done.await(10, TimeUnit.SECONDS) shouldBe true
+    error should not be null
+    error.getCause shouldBe an [IOException]
+
+    val thrown = the [RuntimeException] thrownBy destination.close()
+    thrown.getCause shouldBe an [IOException]
+    writer.closed shouldBe true
+  }
+
+  it should "write the footer after all graphs" in {
+    val writer = new TestWriter
+    val destination = new WriterDestination(() => writer, LineFormatter, buffers = 3)
+    destination.open()
+    writer.delayMillis = 5
+
+    for (g <- 0 until 20) destination.write(graph("g" + g, 2))
+    destination.close()
+
+    val lines = writer.out.toString.split("\n").toSeq
+    lines should have size 42
+    lines.head shouldBe "header"
+    lines.last shouldBe "footer"
+    lines.slice(1, 41) shouldBe (0 until 20).flatMap(g => Seq("g" + g + " 0", "g" + g + " 1"))
+  }
+}
@@ -0,0 +1,68 @@
+package org.dbpedia.extraction.destinations.formatters
+
+import java.lang.management.ManagementFactory
+
+import org.dbpedia.extraction.transform.Quad
+
+/**
+ * Compares Formatter.render with Formatter.renderTo into a re-used buffer: quads per second
+ * and bytes allocated per quad on the benchmark thread. Not a test, run it with
+ *
+ * scala -cp ... org.dbpedia.extraction.destinations.formatters.FormatterBenchmark [quads]
+ */
+object FormatterBenchmark
+{
+  private val threadBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+
+  def main(args: Array[String]): Unit =
+  {
+    val count = if (args.length > 0) args(0).toInt else 1000000
+
+    val quads = Array.tabulate(1000) { i =>
+      val subject = "http://dbpedia.org/resource/Page_" + (i / 20)
+      val context = "http://en.wikipedia.org/wiki/Page_" + (i / 20) + "?oldid=" + (1000 + i / 20) + "&ns=0"
+      i % 3 match {
+        case 0 => new Quad("en", "infobox-properties", subject, "http://dbpedia.org/property/name", "Name \"" + i + "\" with ümlauts", context, "http://www.w3.org/1999/02/22-rdf-syntax-ns#langString")
+        case 1 => new Quad("en", "infobox-properties", subject, "http://dbpedia.org/property/population", i.toString, context, "http://www.w3.org/2001/XMLSchema#integer")
+        case _ => new Quad("en", "page-links", subject, "http://dbpedia.org/ontology/wikiPageWikiLink", "http://dbpedia.org/resource/Target_" + i, context, null)
+      }
+    }
+
+    val formatters = Seq(
+      "n-quads" -> new TerseFormatter(true, false),
+      "turtle" -> new TerseFormatter(false, true),
+      "trix" -> new TriXFormatter(true),
+      "rdf-json" -> new RDFJSONFormatter()
+    )
+
+    for (round <- 1 to 3; (name, formatter) <- formatters)
+    {
+      val sink = new java.lang.StringBuilder(1 << 16)
+
+      measure(round, name, "render  ", count) { i =>
+        sink.append(formatter.render(quads(i % quads.length)))
+        if (sink.length > (1 << 15)) sink.setLength(0)
+      }
+
+      measure(round, name, "renderTo", count) { i =>
+        formatter.renderTo(quads(i % quads.length), sink)
+        if (sink.length > (1 << 15)) sink.setLength(0)
+      }
+    }
+  }
+
+  private def measure(round: Int, name: String, method: String, count: Int)(proc: Int => Unit): Unit =
+  {
+    val thread = Thread.currentThread.getId
+    val bytes = threadBean.getThreadAllocatedBytes(thread)
+    val start = System.nanoTime
+    var i = 0
+    while (i < count) {
+      proc(i)
+      i += 1
+    }
+    val seconds = (System.nanoTime - start) / 1e9
+    val allocated = threadBean.getThreadAllocatedBytes(thread) - bytes
+    println("round " + round + ", " + name + " " + method + ": " + (count / seconds).toLong + " quads/s, " + (allocated / count) + " bytes/quad")
+  }
+}
@@ -0,0 +1,105 @@
+package org.dbpedia.extraction.destinations.formatters
+
+import org.dbpedia.extraction.transform.Quad
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class RenderToTest extends FlatSpec with Matchers
+{
+  private val LangString = "http://www.w3.org/1999/02/22-rdf-syntax-ns#langString"
+
+  private val formatters = Seq(
+    "n-quads" -> new TerseFormatter(true, false),
+    "n-triples" -> new TerseFormatter(false, false),
+    "turtle-quads" -> new TerseFormatter(true, true),
+    "trix-quads" -> new TriXFormatter(true),
+    "trix-triples" -> new TriXFormatter(false),
+    "rdf-json" -> new RDFJSONFormatter()
+  )
+
+  // good quads with bad ones in between: bad subject, bad context, both, bad datatype
+  private val quads = for (i <- 0 until 600) yield {
+    val subject = if (i % 7 == 3) "bad/subject/" + i else "http://dbpedia.org/resource/Page_" + (i / 10)
+    val context = if (i % 11 == 5) "bad/context/" + i else "http://en.wikipedia.org/wiki/Page_" + (i / 10) + "?oldid=" + i
+    i % 5 match {
+      case 0 => new Quad("en", "d", subject, "http://dbpedia.org/property/name", "Name \"" + i + "\" ümlaut\n", context, LangString)
+      case 1 => new Quad("en", "d", subject, "http://dbpedia.org/property/population", i.toString, context, "http://www.w3.org/2001/XMLSchema#integer")
+      case 2 => new Quad("en", "d", subject, "http://dbpedia.org/property/note", "note <" + i + ">", context, "http://www.w3.org/2001/XMLSchema#string")
+      case 3 => new Quad("en", "d", subject, "http://dbpedia.org/property/odd", i.toString, context, "bad/datatype")
+      case _ => new Quad("en", "d", subject, "http://dbpedia.org/ontology/wikiPageWikiLink", "http://dbpedia.org/resource/Target_" + i, context, null)
+    }
+  }
+
+  for ((name, formatter) <- formatters) {
+    "renderTo" should "append the same text as render for " + name + " into one shared buffer" in {
+      val sink = new java.lang.StringBuilder("already in the buffer\n")
+      for (quad <- quads) formatter.renderTo(quad, sink)
+      sink.toString shouldBe "already in the buffer\n" + quads.map(formatter.render).mkString
+    }
+  }
+
+  "TerseBuilder" should "comment out only the line with bad URIs, and only once" in {
+    val formatter = new TerseFormatter(true, false)
+    val sink = new java.lang.StringBuilder
+    for (quad <- quads) formatter.renderTo(quad, sink)
+
+    val lines = sink.toString.split("\n").toSeq
+    lines should have size quads.size
+    for ((line, quad) <- lines.zip(quads)) {
+      val bad = quad.subject.startsWith("bad/") || quad.context.startsWith("bad/") || quad.datatype == "bad/datatype"
+      if (bad) {
+        line should startWith ("# <")
+        // lines with several bad URIs used to start with one "# " per bad URI
+        line should not startWith "# #"
+      }
+      else line should startWith ("<http://dbpedia.org/resource/")
+    }
+
+    // a bad subject and a bad context in the same line
+    val both = quads.indexWhere(q => q.subject.startsWith("bad/") && q.context.startsWith("bad/"))
+    both should be >= 0
+    lines(both) should startWith ("# <BAD URI: ")
+    lines(both) should include ("> <BAD URI: ")
+    lines(both).indexOf("# ", 1) shouldBe -1
+    formatter.render(quads(both)) shouldBe lines(both) + "\n"
+  }
+
+  it should "start a new line in a new buffer after an unfinished triple" in {
+    val builder = new TerseBuilder(true, false)
+    val first = new java.lang.StringBuilder("first\n")
+    builder.appendTo(first)
+    builder.start("http://example.com/context")
+    builder.subjectUri("bad/subject")
+    first.toString should startWith ("first\n# ")
+
+    val second = new java.lang.StringBuilder("second\n")
+    builder.appendTo(second)
+    builder.start("http://example.com/context")
+    builder.subjectUri("http://example.com/s")
+    builder.predicateUri("http://example.com/p")
+    builder.objectUri("bad/object")
+    builder.end("http://example.com/context")
+    second.toString shouldBe "second\n# <http://example.com/s> <http://example.com/p> <BAD URI: IRI validation failed for: bad/object> <http://example.com/context> .\n"
+  }
+
+  "TriXBuilder" should "indent from the start in a new buffer after an unfinished triple" in {
+    val builder = new TriXBuilder(true)
+    builder.appendTo(new java.lang.StringBuilder)
+    builder.start("http://example.com/context")
+    builder.subjectUri("http://example.com/s")
+
+    val sink = new java.lang.StringBuilder
+    builder.appendTo(sink)
+    builder.start("http://example.com/context")
+    builder.subjectUri("http://example.com/s")
+    builder.predicateUri("http://example.com/p")
+    builder.plainLiteral("value", "en")
+    builder.end("http://example.com/context")
+
+    val quad = new Quad("en", "d", "http://example.com/s", "http://example.com/p", "value", "http://example.com/context", LangString)
+    sink.toString shouldBe new TriXFormatter(true).render(quad)
+    sink.toString should startWith ("  <graph>\n")
+  }
+}
@@ -0,0 +1,95 @@
+package org.dbpedia.extraction.destinations.formatters
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.util.Random
+
+@RunWith(classOf[JUnitRunner])
+class UriTripleBuilderTest extends FlatSpec with Matchers
+{
+  /** exposes parseUri, writes nothing */
+  private class ParseBuilder(policies: Array[UriPolicy.Policy]) extends UriTripleBuilder(policies)
+  {
+    def parse(str: String, pos: Int): String = parseUri(str, pos)
+    override def uri(uri: String, pos: Int): Unit = {}
+    override def start(context: String): Unit = {}
+    override def plainLiteral(value: String, isoLang: String): Unit = {}
+    override def typedLiteral(value: String, datatype: String): Unit = {}
+    override def end(context: String): Unit = {}
+    override def result(): String = ""
+  }
+
+  // different policies for subjects and the other positions
+  private val policies = UriPolicy.parsePolicy("uri:*; generic-subjects:*")
+
+  /** all strings of the given number of blocks of "Aa" and "BB", which have the same hash code */
+  private def colliding(prefix: String, blocks: Int): Seq[String] =
+    (0 until (1 << blocks)).map(bits => prefix + (0 until blocks).map(b => if ((bits >> b & 1) == 0) "Aa" else "BB").mkString)
+
+  private def randomUris(random: Random, count: Int): Seq[String] =
+    for (_ <- 0 until count) yield random.nextInt(4) match {
+      case 0 => "http://fr.dbpedia.org/resource/" + random.alphanumeric.take(1 + random.nextInt(8)).mkString
+      case 1 => "http://de.dbpedia.org/resource/Straße_" + random.nextInt(3000)
+      case 2 => "http://example.com/" + random.nextInt(3000)
+      case _ => "bad/" + random.nextInt(100)
+    }
+
+  "parseUri" should "return the same as the policies for random and colliding strings in a re-used builder" in {
+    val random = new Random(4711)
+    val keys = randomUris(random, 5000) ++
+      colliding("http://fr.dbpedia.org/resource/", 10) ++
+      colliding("http://example.com/café/", 10) ++
+      colliding("bad/", 8)
+    colliding("http://example.com/", 4).map(_.hashCode).distinct should have size 1
+
+    // go over the keys several times in random order, some keys as equal copies
+    val inputs = random.shuffle(keys ++ keys ++ keys).map(key => if (random.nextBoolean()) new String(key) else key)
+
+    val reused = new ParseBuilder(policies)
+    reused.appendTo(new java.lang.StringBuilder)
+
+    for (key <- inputs; pos <- 0 until UriPolicy.POSITIONS) {
+      // a builder that is not re-used has no memo
+      val expected = new ParseBuilder(policies).parse(key, pos)
+      reused.parse(key, pos) shouldBe expected
+    }
+  }
+
+  it should "cache BAD URI results and keep them apart from good ones" in {
+    val builder = new ParseBuilder(null)
+    builder.appendTo(new java.lang.StringBuilder)
+    for (round <- 0 until 3; key <- colliding("bad/", 6) ++ colliding("http://example.com/", 6)) {
+      val result = builder.parse(key, UriPolicy.SUBJECT)
+      if (key.startsWith("bad/")) result shouldBe "BAD URI: IRI validation failed for: " + key
+      else result shouldBe key
+    }
+    builder.parse(null, UriPolicy.SUBJECT) shouldBe "BAD URI: null"
+  }
+
+  "UriMemo" should "replace the entry of the same slot" in {
+    val memo = new UriMemo(16)
+    val Seq(first, second) = colliding("x", 1)
+    memo.put(first, "1")
+    memo.get(first) shouldBe "1"
+    memo.put(second, "2")
+    memo.get(second) shouldBe "2"
+    memo.get(first) shouldBe null
+  }
+
+  it should "find equal keys that are not the same object" in {
+    val memo = new UriMemo(16)
+    val key = "http://example.com/a"
+    memo.put(key, "http://example.com/b")
+    memo.get(new String(key)) shouldBe "http://example.com/b"
+    memo.get("http://example.com/c") shouldBe null
+  }
+
+  it should "return the key itself for values equal to it" in {
+    val memo = new UriMemo(16)
+    val key = "http://example.com/a"
+    memo.put(key, new String(key))
+    memo.get(new String(key)) should be theSameInstanceAs key
+  }
+}
@@ -0,0 +1,87 @@
+package org.dbpedia.extraction.mappings
+
+import org.dbpedia.extraction.config.provenance.Dataset
+import org.dbpedia.extraction.ontology.{Ontology, OntologyProperty}
+import org.dbpedia.extraction.transform.Quad
+import org.dbpedia.extraction.util.Language
+import org.dbpedia.extraction.wikiparser._
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class CompositePageNodeExtractorTest extends FlatSpec with Matchers
+{
+  private val text =
+    """Intro with a [[Link]] and [http://example.com an external link].
+      |{{Infobox|name=[[Name]]|nested={{Flag|de}}}}
+      |== Section ==
+      |[[Other link|with {{Lang|fr|text}}]] and {{Cite|url=http://example.org}}
+      |""".stripMargin
+
+  private val page = WikiParser.getInstance()(new WikiPage(WikiTitle.parse("Title", Language.English), text)).get
+
+  private val ontology = new Ontology(
+    Map(),
+    Seq("wikiPageWikiLink", "wikiPageExternalLink", "wikiPageUsesTemplate").map(name =>
+      name -> new OntologyProperty(name, Map(Language.English -> name), Map(), null, null, false, Set(), Set())).toMap,
+    Map(),
+    Map(),
+    Map(),
+    Map()
+  )
+
+  private val context = new {
+    def ontology = CompositePageNodeExtractorTest.this.ontology
+    def language = Language.English
+    def redirects = new Redirects(Map())
+  }
+
+  "CompositePageNodeExtractor" should "extract the same quads in one walk as the extractors one by one" in {
+    val extractors = Seq(new PageLinksExtractor(context), new TemplateCounter, new ExternalLinksExtractor(context), new ArticleTemplatesExtractor(context))
+    val expected = extractors.flatMap(_.extract(page, "http://example.org/Title"))
+    expected.map(_.dataset).distinct should have size 5
+
+    new CompositePageNodeExtractor(extractors: _*).extract(page, "http://example.org/Title") shouldBe expected
+  }
+
+  "PageNodeVisitor" should "visit the nodes of its types in document order and skip below closed nodes" in {
+    val visitor = new NodeRecorder(Seq(classOf[TemplateNode], classOf[InternalLinkNode]), close = classOf[InternalLinkNode])
+    visitor.extract(page, "").map(_.value) shouldBe Seq("Link", "Infobox", "Name", "Flag", "Other link", "Cite")
+  }
+
+  it should "be skipped for pages it returns no visit for" in {
+    val visitor = new NodeRecorder(Seq(classOf[TemplateNode]), close = classOf[TemplateNode]) {
+      override def visitPage(page: PageNode, subjectUri: String) = None
+    }
+    new CompositePageNodeExtractor(visitor, new TemplateCounter).extract(page, "").map(_.value) shouldBe Seq("4")
+  }
+
+  /** records the names of the visited nodes, does not look below nodes of class close */
+  private class NodeRecorder(override val nodeTypes: Seq[Class[_ <: Node]], close: Class[_]) extends PageNodeVisitor
+  {
+    override val datasets = Set.empty[Dataset]
+
+    override def visitPage(page: PageNode, subjectUri: String): Option[PageNodeVisit] = Some(new PageNodeVisit {
+      override def visit(node: Node): Boolean = {
+        val name = node match {
+          case template: TemplateNode => template.title.decoded
+          case link: InternalLinkNode => link.destination.decoded
+        }
+        quads += new Quad("en", "nodes", subjectUri, "node", name, null, null)
+        !close.isInstance(node)
+      }
+    })
+  }
+
+  /** walks the AST itself */
+  private class TemplateCounter extends PageNodeExtractor
+  {
+    override val datasets = Set.empty[Dataset]
+
+    override def extract(page: PageNode, subjectUri: String): Seq[Quad] = {
+      def count(node: Node): Int = (if (node.isInstanceOf[TemplateNode]) 1 else 0) + node.children.map(count).sum
+      Seq(new Quad("en", "count", subjectUri, "templates", count(page).toString, null, null))
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package org.dbpedia.extraction.mappings
+
+import java.io._
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.util.Random
+
+@RunWith(classOf[JUnitRunner])
+class TitleStoreTest extends FlatSpec with Matchers
+{
+  private def tempStore(): TitleStore =
+  {
+    val index = File.createTempFile("titles-index", ".bin")
+    val data = File.createTempFile("titles-data", ".bin")
+    index.deleteOnExit()
+    data.deleteOnExit()
+    new TitleStore(index, data)
+  }
+
+  "TitleStore" should "find the titles added by several threads in any order" in {
+    val store = tempStore()
+    val ids = new Random(4711).shuffle((1L to 20000L).map(_ * 3) :+ 0xFFFFFFFFL)
+    def title(id: Long) = "Category:Straße_" + id
+
+    val writer = new TitleStore.Writer(store)
+    val threads = for (t <- 0 until 4) yield new Thread() {
+      override def run(): Unit = for (i <- t until ids.size by 4) writer.add(ids(i), title(ids(i)))
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+    writer.close()
+    writer.size shouldBe ids.size
+
+    for (id <- ids) store.get(id) shouldBe Some(title(id))
+    store.get(0) shouldBe None
+    store.get(4) shouldBe None
+    store.get(0x100000000L) shouldBe None
+  }
+
+  it should "open its files again after deserialization" in {
+    val store = tempStore()
+    val writer = new TitleStore.Writer(store)
+    writer.add(12, "Berlin")
+    writer.add(10, "")
+    writer.close()
+
+    val bytes = new ByteArrayOutputStream()
+    val out = new ObjectOutputStream(bytes)
+    out.writeObject(store)
+    out.close()
+    val copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray)).readObject().asInstanceOf[TitleStore]
+
+    copy.get(12) shouldBe Some("Berlin")
+    copy.get(10) shouldBe Some("")
+    copy.get(11) shouldBe None
+  }
+
+  "TitleStore.Writer" should "reject page ids that don't fit into 32 bits" in {
+    val writer = new TitleStore.Writer(tempStore())
+    an [IllegalArgumentException] should be thrownBy writer.add(0x100000000L, "Too_large")
+    an [IllegalArgumentException] should be thrownBy writer.add(-1, "Negative")
+    writer.close()
+  }
+}
@@ -0,0 +1,78 @@
+package org.dbpedia.extraction.mappings
+
+import java.io.File
+import java.lang.management.ManagementFactory
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.dbpedia.extraction.config.Config
+import org.dbpedia.extraction.ontology.Ontology
+import org.dbpedia.extraction.ontology.io.OntologyReader
+import org.dbpedia.extraction.sources.XMLSource
+import org.dbpedia.extraction.util.Language
+import org.dbpedia.extraction.wikiparser.impl.json.JsonWikiParser
+import org.dbpedia.extraction.wikiparser.{JsonNode, WikiPage, WikiTitle}
+
+import scala.io.{Codec, Source}
+
+/**
+ * Measures WikidataR2RExtractor.extract on a local sample of Wikidata entities: entities per second,
+ * quads per entity and bytes allocated per entity on the benchmark thread. The sample is a file with
+ * one JSON entity per line, like a cut from a Wikidata JSON dump. Not a test, run it with
+ *
+ * scala -cp ... org.dbpedia.extraction.mappings.WikidataR2RBenchmark ontology.xml entities.json [rounds]
+ */
+object WikidataR2RBenchmark
+{
+  private val threadBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+
+  def main(args: Array[String]): Unit =
+  {
+    require(args.length >= 2, "usage: WikidataR2RBenchmark ontology.xml entities.json [rounds]")
+    val sample = new File(args(1))
+    val rounds = if (args.length > 2) args(2).toInt else 10
+
+    val context = new {
+      val ontology: Ontology = new OntologyReader().read(XMLSource.fromFile(new File(args(0)), Language.Mappings))
+      val language: Language = Language.Wikidata
+      // wikidata-property-mappings.json is looked up next to the sample
+      val configFile: Config = new Config(null, sample.getAbsoluteFile.getParent)
+    }
+
+    val start = System.nanoTime
+    val extractor = new WikidataR2RExtractor(context)
+    println("compiled mappings of " + extractor.mappings.size + " properties in " + (System.nanoTime - start) / 1000000 + " ms")
+
+    val pages = parse(sample)
+    println("parsed " + pages.length + " entities")
+
+    for (round <- 1 to rounds)
+    {
+      val thread = Thread.currentThread.getId
+      val bytes = threadBean.getThreadAllocatedBytes(thread)
+      val start = System.nanoTime
+      var quads = 0L
+      for ((page, subjectUri) <- pages)
+        quads += extractor.extract(page, subjectUri).size
+      val seconds = (System.nanoTime - start) / 1e9
+      val allocated = threadBean.getThreadAllocatedBytes(thread) - bytes
+      println("round " + round + ": " + (pages.length / seconds).toLong + " entities/s, " + (quads / pages.length) + " quads/entity, " + (allocated / pages.length) + " bytes/entity")
+    }
+  }
+
+  private def parse(sample: File): Array[(JsonNode, String)] =
+  {
+    val mapper = new ObjectMapper()
+    val parser = new JsonWikiParser()
+    val source = Source.fromFile(sample)(Codec.UTF8)
+    try {
+      val lines = source.getLines().map(_.trim.stripSuffix(",")).filter(_.startsWith("{"))
+      lines.flatMap { json =>
+        val id = mapper.readTree(json).get("id").asText
+        val title = WikiTitle.parse(id, Language.Wikidata)
+        val page = new WikiPage(title, null, -1, -1, -1, 0, "", json, "application/json")
+        parser(page).map(node => (node, Language.Wikidata.resourceUri.append(id)))
+      }.toArray
+    }
+    finally source.close()
+  }
+}
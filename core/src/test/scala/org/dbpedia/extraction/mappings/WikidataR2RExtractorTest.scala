@@ -0,0 +1,262 @@
+package org.dbpedia.extraction.mappings
+
+import java.io.File
+import java.nio.file.Files
+
+import org.dbpedia.extraction.config.Config
+import org.dbpedia.extraction.config.provenance.DBpediaDatasets
+import org.dbpedia.extraction.ontology.datatypes.Datatype
+import org.dbpedia.extraction.ontology.io.OntologyReader
+import org.dbpedia.extraction.ontology.{Ontology, OntologyClass, OntologyObjectProperty, OntologyProperty}
+import org.dbpedia.extraction.sources.XMLSource
+import org.dbpedia.extraction.transform.Quad
+import org.dbpedia.extraction.util.{JsonConfig, Language, WikidataUtil}
+import org.dbpedia.extraction.wikiparser.impl.json.JsonWikiParser
+import org.dbpedia.extraction.wikiparser.{JsonNode, WikiPage, WikiTitle}
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+import org.wikidata.wdtk.datamodel.interfaces._
+
+import scala.collection.JavaConversions._
+import scala.collection.mutable
+import scala.collection.mutable.ArrayBuffer
+import scala.language.reflectiveCalls
+
+@RunWith(classOf[JUnitRunner])
+class WikidataR2RExtractorTest extends FlatSpec with Matchers
+{
+  private lazy val testContext = new {
+    val ontology: Ontology = new OntologyReader().read(XMLSource.fromFile(new File("../ontology.xml"), Language.Mappings))
+    val language: Language = Language.Wikidata
+    val configFile: Config = new Config(null, classMappingsDir.getPath)
+  }
+
+  // wikidata-property-mappings.json with classes for items that the ontology has no equivalent class for
+  private lazy val classMappingsDir = {
+    val dir = Files.createTempDirectory("wikidata-r2r").toFile
+    dir.deleteOnExit()
+    val file = new File(dir, "wikidata-property-mappings.json")
+    file.deleteOnExit()
+    Files.write(file.toPath, """{"Q183": "Country", "Q64": "City"}""".getBytes("UTF-8"))
+    dir
+  }
+
+  private lazy val extractor = new WikidataR2RExtractor(testContext)
+
+  private lazy val reference = new FormerR2R(testContext.ontology, extractor.classMappings,
+    new JsonConfig(getClass.getClassLoader.getResource("wikidatar2r.json")))
+
+  // Wikidata JSON values as (datatype, datavalue)
+  private def item(id: Int) = "wikibase-item" -> s"""{"value":{"entity-type":"item","numeric-id":$id},"type":"wikibase-entityid"}"""
+  private def string(value: String) = "string" -> s"""{"value":"$value","type":"string"}"""
+  private def media(file: String) = "commonsMedia" -> s"""{"value":"$file","type":"string"}"""
+  private def time(time: String) = "time" -> s"""{"value":{"time":"$time","timezone":0,"before":0,"after":0,"precision":11,"calendarmodel":"http://www.wikidata.org/entity/Q1985727"},"type":"time"}"""
+  private def globe(latitude: Double, longitude: Double) = "globe-coordinate" -> s"""{"value":{"latitude":$latitude,"longitude":$longitude,"altitude":null,"precision":0.0001,"globe":"http://www.wikidata.org/entity/Q2"},"type":"globecoordinate"}"""
+  private def quantity(amount: Int) = "quantity" -> s"""{"value":{"amount":"+$amount","unit":"1","upperBound":"+${amount + 1}","lowerBound":"+${amount - 1}"},"type":"quantity"}"""
+
+  private def snak(property: String, value: (String, String)) =
+    s"""{"snaktype":"value","property":"$property","datavalue":${value._2},"datatype":"${value._1}"}"""
+
+  private case class Statement(id: String, property: String, value: (String, String), rank: String = "normal", qualifiers: Seq[(String, (String, String))] = Nil)
+  {
+    def json: String = {
+      val groups = qualifiers.groupBy(_._1).map { case (p, qs) => "\"" + p + "\":[" + qs.map(q => snak(q._1, q._2)).mkString(",") + "]" }
+      val order = qualifiers.map("\"" + _._1 + "\"").distinct
+      s"""{"mainsnak":${snak(property, value)},"type":"statement","id":"$id","rank":"$rank","qualifiers":{${groups.mkString(",")}},"qualifiers-order":[${order.mkString(",")}]}"""
+    }
+  }
+
+  private def entity(id: String, statements: Statement*): (JsonNode, String) = {
+    val properties = statements.map(_.property).distinct
+    val claims = properties.map(p => "\"" + p + "\":[" + statements.filter(_.property == p).map(_.json).mkString(",") + "]")
+    val json = s"""{"type":"item","id":"$id","labels":{},"descriptions":{},"aliases":{},"sitelinks":{},"claims":{${claims.mkString(",")}}}"""
+    val page = new WikiPage(WikiTitle.parse(id, Language.Wikidata), null, -1, -1, -1, 0, "", json, "application/json")
+    (new JsonWikiParser().apply(page).get, Language.Wikidata.resourceUri.append(id))
+  }
+
+  private lazy val entities = Seq(
+    entity("Q42",
+      // $getDBpediaClass from the ontology and from the class mappings file, with transitive types
+      Statement("Q42$1", "P31", item(5)),
+      Statement("Q42$2", "P31", item(64)),
+      // one-to-one equivalents, one of them to two ontology properties
+      Statement("Q42$3", "P569", time("+1952-03-11T00:00:00Z")),
+      Statement("Q42$4", "P570", time("+2001-05-11T00:00:00Z")),
+      // $1 and $2, the latter into the namespace sameAs and the images datasets
+      Statement("Q42$5", "P214", string("113230702")),
+      Statement("Q42$6", "P1472", string("Douglas Adams")),
+      Statement("Q42$7", "P18", media("Douglas adams portrait cropped.jpg")),
+      // $2 into a property with xsd:string range: mapping error
+      Statement("Q42$8", "P154", media("Some logo.svg")),
+      // the same value twice, with qualifiers that are also mapped to several properties
+      Statement("Q42$9", "P17", item(145), qualifiers = Seq("P580" -> time("+1952-03-11T00:00:00Z"), "P582" -> time("+1980-01-01T00:00:00Z"), "P31" -> item(5))),
+      Statement("Q42$10", "P17", item(145), qualifiers = Seq("P580" -> time("+1990-01-01T00:00:00Z"))),
+      Statement("Q42$11", "P17", item(183))
+    ),
+    entity("Q64",
+      Statement("Q64$1", "P31", item(515)),
+      Statement("Q64$2", "P279", item(515)),
+      // coordinates into type, lat, long and point
+      Statement("Q64$3", "P625", globe(52.516666666667, 13.383333333333)),
+      Statement("Q64$4", "P1082", quantity(3500000)),
+      // the preferred statement wins over the normal ones
+      Statement("Q64$5", "P36", item(1), rank = "normal"),
+      Statement("Q64$6", "P36", item(2), rank = "preferred"),
+      Statement("Q64$7", "P17", item(183), qualifiers = Seq("P580" -> time("+1990-10-03T00:00:00Z"), "P582" -> time("+2100-01-01T00:00:00Z")))
+    )
+  )
+
+  private def key(quad: Quad) = (quad.dataset, quad.subject, quad.predicate, quad.value, quad.datatype, quad.context)
+
+  "WikidataR2RExtractor" should "extract the same distinct quads as the former command receivers" in {
+    for ((page, subjectUri) <- entities) {
+      extractor.extract(page, subjectUri).map(key).toSet shouldBe reference.extract(page, subjectUri).map(key).toSet
+    }
+  }
+
+  it should "extract into every dataset that the sample entities cover" in {
+    val datasets = entities.flatMap { case (page, subjectUri) => extractor.extract(page, subjectUri) }.map(_.dataset).toSet
+    for (dataset <- Seq(DBpediaDatasets.WikidataR2R_literals, DBpediaDatasets.WikidataR2R_objects, DBpediaDatasets.WikidataR2R_mappingerrors,
+      DBpediaDatasets.WikidataDublicateIriSplit, DBpediaDatasets.WikidataReifiedR2R, DBpediaDatasets.WikidataReifiedR2RQualifier,
+      DBpediaDatasets.GeoCoordinates, DBpediaDatasets.Images, DBpediaDatasets.OntologyTypes, DBpediaDatasets.OntologyTypesTransitive,
+      DBpediaDatasets.WikidataSameAsExternal, DBpediaDatasets.WikidataNameSpaceSameAs, DBpediaDatasets.WikidataR2R_ontology))
+      datasets should contain (dataset.encoded)
+  }
+
+  it should "extract each qualifier of a claim once" in {
+    for ((page, subjectUri) <- entities) {
+      val qualifiers = extractor.extract(page, subjectUri).filter(_.dataset == DBpediaDatasets.WikidataReifiedR2RQualifier.encoded).map(key)
+      qualifiers should not be empty
+      qualifiers.distinct should have size qualifiers.size
+    }
+  }
+}
+
+/**
+ * The mapping of the former WikidataR2RExtractor, which resolved a WikidataCommandReceiver through
+ * JsonConfig.getCommand for each statement and qualifier, kept to compare the compiled mappings with.
+ */
+private class FormerR2R(ontology: Ontology, classMappings: collection.Map[String, Set[OntologyClass]], config: JsonConfig)
+{
+  private val language = Language.Wikidata
+  private val equivalentProperties = ontology.wikidataPropertiesMap.map(x => x._1 -> x._2.map(_.uri))
+  private val rdfType = ontology.properties("rdf:type")
+  private val wikidataSplitIri = ontology.properties("wikidataSplitIri")
+  private val rdfStatement = "http://www.w3.org/1999/02/22-rdf-syntax-ns#Statement"
+  private val rdfSubject = "http://www.w3.org/1999/02/22-rdf-syntax-ns#subject"
+  private val rdfPredicate = "http://www.w3.org/1999/02/22-rdf-syntax-ns#predicate"
+  private val rdfObject = "http://www.w3.org/1999/02/22-rdf-syntax-ns#object"
+
+  def extract(page: JsonNode, subjectUri: String): Seq[Quad] = {
+    val quads = new ArrayBuffer[Quad]()
+    val sourceIri = page.wikiPage.sourceIri
+
+    for (statementGroup <- page.wikiDataDocument.getStatementGroups) {
+      val values = statementGroup.getStatements.toList.flatMap(_.getClaim.getMainSnak match {
+        case snak: ValueSnak => Some(snak.getPropertyId.getId + " " + snak.getValue)
+        case _ => None
+      })
+      val duplicates = values.diff(values.distinct).distinct
+      val preferred = statementGroup.getStatements.filter(_.getRank == StatementRank.PREFERRED)
+      val statements = if (preferred.nonEmpty) preferred else statementGroup.getStatements.filter(_.getRank == StatementRank.NORMAL)
+
+      for (statement <- statements) statement.getClaim.getMainSnak match {
+        case mainSnak: ValueSnak =>
+          val property = mainSnak.getPropertyId.getId
+          val value = mainSnak.getValue
+          val statementUri = WikidataUtil.getStatementUri(subjectUri, property, value)
+          if (duplicates.contains(property + " " + value)) {
+            val statementUriWithHash = WikidataUtil.getStatementUriWithHash(subjectUri, property, value, statement.getStatementId)
+            quads += new Quad(language, DBpediaDatasets.WikidataDublicateIriSplit, statementUri, wikidataSplitIri, statementUriWithHash, sourceIri, null)
+          }
+
+          val mapped = mutable.Map[String, String]()
+          map(property, value, mapped)
+          for ((key, mappedValue) <- mapped; ontologyProperty <- ontology.properties.get(key)) {
+            val datatype = datatypeOf(ontologyProperty)
+            if (mappedValue.startsWith("http:") && datatype != null && datatype.name == "xsd:string") {
+              quads += new Quad(language, DBpediaDatasets.WikidataR2R_mappingerrors, subjectUri, ontologyProperty, mappedValue, sourceIri, datatype)
+            } else {
+              val dataset = if (ontologyProperty.isInstanceOf[OntologyObjectProperty]) DBpediaDatasets.WikidataR2R_objects else DBpediaDatasets.WikidataR2R_literals
+              val quad = new Quad(language, dataset, subjectUri, ontologyProperty, mappedValue, sourceIri, datatype)
+              quads ++= split(quad, subjectUri, sourceIri)
+              quads += new Quad(language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfType, rdfStatement, sourceIri)
+              quads += new Quad(language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfSubject, quad.subject, sourceIri, null)
+              quads += new Quad(language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfPredicate, quad.predicate, sourceIri, null)
+              quads += new Quad(language, DBpediaDatasets.WikidataReifiedR2R, statementUri, rdfObject, quad.value, sourceIri, datatype)
+            }
+          }
+
+          // one receiver for all qualifiers of the claim, so earlier qualifiers were emitted again
+          val qualifierMap = mutable.Map[String, String]()
+          for (qualifier <- statement.getClaim.getQualifiers; qual <- qualifier) qual match {
+            case valueSnak: ValueSnak =>
+              map(valueSnak.getPropertyId.getId, valueSnak.getValue, qualifierMap)
+              for ((key, mappedValue) <- qualifierMap; ontologyProperty <- ontology.properties.get(key))
+                quads += new Quad(language, DBpediaDatasets.WikidataReifiedR2RQualifier, statementUri, ontologyProperty, mappedValue, sourceIri, datatypeOf(ontologyProperty))
+            case _ =>
+          }
+
+        case _ =>
+      }
+    }
+    quads
+  }
+
+  private def datatypeOf(property: OntologyProperty): Datatype = property.range match {
+    case datatype: Datatype => datatype
+    case _ => null
+  }
+
+  private def equivalentClasses(value: Value): Set[OntologyClass] = value match {
+    case v: ItemIdValue => classMappings.getOrElse(WikidataUtil.getItemId(v), Set())
+    case _ => Set()
+  }
+
+  // WikidataOneToOneCommand if the config has no mappings for the property, WikidataOneToManyCommand otherwise
+  private def map(property: String, value: Value, result: mutable.Map[String, String]): Unit = {
+    val templates = config.getMap(property).map(x => x._1 -> x._2.asText())
+    if (templates.isEmpty) {
+      for (equivalent <- equivalentProperties.getOrElse("wikidata:" + property, Set[String]()))
+        result += equivalent.replace("http://dbpedia.org/ontology/", "") -> WikidataUtil.getValue(value)
+    }
+    else for ((key, template) <- templates) {
+      if (template.contains("$1")) {
+        result += key -> substitute(template, WikidataUtil.replacePunctuation(value.toString).replace(" ", "_").trim)
+      } else if (template.contains("$2")) {
+        for (commons <- Language.get("commons"))
+          result += key -> substitute(template, WikiTitle.parse(WikidataUtil.replacePunctuation(value.toString), commons).encoded.toString)
+      } else template match {
+        case "$getLatitude" => result += key -> (value match { case v: GlobeCoordinatesValue => v.getLatitude.toString case _ => "" })
+        case "$getLongitude" => result += key -> (value match { case v: GlobeCoordinatesValue => v.getLongitude.toString case _ => "" })
+        case "$getGeoRss" => result += key -> (value match { case v: GlobeCoordinatesValue => v.getLatitude + " " + v.getLongitude case _ => "" })
+        case "$getDBpediaClass" => for (mappedClass <- equivalentClasses(value)) result += key -> mappedClass.toString
+        case _ => result += key -> template
+      }
+    }
+  }
+
+  private def substitute(template: String, value: String): String = {
+    if (template.contains("$2")) template.replace("$2", value)
+    else template.replace("$1", value)
+  }
+
+  // the former splitDatasets for a quad of the literal or object dataset
+  private def split(q: Quad, subjectUri: String, sourceIri: String): Seq[Quad] = q.predicate match {
+    case "http://www.w3.org/1999/02/22-rdf-syntax-ns#type" =>
+      if (q.value == "http://www.w3.org/2003/01/geo/wgs84_pos#SpatialThing") Seq(q.copy(dataset = DBpediaDatasets.GeoCoordinates.encoded))
+      else q.copy(dataset = DBpediaDatasets.OntologyTypes.encoded) +:
+        ontology.classes.get(q.value.replace("http://dbpedia.org/ontology/", "")).toSeq.flatMap(clazz =>
+          clazz.relatedClasses.filter(_ != clazz).map(cls => new Quad(language, DBpediaDatasets.OntologyTypesTransitive, subjectUri, rdfType, cls.uri, sourceIri)))
+    case "http://www.w3.org/2000/01/rdf-schema#subClassOf" => Seq(q.copy(dataset = DBpediaDatasets.WikidataR2R_ontology.encoded))
+    case "http://www.w3.org/2003/01/geo/wgs84_pos#lat" | "http://www.w3.org/2003/01/geo/wgs84_pos#long" | "http://www.georss.org/georss/point" =>
+      Seq(q.copy(dataset = DBpediaDatasets.GeoCoordinates.encoded))
+    case "http://xmlns.com/foaf/0.1/thumbnail" | "http://xmlns.com/foaf/0.1/depiction" | "http://dbpedia.org/ontology/thumbnail" =>
+      Seq(q.copy(dataset = DBpediaDatasets.Images.encoded))
+    case "http://www.w3.org/2002/07/owl#sameAs" =>
+      if (q.value.startsWith("http://commons.dbpedia.org")) Seq(q.copy(dataset = DBpediaDatasets.WikidataNameSpaceSameAs.encoded))
+      else Seq(q.copy(dataset = DBpediaDatasets.WikidataSameAsExternal.encoded))
+    case _ => Seq(q)
+  }
+}
@@ -0,0 +1,43 @@
+package org.dbpedia.extraction.ontology
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class ClassHierarchyTest extends FlatSpec with Matchers
+{
+  private val thing = new OntologyClass("owl:Thing", Map(), Map(), List(), Set(), Set())
+  private val agent = new OntologyClass("Agent", Map(), Map(), List(thing), Set(), Set())
+  private val human = new OntologyClass("foaf:Person", Map(), Map(), List(thing), Set(), Set())
+  private val person = new OntologyClass("Person", Map(), Map(), List(agent), Set(human), Set())
+  private val place = new OntologyClass("Place", Map(), Map(), List(thing), Set(), Set(agent))
+  private val city = new OntologyClass("City", Map(), Map(), List(place), Set(), Set())
+  // not part of the index
+  private val unknown = new OntologyClass("Unknown", Map(), Map(), List(person), Set(), Set())
+
+  private val classes = Seq(thing, agent, human, person, place, city)
+  private val hierarchy = new ClassHierarchy(classes)
+
+  "ClassHierarchy" should "answer subclass tests like walking the base classes" in {
+    for (sub <- classes :+ unknown; sup <- classes :+ unknown)
+      hierarchy.isSubclassOf(sub, sup) shouldBe ((sub eq sup) || sub.baseClasses.exists(hierarchy.isSubclassOf(_, sup)))
+    hierarchy.isSubclassOf(person, thing) shouldBe true
+    hierarchy.isSubclassOf(person, human) shouldBe false
+  }
+
+  it should "answer related class tests like relatedClasses" in {
+    for (cls <- classes :+ unknown; other <- classes :+ unknown) {
+      hierarchy.isRelated(cls, other) shouldBe cls.relatedClasses.contains(other)
+      hierarchy.relatedClassesNotIn(cls, other) shouldBe cls.relatedClasses.filterNot(other.relatedClasses.contains)
+    }
+  }
+
+  it should "find disjoint classes through related classes in both directions" in {
+    hierarchy.isDisjoint(city, person) shouldBe true
+    hierarchy.isDisjoint(person, city) shouldBe true
+    hierarchy.isDisjoint(unknown, city) shouldBe true
+    hierarchy.isDisjoint(city, place) shouldBe false
+    hierarchy.isDisjoint(human, city) shouldBe false
+  }
+}
@@ -0,0 +1,61 @@
+package org.dbpedia.extraction.ontology.io
+
+import java.io.File
+
+import org.dbpedia.extraction.ontology.OntologyObjectProperty
+import org.dbpedia.extraction.sources.XMLSource
+import org.dbpedia.extraction.util.Language
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class OntologySnapshotTest extends FlatSpec with Matchers
+{
+  private val ontoFile = new File("../ontology.xml")
+
+  private val ontology = new OntologyReader().read(XMLSource.fromFile(ontoFile, Language.Mappings))
+
+  "OntologySnapshot" should "load the same ontology that was written" in {
+    val file = File.createTempFile("ontology", ".snapshot")
+    try {
+      val hash = OntologySnapshot.sha256(ontoFile)
+      OntologySnapshot.write(ontology, file, hash)
+      val loaded = OntologySnapshot.read(file, hash).get
+
+      loaded.classes.keySet shouldEqual ontology.classes.keySet
+      loaded.properties.keySet shouldEqual ontology.properties.keySet
+      loaded.specializations.keySet shouldEqual ontology.specializations.keySet
+      loaded.wikidataClassesMap shouldEqual ontology.wikidataClassesMap
+      loaded.wikidataPropertiesMap shouldEqual ontology.wikidataPropertiesMap
+
+      for ((name, cls) <- ontology.classes) {
+        val other = loaded.classes(name)
+        other.labels shouldEqual cls.labels
+        other.relatedClasses shouldEqual cls.relatedClasses
+        other.disjointWithClasses shouldEqual cls.disjointWithClasses
+      }
+      for ((name, property) <- ontology.properties) {
+        val other = loaded.properties(name)
+        other.getClass shouldEqual property.getClass
+        other.domain shouldEqual property.domain
+        other.range shouldEqual property.range
+        other.equivalentProperties shouldEqual property.equivalentProperties
+      }
+
+      // linked, not copied
+      val property = loaded.properties.values.collectFirst { case p: OntologyObjectProperty if loaded.classes.contains(p.range.name) => p }.get
+      property.range should be theSameInstanceAs loaded.classes(property.range.name)
+    }
+    finally file.delete()
+  }
+
+  it should "ignore a snapshot of a different source" in {
+    val file = File.createTempFile("ontology", ".snapshot")
+    try {
+      OntologySnapshot.write(ontology, file, Array[Byte](1, 2, 3))
+      OntologySnapshot.read(file, OntologySnapshot.sha256(ontoFile)) shouldBe None
+    }
+    finally file.delete()
+  }
+}
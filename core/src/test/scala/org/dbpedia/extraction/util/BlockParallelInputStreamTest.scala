@@ -0,0 +1,103 @@
+package org.dbpedia.extraction.util
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, InputStream}
+import java.util.zip.GZIPOutputStream
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.util.Random
+
+/**
+ * Compares block-parallel decompression with the original data.
+ */
+@RunWith(classOf[JUnitRunner])
+class BlockParallelInputStreamTest extends FlatSpec with Matchers
+{
+  // several MB of text that compresses well, but not too well
+  private val data = {
+    val random = new Random(42)
+    val words = Array.fill(5000)(random.alphanumeric.take(1 + random.nextInt(12)).mkString)
+    val sb = new StringBuilder
+    while (sb.length < (3 << 20)) sb.append(words(random.nextInt(words.length))).append(if (random.nextInt(12) == 0) '\n' else ' ')
+    sb.toString.getBytes("UTF-8")
+  }
+
+  private def readAll(in: InputStream): Array[Byte] = {
+    val out = new ByteArrayOutputStream()
+    try IOUtils.copy(in, out)
+    finally in.close()
+    out.toByteArray
+  }
+
+  private def bzip2(bytes: Array[Byte], blockSize: Int): Array[Byte] = {
+    val out = new ByteArrayOutputStream()
+    val zip = new BZip2CompressorOutputStream(out, blockSize)
+    zip.write(bytes)
+    zip.close()
+    out.toByteArray
+  }
+
+  private def gzip(bytes: Array[Byte], from: Int, to: Int): Array[Byte] = {
+    val out = new ByteArrayOutputStream()
+    val zip = new GZIPOutputStream(out)
+    zip.write(bytes, from, to - from)
+    zip.close()
+    out.toByteArray
+  }
+
+  "ParallelBZip2InputStream" should "decompress a single stream with many blocks" in {
+    readAll(new ParallelBZip2InputStream(new ByteArrayInputStream(bzip2(data, 1)), 4)) shouldEqual data
+  }
+
+  it should "decompress concatenated streams" in {
+    val half = data.length / 2
+    val streams = bzip2(data.take(half), 1) ++ bzip2(data.drop(half), 9)
+    readAll(new ParallelBZip2InputStream(new ByteArrayInputStream(streams), 3)) shouldEqual data
+  }
+
+  /**
+   * @return the 48 bits at the given bit offset
+   */
+  private def window(bytes: Array[Byte], offset: Long): Long =
+    (0 until 48).foldLeft(0L) { (w, i) =>
+      val pos = offset + i
+      (w << 1) | ((bytes((pos / 8).toInt) >>> (7 - pos % 8).toInt) & 1)
+    }
+
+  /**
+   * Also takes the given bits for an end-of-stream magic number, like a false match in a block.
+   */
+  private class FalseEndStream(bytes: Array[Byte], falseEnds: Set[Long]) extends ParallelBZip2InputStream(new ByteArrayInputStream(bytes), 4)
+  {
+    protected override def isEndMagic(window: Long): Boolean = super.isEndMagic(window) || falseEnds.contains(window)
+  }
+
+  it should "decompress blocks that contain a false end-of-stream magic number" in {
+    val compressed = bzip2(data, 1)
+    val bits = compressed.length * 8L
+    // within a block in the middle and within the last block, before its end-of-stream magic number
+    val falseEnds = Set(window(compressed, bits / 2), window(compressed, bits - 200))
+    readAll(new FalseEndStream(compressed, falseEnds)) shouldEqual data
+  }
+
+  it should "decompress concatenated streams with false end-of-stream magic numbers" in {
+    val half = data.length / 2
+    val first = bzip2(data.take(half), 1)
+    val streams = first ++ bzip2(data.drop(half), 9)
+    // within the last block of the first stream, which is followed by the next stream
+    val falseEnds = Set(window(first, first.length * 8L - 200), window(streams, streams.length * 8L * 3 / 4))
+    readAll(new FalseEndStream(streams, falseEnds)) shouldEqual data
+  }
+
+  "ParallelGZIPInputStream" should "decompress concatenated members" in {
+    val members = (0 until data.length by (256 << 10)).map(from => gzip(data, from, math.min(from + (256 << 10), data.length)))
+    readAll(new ParallelGZIPInputStream(new ByteArrayInputStream(members.reduce(_ ++ _)), 4)) shouldEqual data
+  }
+
+  it should "fall back to sequential decompression of a large single member" in {
+    readAll(new ParallelGZIPInputStream(new ByteArrayInputStream(gzip(data, 0, data.length)), 4, 1 << 16)) shouldEqual data
+  }
+}
@@ -0,0 +1,60 @@
+package org.dbpedia.extraction.util
+
+import java.io.StringWriter
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class ExtractionRecorderTest extends FlatSpec with Matchers
+{
+  "ExtractionRecorder" should "count pages of concurrent threads and report each interval once" in {
+    val log = new StringWriter()
+    val recorder = new ExtractionRecorder[String](log, reportInterval = 1000)
+    recorder.initialize(Language.English, "test")
+
+    val threads = for (t <- 0 until 8) yield new Thread() {
+      override def run(): Unit = for (i <- 0 until 10000) recorder.recordGenericPage(Language.English, "report {page}")
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+    for (i <- 0 until 3) recorder.failedRecord("page " + i, "page " + i, new IllegalArgumentException("test"), Language.English)
+
+    recorder.successfulPages(Language.English) shouldBe 80000
+    recorder.failedPages(Language.English) shouldBe 3
+    recorder.listFailedPages(Language.English).size shouldBe 3
+
+    ExtractionRecorder.flushLog()
+    val lines = log.toString.split("\n")
+    lines.count(_.contains("report ")) shouldBe 80
+    lines.count(_.contains("test failed for instance page")) shouldBe 3
+  }
+
+  it should "count a page that fails again once" in {
+    val recorder = new ExtractionRecorder[String]()
+    recorder.initialize(Language.English, "test")
+
+    val threads = for (t <- 0 until 4) yield new Thread() {
+      override def run(): Unit = for (i <- 0 until 20) recorder.failedRecord("page " + i, "page " + i, new IllegalArgumentException("test"), Language.English)
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+
+    recorder.failedPages(Language.English) shouldBe 20
+    recorder.listFailedPages(Language.English).size shouldBe 20
+  }
+
+  it should "sum the parses of each language" in {
+    val recorder = new ExtractionRecorder[String]()
+    recorder.initialize(Language.English, "test")
+    recorder.recordParse(Language.English, 2000000, failed = false)
+    recorder.recordParse(Language.English, 4000000, failed = true)
+
+    recorder.parsedPages(Language.English) shouldBe 2
+    recorder.parseNanos(Language.English) shouldBe 6000000
+    recorder.failedParses(Language.English) shouldBe 1
+    recorder.parsedPages(Language.Commons) shouldBe 0
+    recorder.getStatusValues(Language.English)("parse") shouldBe "3 ms"
+  }
+}
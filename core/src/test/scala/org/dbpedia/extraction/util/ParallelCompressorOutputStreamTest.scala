@@ -0,0 +1,47 @@
+package org.dbpedia.extraction.util
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, InputStream, OutputStream}
+import java.util.zip.GZIPInputStream
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.util.Random
+
+/**
+ * Reads the output of the parallel compressors with the standard sequential decompressors.
+ */
+@RunWith(classOf[JUnitRunner])
+class ParallelCompressorOutputStreamTest extends FlatSpec with Matchers
+{
+  private val data = {
+    val random = new Random(7)
+    Array.fill(3 << 20)(('a' + random.nextInt(20)).toByte)
+  }
+
+  private def roundTrip(zip: OutputStream => OutputStream, unzip: InputStream => InputStream, bytes: Array[Byte]): Array[Byte] = {
+    val compressed = new ByteArrayOutputStream()
+    val out = zip(compressed)
+    // odd write sizes, so that writes straddle chunks
+    bytes.grouped(12345).foreach(out.write(_))
+    out.close()
+
+    val result = new ByteArrayOutputStream()
+    IOUtils.copy(unzip(new ByteArrayInputStream(compressed.toByteArray)), result)
+    result.toByteArray
+  }
+
+  "ParallelGZIPOutputStream" should "write concatenated gzip members" in {
+    roundTrip(new ParallelGZIPOutputStream(_, 1, 1 << 18), new GZIPInputStream(_), data) shouldEqual data
+  }
+
+  it should "write a valid file without data" in {
+    roundTrip(new ParallelGZIPOutputStream(_), new GZIPInputStream(_), Array()) shouldEqual Array()
+  }
+
+  "ParallelBZip2OutputStream" should "write concatenated bzip2 streams" in {
+    roundTrip(new ParallelBZip2OutputStream(_, 1), new BZip2CompressorInputStream(_, true), data) shouldEqual data
+  }
+}
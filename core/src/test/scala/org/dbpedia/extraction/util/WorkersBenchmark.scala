@@ -0,0 +1,50 @@
+package org.dbpedia.extraction.util
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Compares single and batched hand-off of values to Workers when processing a value is cheap,
+ * like extracting a stub page of a small wiki. Not a test, run it with
+ *
+ * scala -cp ... org.dbpedia.extraction.util.WorkersBenchmark [pages] [threads]
+ */
+object WorkersBenchmark
+{
+  def main(args: Array[String]): Unit =
+  {
+    val pages = if (args.length > 0) args(0).toInt else 2000000
+    val threads = if (args.length > 1) args(1).toInt else Runtime.getRuntime.availableProcessors()
+
+    // small 'pages' of a few hundred characters
+    val sources = Array.tabulate(1024)(i => ("{{Stub}} Page " + i + " links to [[Page " + (i + 1) + "]]. ") * (1 + i % 8))
+
+    for (round <- 1 to 3; batchSize <- Seq(1, 16, 64, 256))
+    {
+      val sum = new AtomicLong()
+      val workers = SimpleWorkers(threads, threads) { source: String =>
+        sum.addAndGet(source.hashCode + source.indexOf("[["))
+      }
+
+      val start = System.nanoTime
+      workers.start()
+      if (batchSize == 1)
+      {
+        for (i <- 0 until pages) workers.process(sources(i & 1023))
+      }
+      else
+      {
+        var i = 0
+        while (i < pages)
+        {
+          val end = math.min(i + batchSize, pages)
+          workers.processBatch((i until end).map(j => sources(j & 1023)))
+          i = end
+        }
+      }
+      workers.stop()
+      val seconds = (System.nanoTime - start) / 1e9
+
+      println("round " + round + ", batch size " + batchSize + ": " + (pages / seconds).toLong + " pages/s (" + sum.get + ")")
+    }
+  }
+}
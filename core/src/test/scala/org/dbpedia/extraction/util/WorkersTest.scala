@@ -0,0 +1,94 @@
+package org.dbpedia.extraction.util
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class WorkersTest extends FlatSpec with Matchers
+{
+  "Workers" should "replace threads that die from uncaught exceptions" in {
+    val done = new AtomicInteger()
+    val workers = SimpleWorkers(2, 2) { i: Integer =>
+      // kills the thread, more often than there are threads
+      if (i % 10 == 0) throw new Error("test " + i)
+      done.incrementAndGet()
+    }
+    workers.start()
+    for (i <- 1 to 1000) workers.process(i)
+    workers.stop()
+
+    done.get shouldEqual 900
+    workers.threadCount shouldEqual 0
+  }
+
+  it should "process batches and keep working while it is resized" in {
+    val done = new AtomicInteger()
+    val workers = SimpleWorkers(1, 4) { i: Integer => done.incrementAndGet() }
+    workers.start()
+    workers.resize(4)
+    workers.threadCount shouldEqual 4
+    for (i <- 0 until 100) workers.processBatch((0 until 10).map(Int.box))
+    workers.resize(2)
+    for (i <- 0 until 100) workers.processBatch((0 until 10).map(Int.box))
+    workers.stop()
+
+    done.get shouldEqual 2000
+    workers.processedCount shouldEqual 2000
+  }
+
+  it should "throw the exception of a failed init() from start() and destroy all workers" in {
+    val inits = new AtomicInteger()
+    val destroyed = new AtomicInteger()
+    val workers = ResourceWorkers(4, 4) {
+      new Worker[Integer] {
+        private var state = WorkerState.declared
+        def init(): Unit = {
+          // one of the threads fails
+          if (inits.incrementAndGet() == 3) throw new IllegalArgumentException("test init")
+          state = WorkerState.initialized
+        }
+        def process(value: Integer): Unit = {}
+        def destroy(): Unit = { destroyed.incrementAndGet(); state = WorkerState.destroyed }
+        def getState: WorkerState.Value = state
+      }
+    }
+
+    the [IllegalArgumentException] thrownBy workers.start() should have message "test init"
+    inits.get shouldEqual 4
+    destroyed.get shouldEqual 4
+    workers.threadCount shouldEqual 0
+  }
+
+  it should "retry the init() of a thread added by resize() a few times, then throw the failure from process()" in {
+    val inits = new AtomicInteger()
+    val done = new AtomicInteger()
+    val workers = ResourceWorkers(2, 2) {
+      new Worker[Integer] {
+        private var state = WorkerState.declared
+        def init(): Unit = {
+          // only the first two threads initialize their workers
+          if (inits.incrementAndGet() > 2) throw new IllegalArgumentException("test init")
+          state = WorkerState.initialized
+        }
+        def process(value: Integer): Unit = done.incrementAndGet()
+        def destroy(): Unit = state = WorkerState.destroyed
+        def getState: WorkerState.Value = state
+      }
+    }
+    workers.start()
+    workers.resize(3)
+
+    val thrown = the [IllegalStateException] thrownBy { while (true) workers.process(1) }
+    thrown.getCause should have message "test init"
+    inits.get shouldEqual 2 + Workers.initAttempts
+    workers.threadCount shouldEqual 2
+
+    // the threads that did start still finish their work
+    workers.stop()
+    done.get shouldEqual workers.processedCount
+    workers.threadCount shouldEqual 0
+  }
+}
@@ -0,0 +1,45 @@
+package org.dbpedia.extraction.wikiparser
+
+import org.dbpedia.extraction.util.Language
+import org.dbpedia.extraction.wikiparser.impl.simple.SimpleWikiParser
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class NodeTest extends FlatSpec with Matchers
+{
+  private def parse(text: String): PageNode =
+    SimpleWikiParser(new WikiPage(WikiTitle.parse("Title", Language.English), text)).get
+
+  "Node" should "keep annotations per node" in {
+    val page = parse("Text with a [[Link]]")
+    val key = new AnnotationKey[String]
+    val other = new AnnotationKey[String]
+    val child = page.children.head
+
+    child.getAnnotation(key) shouldBe None
+    child.setAnnotation(key, "value")
+    child.getAnnotation(key) shouldBe Some("value")
+    child.getAnnotation(other) shouldBe None
+    page.getAnnotation(key) shouldBe None
+  }
+
+  it should "number the URIs it generates per node" in {
+    val page = parse("{{Infobox|a=1}}{{Infobox|b=2}}")
+    val templates = page.children.collect { case node: TemplateNode => node }
+    templates should have size 2
+
+    page.generateUri("http://example.org/Title", "Infobox") shouldBe "http://example.org/Title__Infobox__1"
+    page.generateUri("http://example.org/Title", "Infobox") shouldBe "http://example.org/Title__Infobox__2"
+    templates.head.generateUri("http://example.org/Title", "Infobox") shouldBe "http://example.org/Title__Infobox__1"
+  }
+
+  "SimpleWikiParser" should "strip leading whitespace and keep the text of text nodes" in {
+    val page = parse(" \t\n Intro text [[Link]] more\ntext")
+    page.children.head shouldBe a [TextNode]
+    page.children.head.asInstanceOf[TextNode].text shouldBe "Intro text "
+    page.children.last.asInstanceOf[TextNode].text shouldBe " more\ntext"
+    page.toWikiText shouldBe "Intro text [[Link]] more\ntext"
+  }
+}
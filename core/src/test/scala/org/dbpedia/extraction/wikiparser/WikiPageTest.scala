@@ -0,0 +1,50 @@
+package org.dbpedia.extraction.wikiparser
+
+import org.dbpedia.extraction.util.Language
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+@RunWith(classOf[JUnitRunner])
+class WikiPageTest extends FlatSpec with Matchers
+{
+  "WikiPage" should "parse once and share the AST with the simple parser" in {
+    val page = new WikiPage(WikiTitle.parse("Title", Language.English), "Text with a [[Link]] and {{Template|x=1}}")
+    page.isParsed shouldBe false
+
+    val node = page.pageNode.get
+    page.isParsed shouldBe true
+    page.parseError shouldBe null
+    val nanos = page.parseNanos
+
+    WikiParser.getInstance().apply(page).get should be theSameInstanceAs node
+    WikiParser.getInstance("simple").apply(page).get should be theSameInstanceAs node
+    page.pageNode.get should be theSameInstanceAs node
+    page.parseNanos shouldBe nanos
+  }
+
+  it should "parse again after a failed parse when the page is retried" in {
+    val page = new WikiPage(WikiTitle.parse("Title", Language.English), "Text with a [[Link]]")
+    val error = new WikiParserException("parse failed")
+    var parses = 0
+    def failing: Option[PageNode] = { parses += 1; throw error }
+
+    the [WikiParserException] thrownBy page.parsed(sweble = false)(failing) should be theSameInstanceAs error
+    the [WikiParserException] thrownBy page.parsed(sweble = false)(failing) should be theSameInstanceAs error
+    parses shouldBe 1
+    page.isParsed shouldBe true
+    page.parseError should be theSameInstanceAs error
+
+    // like ExtractionJob before it submits a failed page again
+    page.toggleRetry()
+    page.isRetry shouldBe true
+    page.isParsed shouldBe false
+    page.parseError shouldBe null
+    page.parseNanos shouldBe 0L
+
+    val node = page.pageNode.get
+    page.isParsed shouldBe true
+    page.parseError shouldBe null
+    page.pageNode.get should be theSameInstanceAs node
+  }
+}
@@ -0,0 +1,86 @@
+package org.dbpedia.extraction.wikiparser.impl.simple
+
+import org.dbpedia.extraction.util.Language
+import org.dbpedia.extraction.wikiparser._
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.util.Random
+
+/**
+ * Compares Matcher and Source with ReferenceLexer, the lexer they replaced. SimpleWikiParser only sees
+ * the match results, positions and lines of the lexer, so equal results mean equal ASTs.
+ */
+@RunWith(classOf[JUnitRunner])
+class MatcherTest extends FlatSpec with Matchers
+{
+  private val corpus = ReferenceLexer.corpus(200).filter(_.nonEmpty)
+
+  private val matchers = ReferenceLexer.TagSets.map { case (tags, std) => (tags, std, new Matcher(tags, std)) }
+
+  "Matcher" should "find the same tags as testing every tag at every position" in {
+    val random = new Random(1)
+    for (text <- corpus; (tags, std, matcher) <- matchers) {
+      // walk through the text like the parser does, and from some positions in between
+      var pos = 0
+      while (pos < text.length) {
+        for (start <- Seq(pos, pos + random.nextInt(64)) if start <= text.length)
+          same(matcher.execute(text, start), ReferenceLexer.execute(tags, std, text, start), text, start)
+        val result = matcher.execute(text, pos)
+        pos = if (result.matched) result.pos else text.length
+      }
+    }
+  }
+
+  "Source" should "report the same lines as counting line breaks while moving" in {
+    val random = new Random(2)
+    for (text <- corpus.take(50)) {
+      val source = new Source(text, Language.Mappings)
+      val reference = new ReferenceLexer.ReferenceSource(text)
+      var mark = (0, 1)
+      for (step <- 0 until 1000) {
+        random.nextInt(4) match {
+          case 0 =>
+            val count = random.nextInt(200) - 100
+            source.seek(count) shouldBe reference.seek(count)
+          case 1 =>
+            // like SimpleWikiParser when it goes back after an error
+            source.pos = mark._1
+            source.line = mark._2
+            reference.pos = mark._1
+            reference.line = mark._2
+          case _ =>
+            mark = (reference.pos, reference.line)
+            val (tags, std, matcher) = matchers(random.nextInt(matchers.size))
+            same(source.find(matcher, throwIfNoMatch = false), reference.find(tags, std), text, mark._1)
+        }
+        source.pos shouldBe reference.pos
+        source.line shouldBe reference.line
+      }
+    }
+  }
+
+  "SimpleWikiParser" should "assign the lines of the source to the nodes" in {
+    val text = "Intro\n\n{{Infobox\n| name = [[Link]]\n}}\n== Section ==\ntext"
+    val page = SimpleWikiParser(new WikiPage(WikiTitle.parse("Title", Language.English), text)).get
+
+    def descendants(node: Node): List[Node] = node :: node.children.flatMap(descendants)
+    val nodes = descendants(page)
+    nodes.collect { case node: TemplateNode => node.line } shouldBe List(3)
+    nodes.collect { case node: InternalLinkNode => node.line } shouldBe List(4)
+    nodes.collect { case node: SectionNode => node.line } shouldBe List(6)
+  }
+
+  private def same(result: MatchResult, expected: MatchResult, text: String, start: Int): Unit = {
+    withClue("at " + start + " of " + text.take(100) + ": ") {
+      result.matched shouldBe expected.matched
+      result.pos shouldBe expected.pos
+      if (expected.matched) {
+        result.tag shouldBe expected.tag
+        result.tagIndex shouldBe expected.tagIndex
+        result.isStdTag shouldBe expected.isStdTag
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package org.dbpedia.extraction.wikiparser.impl.simple
+
+import java.io.File
+
+import org.dbpedia.extraction.sources.XMLSource
+import org.dbpedia.extraction.util.Language
+
+/**
+ * The lexer of SimpleWikiParser before Matcher got its dispatch table and Source its line break index:
+ * tests every tag at every position and counts line breaks while moving. The reference for MatcherTest
+ * and SimpleWikiParserBenchmark.
+ */
+object ReferenceLexer
+{
+  /** the tag sets of the matchers of SimpleWikiParser */
+  val TagSets: Seq[(List[String], Boolean)] = Seq(
+    (List(), true),
+    (List("-->"), false),
+    (List("/>", "<"), false),
+    (List("</ref>"), false),
+    (List("</math>"), false),
+    (List("</code>"), false),
+    (List("</source>"), false),
+    (List("|", "]]", "\n"), false),
+    (List("]]", "\n"), true),
+    (List(" ", "]", "\n"), false),
+    (List("]", "\n"), true),
+    (List(" ", "{","}", "[", "]", "\n", "\t"), false),
+    (List("|=","=", "|", "}}"), true),
+    (List("|", "}}"), true),
+    (List("|", "}}}"), true),
+    (List("|", "}}", ":"), true),
+    (List("}}"), true),
+    (List("|}", "|+", "|-", "|", "!"), false),
+    (List("|}", "|-", "|", "!"), false),
+    (List("\n ", "\n|}", "\n|-", "\n|", "\n!", "||", "!!", "|", "!"), true),
+    (List("\n ", "\n|}", "\n|-", "\n|", "\n!", "||", "!!"), true),
+    (List("=\n", "=\r", "\n"), true)
+  )
+
+  private val StdTags = List("[[", "[", "http", "{{", "{|", "\n=", "<!--", "<ref", "<math", "<code", "<source")
+
+  /**
+   * Wiki text of test resources and of the first pages of the English mappings wiki.
+   */
+  def corpus(mappingPages: Int): Seq[String] =
+  {
+    val samples = new File("src/test/resources/org/dbpedia/extraction/mappings/InfoboxExtractor_samples/fr")
+    val pages = samples.listFiles.filter(_.getName.endsWith(".xml")).sortBy(_.getName).toSeq.flatMap(XMLSource.fromFile(_, Language("fr")).map(_.source))
+
+    val cases = scala.io.Source.fromFile("src/test/scala/org/dbpedia/extraction/wikiparser/impl/sweble/SwebleTestCases.txt").mkString
+      .split("----------------------------------------\n").toSeq
+
+    val mappings = XMLSource.fromFile(new File("../mappings/Mapping_en.xml"), Language.Mappings).take(mappingPages).map(_.source).toSeq
+
+    pages ++ cases ++ mappings
+  }
+
+  /**
+   * Matcher.execute as it was.
+   */
+  def execute(userTags : List[String], matchStdTags : Boolean, source : String, startPos : Int) : MatchResult =
+  {
+    val stdTags = if(matchStdTags) StdTags else List()
+    val onlySpecialChars = (stdTags ::: userTags).map(tag => tag(0)).forall(isSpecialChar)
+    var pos = startPos
+
+    if(matchStdTags && pos == 0 && source.nonEmpty && source(0) == '=')
+    {
+      return new MatchResult(true, 1, stdTags.indexOf("\n="), "\n=", true)
+    }
+
+    while(pos < source.length)
+    {
+      if(!onlySpecialChars || isSpecialChar(source(pos)))
+      {
+        for((tag, tagIndex) <- stdTags.zipWithIndex)
+          if(pos + tag.length <= source.length && source.regionMatches(pos, tag, 0, tag.length))
+            return new MatchResult(true, pos + tag.length, tagIndex, tag, true)
+
+        for((tag, tagIndex) <- userTags.zipWithIndex)
+          if(pos + tag.length <= source.length && source.regionMatches(pos, tag, 0, tag.length))
+            return new MatchResult(true, pos + tag.length, tagIndex, tag, false)
+      }
+
+      pos += 1
+    }
+
+    new MatchResult(false, pos)
+  }
+
+  private def isSpecialChar(c : Char) : Boolean =
+  {
+    c == 'h' || c == 10 || c == 33 || (c >= 60 && c <= 62) || c == 91 || c == 93 || (c >= 123 && c <= 125)
+  }
+
+  /**
+   * Source.seek and Source.find as they were: moves the position and counts the line breaks passed.
+   */
+  final class ReferenceSource(source : String)
+  {
+    var pos = 0
+    var line = 1
+
+    def seek(count : Int) : Boolean =
+    {
+      if(count >= 0)
+      {
+        if(pos + count <= source.length)
+        {
+          for(c <- source.substring(pos, pos + count) if c == '\n') line += 1
+          pos += count
+          true
+        }
+        else
+        {
+          for(c <- source.substring(pos) if c == '\n') line += 1
+          pos = source.length - 1
+          false
+        }
+      }
+      else
+      {
+        if(pos + count >= 0)
+        {
+          for(c <- source.substring(pos + count, pos) if c == '\n') line -= 1
+          pos += count
+          true
+        }
+        else
+        {
+          for(c <- source.substring(0, pos) if c == '\n') line -= 1
+          pos = 0
+          false
+        }
+      }
+    }
+
+    def find(userTags : List[String], matchStdTags : Boolean) : MatchResult =
+    {
+      val oldPos = pos
+      val result = execute(userTags, matchStdTags, source, pos)
+      pos = result.pos
+      if(pos != oldPos)
+      {
+        for(c <- source.substring(oldPos, pos) if c == '\n') line += 1
+      }
+      result
+    }
+  }
+}
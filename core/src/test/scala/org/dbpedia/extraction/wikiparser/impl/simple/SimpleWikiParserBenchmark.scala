@@ -0,0 +1,73 @@
+package org.dbpedia.extraction.wikiparser.impl.simple
+
+import java.io.File
+import java.lang.management.ManagementFactory
+
+import org.dbpedia.extraction.sources.XMLSource
+import org.dbpedia.extraction.util.Language
+import org.dbpedia.extraction.wikiparser.{WikiPage, WikiParserException, WikiTitle}
+
+/**
+ * Measures the lexer of SimpleWikiParser on a corpus of wiki text: scanning with Matcher against
+ * ReferenceLexer for all tag sets of the parser, and whole pages with SimpleWikiParser.
+ * The corpus is an XML dump given on the command line, or the pages of ReferenceLexer.corpus.
+ * Not a test, run it from the core directory with
+ *
+ * scala -cp ... org.dbpedia.extraction.wikiparser.impl.simple.SimpleWikiParserBenchmark [dump.xml language] [rounds]
+ */
+object SimpleWikiParserBenchmark
+{
+  private val threadBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+
+  def main(args: Array[String]): Unit =
+  {
+    val (texts, language) =
+      if (args.length >= 2) (XMLSource.fromFile(new File(args(0)), Language(args(1))).map(_.source).toArray, Language(args(1)))
+      else (ReferenceLexer.corpus(Int.MaxValue).toArray, Language.Mappings)
+    val rounds = if (args.length > 2) args(2).toInt else 5
+    val chars = texts.map(_.length.toLong).sum
+    println(texts.length + " pages, " + chars + " characters")
+
+    val matchers = ReferenceLexer.TagSets.map { case (tags, std) => (tags, std, new Matcher(tags, std)) }
+    val pages = texts.map(text => new WikiPage(WikiTitle.parse("Benchmark", language), text))
+
+    for (round <- 1 to rounds)
+    {
+      measure(round, "reference scan", chars, "chars") {
+        for (text <- texts; (tags, std, _) <- matchers) scan(text, ReferenceLexer.execute(tags, std, text, _))
+      }
+
+      measure(round, "matcher scan  ", chars, "chars") {
+        for (text <- texts; (_, _, matcher) <- matchers) scan(text, matcher.execute(text, _))
+      }
+
+      measure(round, "parse         ", pages.length, "pages") {
+        for (page <- pages)
+          try SimpleWikiParser(page)
+          catch { case _: WikiParserException => }
+      }
+    }
+  }
+
+  // all matches from the start to the end of the text, like parseUntil
+  private def scan(text: String, execute: Int => MatchResult): Unit =
+  {
+    var pos = 0
+    while (pos < text.length)
+    {
+      val result = execute(pos)
+      pos = if (result.matched) result.pos else text.length
+    }
+  }
+
+  private def measure(round: Int, name: String, count: Long, unit: String)(proc: => Unit): Unit =
+  {
+    val thread = Thread.currentThread.getId
+    val bytes = threadBean.getThreadAllocatedBytes(thread)
+    val start = System.nanoTime
+    proc
+    val seconds = (System.nanoTime - start) / 1e9
+    val allocated = threadBean.getThreadAllocatedBytes(thread) - bytes
+    println("round " + round + ", " + name + ": " + (count / seconds).toLong + " " + unit + "/s, " + (allocated / count) + " bytes/" + unit.stripSuffix("s"))
+  }
+}
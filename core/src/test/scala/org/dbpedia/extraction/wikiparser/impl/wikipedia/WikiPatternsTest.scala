@@ -0,0 +1,60 @@
+package org.dbpedia.extraction.wikiparser.impl.wikipedia
+
+import org.dbpedia.extraction.util.Language
+import org.dbpedia.extraction.wikiparser.{WikiPage, WikiTitle}
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.util.Random
+
+/**
+ * Compares the redirect tries of WikiPatterns with the redirect regexes they replace.
+ */
+@RunWith(classOf[JUnitRunner])
+class WikiPatternsTest extends FlatSpec with Matchers
+{
+  private val languages = Seq("en", "de", "ru", "tr", "ja").map(Language(_))
+
+  private val pieces = Seq("#REDIRECT", "#redirect", "#ReDiReCt", "#WEITERLEITUNG", "#weiterleitung", "#перенаправление",
+    "#ПЕРЕНАПРАВЛЕНИЕ", "#перенапр", "#YÖNLENDİRME", "#yönlendirme", "#YÖNLENDIR", "＃転送", "#リダイレクト", "#REDIRECTION",
+    "#", "＃", " ", "\n", "\t", " ", ":", "::", "[[", "[", "]]", "Target", "Ziel|label", "{{Disambig}}", "text")
+
+  private def texts(random: Random): Seq[String] =
+    for (_ <- 1 to 3000) yield Seq.fill(random.nextInt(6) + 1)(pieces(random.nextInt(pieces.size))).mkString
+
+  "RedirectPattern" should "find redirects like the regex of SimpleWikiParser" in {
+    val random = new Random(1)
+    for (language <- languages; text <- texts(random)) {
+      val redirect = WikiPatterns.redirect(language)
+      withClue(language.wikiCode + ": [" + text + "] ") {
+        redirect.findIn(text) shouldBe redirect.regex.findFirstMatchIn(text).isDefined
+      }
+    }
+  }
+
+  it should "recognize all text that starts with a redirect like the regex of RedirectFinder" in {
+    val random = new Random(2)
+    for (language <- languages; text <- texts(random)) {
+      val redirect = WikiPatterns.redirect(language)
+      if (redirect.destinationRegex.unapplySeq(text).isDefined)
+        withClue(language.wikiCode + ": [" + text + "] ") { redirect.maybeStartOf(text) shouldBe true }
+    }
+
+    val de = WikiPatterns.redirect(Language("de"))
+    de.maybeStartOf(" \n#weiterleitung : [[Ziel]]") shouldBe true
+    de.maybeStartOf("Text\n#WEITERLEITUNG [[Ziel]]") shouldBe false
+    WikiPatterns.redirect(Language("ru")).maybeStartOf("#ПЕРЕНАПРАВЛЕНИЕ [[Цель]]") shouldBe true
+  }
+
+  it should "be built once per wiki code" in {
+    WikiPatterns.redirect(Language("en")) should be theSameInstanceAs WikiPatterns.redirect(Language("en"))
+    WikiPatterns.disambiguationTemplate(Language("de")) should be theSameInstanceAs WikiPatterns.disambiguationTemplate(Language("de"))
+  }
+
+  "WikiPage" should "use the redirect pattern of its language" in {
+    new WikiPage(WikiTitle.parse("Title", Language("de")), "#Weiterleitung [[Ziel]]").isRedirect shouldBe true
+    new WikiPage(WikiTitle.parse("Title", Language.English), "#Weiterleitung [[Target]]").isRedirect shouldBe false
+    new WikiPage(WikiTitle.parse("Title", Language.English), "Text about #REDIRECT without a link").isRedirect shouldBe false
+  }
+}
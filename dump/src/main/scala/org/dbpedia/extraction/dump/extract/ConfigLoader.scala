@@ -12,7 +12,7 @@ import org.dbpedia.extraction.config.{Config, ConfigUtils}
 import org.dbpedia.extraction.destinations._
 import org.dbpedia.extraction.mappings._
 import org.dbpedia.extraction.ontology.Ontology
-import org.dbpedia.extraction.ontology.io.OntologyReader
+import org.dbpedia.extraction.ontology.io.{OntologyReader, OntologySnapshot}
 import org.dbpedia.extraction.sources.{Source, WikiSource, XMLSource}
 import org.dbpedia.extraction.util.RichFile.wrapFile
 import org.dbpedia.extraction.util._
@@ -36,6 +36,10 @@ class ConfigLoader(config: Config)
 {
   private val logger = Logger.getLogger(classOf[ConfigLoader].getName)
 
+  IOUtils.unzipperThreads = config.decompressionThreads
+  IOUtils.zipperThreads = config.compressionThreads
+  IOUtils.zipperLevel = config.compressionLevel
+
   private val extractionJobs = new ConcurrentHashMap[Language, ExtractionJob]().asScala
 
   private val sparkExtractionJobs = new ConcurrentHashMap[Language, SparkExtractionJob]().asScala
@@ -138,20 +142,25 @@ class ConfigLoader(config: Config)
 
       def articlesSource: Source = getArticlesSource(language, finder)
 
+      // one pass over the dump for templates, template redirects, disambiguations and titles, cached next to the dump
+      private lazy val _dumpIndex =
+      {
+        DumpIndex.load(articlesSource, finder.file(date, DumpIndex.CacheSuffix).get, language)
+      }
+
+      def dumpIndex : DumpIndex = _dumpIndex
+
+      // one cache for all extractors and worker threads of this language, two bytes per character
       private val _templates =
       {
-        Template.load(articlesSource)
+        _dumpIndex.template(config.templateCacheSize.toLong << 19)
       }
 
       def templates : Template = _templates
 
       private val _redirects =
       {
-        finder.file(date, "template-redirects.obj") match{
-          case Some(cache) => Redirects.load(articlesSource, cache, language)
-          case None => new Redirects(Map())
-        }
-
+        _dumpIndex.redirects
       }
 
       def redirects : Redirects = _redirects
@@ -162,7 +171,7 @@ class ConfigLoader(config: Config)
           Disambiguations.load(reader(finder.file(date, config.disambiguations).get), finder.file(date, "disambiguations-ids.obj").get, language)
         } catch {
           case ex: Exception =>
-            logger.info("Could not load disambiguations - error: " + ex.getMessage)
+            logger.info("Could not load disambiguations from " + config.disambiguations + ", using the disambiguation templates found in the dump - error: " + ex.getMessage)
             null
         }
       }
@@ -171,7 +180,7 @@ class ConfigLoader(config: Config)
         if (_disambiguations != null)
           _disambiguations
         else
-          new Disambiguations(Set[Long]())
+          new Disambiguations(_dumpIndex.disambiguations)
 
       def configFile: Config = config
 
@@ -203,8 +212,13 @@ class ConfigLoader(config: Config)
       formatDestinations += new DatasetDestination(datasetDestinations)
     }
 
+    // deduplicate once for all formats
+    val composite = new CompositeDestination(formatDestinations: _*)
+    val deduplicated = if (config.globalDedupDatasets.isEmpty) composite
+      else new GlobalDeduplicatingDestination(composite, config.globalDedupDatasets, config.globalDedupCapacity, config.globalDedupSpillDir, config.globalDedupMemory)
+
     val destination = new MarkerDestination(
-      new CompositeDestination(formatDestinations: _*),
+      deduplicated,
       finder.file(date, Extraction.Complete).get,
       false
     )
@@ -215,12 +229,15 @@ class ConfigLoader(config: Config)
 
     val extractionJob = new ExtractionJob(
       extractor,
-      context.articlesSource,
+      // pages in other namespaces are skipped by the parser before their text is decoded
+      getArticlesSource(context.language, finder, extractionJobNS),
       extractionJobNS,
       destination,
       context.language,
       config.retryFailedPages,
-      getExtractionRecorder(context.language)
+      getExtractionRecorder(context.language),
+      config.extractionBatchSize,
+      config.extractionThreads
     )
 
     extractionJobs.put(context.language, extractionJob)
@@ -410,18 +427,18 @@ class ConfigLoader(config: Config)
     //language-independent val
     private lazy val _ontology =
     {
-        val ontologySource = if (config.ontologyFile != null && config.ontologyFile.isFile)
+        if (config.ontologyFile != null && config.ontologyFile.isFile)
         {
-          XMLSource.fromFile(config.ontologyFile, Language.Mappings)
+          // parsing the ontology pages takes much longer than loading the snapshot of a previous run
+          OntologySnapshot.load(config.ontologyFile, new OntologyReader().read(XMLSource.fromFile(config.ontologyFile, Language.Mappings)))
         }
         else
         {
           val namespaces = Set(Namespace.OntologyClass, Namespace.OntologyProperty)
           val url = new URL(Language.Mappings.apiUri)
           val language = Language.Mappings
-          WikiSource.fromNamespaces(namespaces, url, language)
+          new OntologyReader().read(WikiSource.fromNamespaces(namespaces, url, language))
         }
-        new OntologyReader().read(ontologySource)
     }
 
     //language-independent val
@@ -432,14 +449,25 @@ class ConfigLoader(config: Config)
       XMLSource.fromReaders(config.source.flatMap(x => readers(x, finder, date)), Language.Commons, _.namespace == Namespace.File)
     }
 
-  private def getArticlesSource(language: Language, finder: Finder[File]) =
+  /**
+    * @param namespaces only read pages in these namespaces, all pages matching the title filter if empty
+    */
+  private def getArticlesSource(language: Language, finder: Finder[File], namespaces: Set[Namespace] = Set()) =
   {
-    val articlesReaders = config.source.flatMap(x => readers(x, finder, latestDate(finder)))
+    val articlesFiles = config.source.flatMap(x => files(x, finder, latestDate(finder)))
 
-    XMLSource.fromReaders(articlesReaders, language,
-      title => title.namespace == Namespace.Main || title.namespace == Namespace.File ||
+    val filter = (title: WikiTitle) => title.namespace == Namespace.Main || title.namespace == Namespace.File ||
         title.namespace == Namespace.Category || title.namespace == Namespace.Template ||
-        title.namespace == Namespace.WikidataProperty || ExtractorUtils.titleContainsCommonsMetadata(title))
+        title.namespace == Namespace.WikidataProperty || ExtractorUtils.titleContainsCommonsMetadata(title)
+
+    // a single uncompressed or multistream file can be parsed concurrently in byte ranges
+    val multistreamIndex = if (articlesFiles.size == 1) XMLSource.multistreamIndex(articlesFiles.head) else None
+    if (config.parserThreads > 1 && multistreamIndex.isDefined)
+      XMLSource.fromMultistreamFile(articlesFiles.head, multistreamIndex.get, language, config.parserThreads, filter, namespaces)
+    else if (config.parserThreads > 1 && articlesFiles.size == 1 && XMLSource.isSplittable(articlesFiles.head))
+      XMLSource.fromSplitFile(articlesFiles.head, language, config.parserThreads, filter, namespaces)
+    else
+      XMLSource.fromReaders(articlesFiles.map(reader), language, filter, namespaces)
   }
 
   private def latestDate(finder: Finder[_]): String = {
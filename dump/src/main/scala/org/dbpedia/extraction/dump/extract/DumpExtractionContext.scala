@@ -1,6 +1,6 @@
 package org.dbpedia.extraction.dump.extract
 
-import org.dbpedia.extraction.mappings.{Disambiguations, Mappings, Redirects}
+import org.dbpedia.extraction.mappings.{Disambiguations, DumpIndex, Mappings, Redirects}
 import org.dbpedia.extraction.ontology.Ontology
 import org.dbpedia.extraction.sources.Source
 import org.dbpedia.extraction.util.Language
@@ -37,4 +37,7 @@ trait DumpExtractionContext
     def redirects : Redirects
 
     def disambiguations : Disambiguations
+
+    // templates, template redirects, disambiguations and page titles, collected in one pass over the dump
+    def dumpIndex : DumpIndex
 }
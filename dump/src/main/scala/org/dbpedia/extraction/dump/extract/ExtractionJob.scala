@@ -8,6 +8,8 @@ import org.dbpedia.extraction.sources.Source
 import org.dbpedia.extraction.util._
 import org.dbpedia.extraction.wikiparser.{Namespace, PageNode, WikiPage}
 
+import scala.collection.mutable.ArrayBuffer
+
 /**
   * Executes a extraction.
   *
@@ -16,6 +18,8 @@ import org.dbpedia.extraction.wikiparser.{Namespace, PageNode, WikiPage}
   * @param namespaces Only extract pages in these namespaces
   * @param destination The extraction destination. Will be closed after the extraction has been finished.
   * @param language the language of this extraction.
+  * @param batchSize number of pages handed to a worker thread at once, 1 hands over single pages
+  * @param threads minimum and maximum number of worker threads, the number is adapted to the throughput if they differ
   */
 class ExtractionJob(
                      extractor: WikiPageExtractor,
@@ -24,7 +28,9 @@ class ExtractionJob(
                      val destination: Destination,
                      val language: Language,
                      val retryFailedPages: Boolean,
-                     val extractionRecorder: ExtractionRecorder[WikiPage])
+                     val extractionRecorder: ExtractionRecorder[WikiPage],
+                     val batchSize: Int = 1,
+                     val threads: (Int, Int) = (Workers.defaultThreads, Workers.defaultThreads))
 {
   /*  val myAnnotatedClass: ClassSymbol = runtimeMirror(Thread.currentThread().getContextClassLoader).classSymbol(ExtractorAnnotation.getClass)
     val annotation: Option[Annotation] = myAnnotatedClass.annotations.find(_.tree.tpe =:= typeOf[ExtractorAnnotation])
@@ -36,7 +42,25 @@ class ExtractionJob(
 
   def datasets: Set[Dataset] = extractor.datasets
 
-  private val workers = SimpleWorkers { page: WikiPage =>
+  // one queued value per thread of the largest pool, as many as there are threads by default
+  private val queueLength = threads._2
+
+  // each worker thread lets the extractors set up their thread-confined state, e.g. Sweble engines
+  private val workers = ResourceWorkers(threads = threads._1, queueLength = queueLength) (new Worker[WikiPage] {
+    private var state = WorkerState.declared
+    def init(): Unit = {
+      extractor.initializeWorker()
+      state = WorkerState.initialized
+    }
+    def process(page: WikiPage): Unit = extract(page)
+    def destroy(): Unit = {
+      extractor.finalizeWorker()
+      state = WorkerState.destroyed
+    }
+    def getState: WorkerState.Value = state
+  })
+
+  private def extract(page: WikiPage): Unit = {
     try {
       if (namespaces.contains(page.title.namespace)) {
         val graph = extractor.extract(page, page.uri)
@@ -57,6 +81,31 @@ class ExtractionJob(
         if(extractionRecorder.monitor != null)
           extractionRecorder.monitor.reportError(extractionRecorder, ex)
     }
+    finally {
+      // all extractors share the parses of the page, record them once
+      if (page.isParsed)
+        extractionRecorder.recordParse(page.title.language, page.parseNanos, page.parseError != null)
+    }
+  }
+
+  // the source may call us from several threads
+  private val batch = new ArrayBuffer[WikiPage](batchSize)
+
+  private def dispatch(page: WikiPage): Unit = {
+    if (batchSize <= 1) return workers.process(page)
+
+    val full = batch.synchronized {
+      batch += page
+      if (batch.size < batchSize) null
+      else try batch.toVector finally batch.clear()
+    }
+    // don't block the other source threads while the queue is full
+    if (full != null) workers.processBatch(full)
+  }
+
+  private def flush(): Unit = {
+    val rest = batch.synchronized { try batch.toVector finally batch.clear() }
+    workers.processBatch(rest)
   }
 
   def run(): Unit =
@@ -65,10 +114,13 @@ class ExtractionJob(
     extractor.initializeExtractor()
     destination.open()
     workers.start()
+    val controller = if (threads._2 > threads._1) new WorkersController(workers, threads._1, threads._2) else null
+    if (controller != null) controller.start()
 
     try {
       for (page <- source)
-        workers.process(page)
+        dispatch(page)
+      flush()
 
       extractionRecorder.printLabeledLine("finished extraction after {page} pages with {mspp} per page", RecordSeverity.Info, language)
 
@@ -90,6 +142,7 @@ class ExtractionJob(
       case ex : Throwable =>
         if(extractionRecorder.monitor != null) extractionRecorder.monitor.reportCrash(extractionRecorder, ex)
     } finally {
+      if (controller != null) controller.close()
       workers.stop()
       destination.close()
       extractor.finalizeExtractor()
@@ -187,7 +187,11 @@ class QuadMapperFormatter(quad: Boolean = true, turtle: Boolean = true, policies
     contextAdditions += ( param -> UriUtils.encodeUriComponent(paramValue))
   }
 
-  override def render(quad: Quad): String = synchronized {
+  override def render(quad: Quad): String = super.render(adapt(quad))
+
+  override def renderTo(quad: Quad, sink: java.lang.StringBuilder): Unit = super.renderTo(adapt(quad), sink)
+
+  private def adapt(quad: Quad): Quad = synchronized {
     var context = Option(quad.context) match{
       case Some(c) if c.trim.nonEmpty => c.trim
       case None => null
@@ -199,6 +203,6 @@ class QuadMapperFormatter(quad: Boolean = true, turtle: Boolean = true, policies
       else
         context += "#" + add._1 + "=" + add._2
     val value = org.dbpedia.extraction.util.TurtleUtils.unescapeTurtle(quad.value)  //TODO unescaping turtle escapes
-    super.render(quad.copy(value=value,context=context))
+    quad.copy(value=value,context=context)
   }
 }
\ No newline at end of file
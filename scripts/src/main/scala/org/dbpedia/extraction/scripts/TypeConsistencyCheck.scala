@@ -173,8 +173,8 @@ object TypeConsistencyCheck {
     resourceTypes.get(quad.value) match {
       case Some(obj) => ontology.getOntologyProperty(quad.predicate) match{
         case Some(predicate) if predicate.range.equals(OntologyClass.owlThing) => correctDataset
-        case Some(predicate) if obj.relatedClasses.contains(predicate.range) => correctDataset
-        case Some(predicate) if predicate.range.isInstanceOf[OntologyClass] && isDisjoined(obj, predicate.range.asInstanceOf[OntologyClass]) => disjointRangeDataset
+        case Some(predicate) if predicate.range.isInstanceOf[OntologyClass] && ontology.hierarchy.isRelated(obj, predicate.range.asInstanceOf[OntologyClass]) => correctDataset
+        case Some(predicate) if predicate.range.isInstanceOf[OntologyClass] && ontology.hierarchy.isDisjoint(obj, predicate.range.asInstanceOf[OntologyClass]) => disjointRangeDataset
         case Some(predicate) => nonDisjointRangeDataset
         case None => untypedRangeDataset
       }
@@ -192,8 +192,8 @@ object TypeConsistencyCheck {
     resourceTypes.get(quad.subject) match {
       case Some(subj) => ontology.getOntologyProperty(quad.predicate) match{
         case Some(predicate) if predicate.domain.equals(OntologyClass.owlThing) => correctDataset
-        case Some(predicate) if subj.relatedClasses.contains(predicate.domain) => correctDataset
-        case Some(predicate) if isDisjoined(subj, predicate.domain.asInstanceOf[OntologyClass]) => disjointDomainDataset
+        case Some(predicate) if ontology.hierarchy.isRelated(subj, predicate.domain) => correctDataset
+        case Some(predicate) if ontology.hierarchy.isDisjoint(subj, predicate.domain) => disjointDomainDataset
         case Some(predicate) => nonDisjointDomainDataset
         case None => untypedDomainDataset
       }
@@ -201,48 +201,6 @@ object TypeConsistencyCheck {
     }
   }
 
-    /**
-     * checks if two classes ar disjoint by testing any base-classes recursively for disjointnes
-     * @param objClass      the type of an object
-     * @param rangeClass    the range of the pertaining property
-     * @param clear         new disjoint tests have to clear the relatedClasses cache, keeps already tested combinations of this cycle
-     * @return
-     */
-  private lazy val relatedClasses = new mutable.HashSet[(OntologyClass, OntologyClass)]
-  private lazy val disjoinedClassesMap = new mutable.HashMap[(OntologyClass, OntologyClass), Boolean]
-
-  def isDisjoined(objClass : OntologyClass, rangeClass : OntologyClass, clear: Boolean = true) : Boolean = {
-
-      if (clear)
-        relatedClasses.clear()
-
-      if(disjoinedClassesMap.keySet.contains((objClass, rangeClass)) && disjoinedClassesMap((objClass, rangeClass)))
-        return true
-
-      if(objClass.disjointWithClasses.contains(rangeClass)
-        || rangeClass.disjointWithClasses.contains(objClass)) {
-        disjoinedClassesMap.put((objClass, rangeClass), true)
-        disjoinedClassesMap.put((rangeClass, objClass), true)
-        return true
-      }
-      relatedClasses.add(objClass, rangeClass)
-      relatedClasses.add(rangeClass, objClass)
-      for (objClazz <- objClass.relatedClasses) {
-        for(rangeClazz <- rangeClass.relatedClasses) {
-          if (!relatedClasses.contains(objClazz, rangeClazz)) { //not!
-            if (isDisjoined(objClazz, rangeClazz, clear = false))
-              return true
-          }
-          if (!relatedClasses.contains(rangeClazz, objClazz)) { //not!
-            if (isDisjoined(rangeClazz, objClazz, clear = false))
-              return true
-          }
-        }
-      }
-      false
-  }
-
-
   private def computeType(quad: Quad, resourceTypes: scala.collection.mutable.Map[String, OntologyClass], ontology: Ontology): Unit =
   {
     breakable {
@@ -255,7 +213,7 @@ object TypeConsistencyCheck {
       if (!resourceTypes.contains(quad.subject)) //not! {
         resourceTypes(quad.subject) = ontoClass
       else {
-        if (ontoClass.relatedClasses.contains(resourceTypes(quad.subject)))
+        if (ontology.hierarchy.isRelated(ontoClass, resourceTypes(quad.subject)))
           resourceTypes(quad.subject) = ontoClass
       }
     }